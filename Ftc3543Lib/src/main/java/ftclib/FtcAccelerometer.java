@@ -28,7 +28,9 @@ import com.qualcomm.robotcore.hardware.HardwareMap;
 import org.firstinspires.ftc.robotcore.external.navigation.Acceleration;
 
 import trclib.TrcAccelerometer;
+import trclib.TrcCalibrationCache;
 import trclib.TrcDbgTrace;
+import trclib.TrcEvent;
 import trclib.TrcFilter;
 import trclib.TrcUtil;
 
@@ -102,6 +104,28 @@ public class FtcAccelerometer extends TrcAccelerometer
         calibrate(DataType.ACCELERATION);
     }   //calibrate
 
+    /**
+     * This method starts calibrating the sensor in the background and returns immediately.
+     *
+     * @param event specifies the event to signal when the calibration is done, can be null.
+     */
+    public void startCalibration(TrcEvent event)
+    {
+        startCalibration(DataType.ACCELERATION, event);
+    }   //startCalibration
+
+    /**
+     * This method restores the calibration from the cache if present, then re-validates it in the background.
+     *
+     * @param cache specifies the calibration cache.
+     * @param event specifies the event to signal when the background calibration is done, can be null.
+     * @return true if the calibration is restored from the cache, false otherwise.
+     */
+    public boolean startCalibration(TrcCalibrationCache cache, TrcEvent event)
+    {
+        return startCalibration(DataType.ACCELERATION, cache, event);
+    }   //startCalibration
+
     //
     // Implements TrcAccelerometer abstract methods.
     //
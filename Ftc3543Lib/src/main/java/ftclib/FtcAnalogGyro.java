@@ -25,7 +25,9 @@ package ftclib;
 import com.qualcomm.robotcore.hardware.AnalogInput;
 import com.qualcomm.robotcore.hardware.HardwareMap;
 
+import trclib.TrcCalibrationCache;
 import trclib.TrcDbgTrace;
+import trclib.TrcEvent;
 import trclib.TrcFilter;
 import trclib.TrcGyro;
 import trclib.TrcUtil;
@@ -103,6 +105,28 @@ public class FtcAnalogGyro extends TrcGyro
         calibrate(DataType.ROTATION_RATE);
     }   //calibrate
 
+    /**
+     * This method starts calibrating the sensor in the background and returns immediately.
+     *
+     * @param event specifies the event to signal when the calibration is done, can be null.
+     */
+    public void startCalibration(TrcEvent event)
+    {
+        startCalibration(DataType.ROTATION_RATE, event);
+    }   //startCalibration
+
+    /**
+     * This method restores the calibration from the cache if present, then re-validates it in the background.
+     *
+     * @param cache specifies the calibration cache.
+     * @param event specifies the event to signal when the background calibration is done, can be null.
+     * @return true if the calibration is restored from the cache, false otherwise.
+     */
+    public boolean startCalibration(TrcCalibrationCache cache, TrcEvent event)
+    {
+        return startCalibration(DataType.ROTATION_RATE, cache, event);
+    }   //startCalibration
+
     //
     // Implements TrcGyro abstract methods.
     //
@@ -26,7 +26,9 @@ import com.qualcomm.robotcore.hardware.AnalogInput;
 import com.qualcomm.robotcore.hardware.HardwareMap;
 
 import trclib.TrcAnalogInput;
+import trclib.TrcCalibrationCache;
 import trclib.TrcDbgTrace;
+import trclib.TrcEvent;
 import trclib.TrcFilter;
 import trclib.TrcUtil;
 
@@ -99,6 +101,28 @@ public class FtcAnalogInput extends TrcAnalogInput
         calibrate(DataType.INPUT_DATA);
     }   //calibrate
 
+    /**
+     * This method starts calibrating the sensor in the background and returns immediately.
+     *
+     * @param event specifies the event to signal when the calibration is done, can be null.
+     */
+    public void startCalibration(TrcEvent event)
+    {
+        startCalibration(DataType.INPUT_DATA, event);
+    }   //startCalibration
+
+    /**
+     * This method restores the calibration from the cache if present, then re-validates it in the background.
+     *
+     * @param cache specifies the calibration cache.
+     * @param event specifies the event to signal when the background calibration is done, can be null.
+     * @return true if the calibration is restored from the cache, false otherwise.
+     */
+    public boolean startCalibration(TrcCalibrationCache cache, TrcEvent event)
+    {
+        return startCalibration(DataType.INPUT_DATA, cache, event);
+    }   //startCalibration
+
     //
     // Implements TrcAnalogInput abstract methods.
     //
@@ -50,6 +50,8 @@ public class FtcI2cDevice
     private I2cDeviceSynchImpl syncDevice;
     private ArrayList<FtcI2cDeviceReader> readers = new ArrayList<>();
     private FtcI2cDeviceState deviceState;
+    private final byte[] byteCommand = new byte[1];
+    private final byte[] wordCommand = new byte[2];
 
     /**
      * Constructor: Creates an instance of the object.
@@ -256,20 +258,20 @@ public class FtcI2cDevice
     }   //asyncWrite
 
     /**
-     * This method sends a byte command to the device.
+     * This method sends a byte command to the device. The write copies the data into the device write cache, so a
+     * command buffer is reused instead of allocating one per command.
      *
      * @param regAddress specifies the register address to write to.
      * @param command specifies the command byte.
      * @param waitForCompletion specifies true to wait for write completion.
      */
-    public void sendByteCommand(int regAddress, byte command, boolean waitForCompletion)
+    public synchronized void sendByteCommand(int regAddress, byte command, boolean waitForCompletion)
     {
         final String funcName = "sendByteCommand";
-        byte[] data = new byte[1];
 
-        data[0] = command;
+        byteCommand[0] = command;
         syncDevice.write(
-                regAddress, data, waitForCompletion? I2cWaitControl.WRITTEN: I2cWaitControl.ATOMIC);
+                regAddress, byteCommand, waitForCompletion? I2cWaitControl.WRITTEN: I2cWaitControl.ATOMIC);
 
         if (debugEnabled)
         {
@@ -279,21 +281,21 @@ public class FtcI2cDevice
     }   //sendByteCommand
 
     /**
-     * This method sends a 16-bit command to the device.
+     * This method sends a 16-bit command to the device. The write copies the data into the device write cache, so
+     * a command buffer is reused instead of allocating one per command.
      *
      * @param regAddress specifies the register address to write to.
      * @param command specifies the 16-bit command.
      * @param waitForCompletion specifies true to wait for write completion.
      */
-    public void sendWordCommand(int regAddress, short command, boolean waitForCompletion)
+    public synchronized void sendWordCommand(int regAddress, short command, boolean waitForCompletion)
     {
         final String funcName = "sendWordCommand";
-        byte[] data = new byte[2];
 
-        data[0] = (byte)(command & 0xff);
-        data[1] = (byte)(command >> 8);
+        wordCommand[0] = (byte)(command & 0xff);
+        wordCommand[1] = (byte)(command >> 8);
         syncDevice.write(
-                regAddress, data, waitForCompletion? I2cWaitControl.WRITTEN: I2cWaitControl.ATOMIC);
+                regAddress, wordCommand, waitForCompletion? I2cWaitControl.WRITTEN: I2cWaitControl.ATOMIC);
 
         if (debugEnabled)
         {
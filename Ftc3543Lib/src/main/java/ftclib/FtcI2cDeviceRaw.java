@@ -24,9 +24,11 @@ package ftclib;
 
 import com.qualcomm.robotcore.hardware.HardwareMap;
 import com.qualcomm.robotcore.hardware.I2cAddr;
+import com.qualcomm.robotcore.hardware.I2cController;
 import com.qualcomm.robotcore.hardware.I2cDevice;
 
 import java.util.Arrays;
+import java.util.concurrent.locks.Lock;
 
 import trclib.TrcDbgTrace;
 import trclib.TrcI2cDevice;
@@ -45,8 +47,17 @@ public class FtcI2cDeviceRaw extends TrcI2cDevice
     private static final TrcDbgTrace.MsgLevel msgLevel = TrcDbgTrace.MsgLevel.INFO;
     private TrcDbgTrace dbgTrace = null;
 
+    //
+    // The read cache starts with a four byte header, the last header byte holds the length of the payload.
+    //
+    private static final int CACHE_LENGTH_OFFSET = I2cController.I2C_BUFFER_START_ADDRESS - 1;
+
     private I2cAddr i2cAddr;
     private I2cDevice device;
+    private byte[] readCache;
+    private Lock readCacheLock;
+    private byte[] writeCache;
+    private Lock writeCacheLock;
 
     /**
      * Constructor: Creates an instance of the object.
@@ -67,6 +78,10 @@ public class FtcI2cDeviceRaw extends TrcI2cDevice
 
         updateI2cAddress(i2cAddress, addressIs7Bit);
         device = hardwareMap.i2cDevice.get(instanceName);
+        readCache = device.getI2cReadCache();
+        readCacheLock = device.getI2cReadCacheLock();
+        writeCache = device.getI2cWriteCache();
+        writeCacheLock = device.getI2cWriteCacheLock();
     }   //FtcI2cDeviceRaw
 
     /**
@@ -190,7 +205,8 @@ public class FtcI2cDeviceRaw extends TrcI2cDevice
      *
      * @param regAddress specifies the register address.
      * @param length specifies the number of bytes to write.
-     * @param data specifies the data buffer containing the data to write to the device.
+     * @param data specifies the data buffer containing the data to write to the device. Only the first length bytes
+     *             are written.
      */
     @Override
     public void sendWriteCommand(int regAddress, int length, byte[] data)
@@ -204,7 +220,19 @@ public class FtcI2cDeviceRaw extends TrcI2cDevice
         }
 
         device.enableI2cWriteMode(i2cAddr, regAddress, length);
-        device.copyBufferIntoWriteBuffer(data);
+        //
+        // Copy straight into the write cache instead of copyBufferIntoWriteBuffer so that a pooled buffer longer
+        // than length can be used.
+        //
+        writeCacheLock.lock();
+        try
+        {
+            System.arraycopy(data, 0, writeCache, I2cController.I2C_BUFFER_START_ADDRESS, length);
+        }
+        finally
+        {
+            writeCacheLock.unlock();
+        }
         device.setI2cPortActionFlag();
         device.writeI2cCacheToController();
     }   //sendWriteCommand
@@ -231,4 +259,39 @@ public class FtcI2cDeviceRaw extends TrcI2cDevice
         return data;
     }   //getData
 
+    /**
+     * This method retrieves the data read from the device straight from the read cache into the given buffer
+     * without allocating a new array.
+     *
+     * @param buffer specifies the buffer to receive the data.
+     * @return number of bytes of data available, which may be more than what fits in the buffer.
+     */
+    @Override
+    public int getData(byte[] buffer)
+    {
+        final String funcName = "getData";
+        int length;
+
+        device.readI2cCacheFromController();
+        readCacheLock.lock();
+        try
+        {
+            length = readCache[CACHE_LENGTH_OFFSET] & 0xff;
+            System.arraycopy(readCache, I2cController.I2C_BUFFER_START_ADDRESS, buffer, 0,
+                             Math.min(length, buffer.length));
+        }
+        finally
+        {
+            readCacheLock.unlock();
+        }
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API, "=%d", length);
+        }
+
+        return length;
+    }   //getData
+
 }   //class FtcI2cDeviceRaw
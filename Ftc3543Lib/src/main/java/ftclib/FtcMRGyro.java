@@ -210,21 +210,15 @@ public class FtcMRGyro extends TrcGyro
         }
     }   //resetZIntegrator
 
-    //
-    // Implements TrcGyro abstract methods.
-    //
-
     /**
-     * This method returns the raw data of the specified type for the x-axis.
+     * This method returns the raw value of the specified type for the x-axis. The value is read from the gyro at
+     * most once per loop.
      *
      * @param dataType specifies the data type.
-     * @return raw data of the specified type for the x-axis.
+     * @return raw value of the specified type for the x-axis.
      */
-    @Override
-    public SensorData<Double> getRawXData(DataType dataType)
+    private double getRawXValue(DataType dataType)
     {
-        final String funcName = "getRawXData";
-
         //
         // MR gyro supports only rotation rate for the x-axis.
         //
@@ -237,31 +231,21 @@ public class FtcMRGyro extends TrcGyro
                 xRateTagId = currTagId;
             }
         }
-        SensorData<Double> data = new SensorData<>(TrcUtil.getCurrentTime(), xRateData);
-
-        if (debugEnabled)
-        {
-            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API);
-            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API,
-                               "=(timestamp:%.3f,value:%f", data.timestamp, data.value);
-        }
 
-        return data;
-    }   //getRawXData
+        return xRateData;
+    }   //getRawXValue
 
     /**
-     * This method returns the raw data of the specified type for the y-axis.
+     * This method returns the raw value of the specified type for the y-axis. The value is read from the gyro at
+     * most once per loop.
      *
      * @param dataType specifies the data type.
-     * @return raw data of the specified type for the y-axis.
+     * @return raw value of the specified type for the y-axis.
      */
-    @Override
-    public SensorData<Double> getRawYData(DataType dataType)
+    private double getRawYValue(DataType dataType)
     {
-        final String funcName = "getRawYData";
-
         //
-        // MR gyro supports only rotation rate for the x-axis.
+        // MR gyro supports only rotation rate for the y-axis.
         //
         if (dataType == DataType.ROTATION_RATE)
         {
@@ -272,28 +256,19 @@ public class FtcMRGyro extends TrcGyro
                 yRateTagId = currTagId;
             }
         }
-        SensorData<Double> data = new SensorData<>(TrcUtil.getCurrentTime(), yRateData);
 
-        if (debugEnabled)
-        {
-            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API);
-            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API,
-                               "=(timestamp:%.3f,value:%f", data.timestamp, data.value);
-        }
-
-        return data;
-    }   //getRawYData
+        return yRateData;
+    }   //getRawYValue
 
     /**
-     * This method returns the raw data of the specified type for the z-axis.
+     * This method returns the raw value of the specified type for the z-axis. The value is read from the gyro at
+     * most once per loop.
      *
      * @param dataType specifies the data type.
-     * @return raw data of the specified type for the z-axis.
+     * @return raw value of the specified type for the z-axis.
      */
-    @Override
-    public SensorData<Double> getRawZData(DataType dataType)
+    private double getRawZValue(DataType dataType)
     {
-        final String funcName = "getRawZData";
         double value = 0.0;
         long currTagId = FtcOpMode.getLoopCounter();
 
@@ -315,7 +290,89 @@ public class FtcMRGyro extends TrcGyro
             }
             value = zHeadingData;
         }
-        SensorData<Double> data = new SensorData<>(TrcUtil.getCurrentTime(), value);
+
+        return value;
+    }   //getRawZValue
+
+    //
+    // Overrides TrcSensor methods.
+    //
+
+    /**
+     * This method reads the raw data of the specified axis and type into the given sample without allocating any
+     * object.
+     *
+     * @param index specifies the axis index.
+     * @param dataType specifies the data type.
+     * @param sample specifies the sample to receive the raw data.
+     */
+    @Override
+    public void getRawSample(int index, DataType dataType, SensorSample sample)
+    {
+        double value = index == 0? getRawXValue(dataType): index == 1? getRawYValue(dataType): getRawZValue(dataType);
+
+        sample.set(TrcUtil.getCurrentTime(), value);
+    }   //getRawSample
+
+    //
+    // Implements TrcGyro abstract methods.
+    //
+
+    /**
+     * This method returns the raw data of the specified type for the x-axis.
+     *
+     * @param dataType specifies the data type.
+     * @return raw data of the specified type for the x-axis.
+     */
+    @Override
+    public SensorData<Double> getRawXData(DataType dataType)
+    {
+        final String funcName = "getRawXData";
+        SensorData<Double> data = new SensorData<>(TrcUtil.getCurrentTime(), getRawXValue(dataType));
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API,
+                               "=(timestamp:%.3f,value:%f", data.timestamp, data.value);
+        }
+
+        return data;
+    }   //getRawXData
+
+    /**
+     * This method returns the raw data of the specified type for the y-axis.
+     *
+     * @param dataType specifies the data type.
+     * @return raw data of the specified type for the y-axis.
+     */
+    @Override
+    public SensorData<Double> getRawYData(DataType dataType)
+    {
+        final String funcName = "getRawYData";
+        SensorData<Double> data = new SensorData<>(TrcUtil.getCurrentTime(), getRawYValue(dataType));
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API,
+                               "=(timestamp:%.3f,value:%f", data.timestamp, data.value);
+        }
+
+        return data;
+    }   //getRawYData
+
+    /**
+     * This method returns the raw data of the specified type for the z-axis.
+     *
+     * @param dataType specifies the data type.
+     * @return raw data of the specified type for the z-axis.
+     */
+    @Override
+    public SensorData<Double> getRawZData(DataType dataType)
+    {
+        final String funcName = "getRawZData";
+        SensorData<Double> data = new SensorData<>(TrcUtil.getCurrentTime(), getRawZValue(dataType));
 
         if (debugEnabled)
         {
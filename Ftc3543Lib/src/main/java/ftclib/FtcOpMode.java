@@ -29,10 +29,14 @@ import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
 import java.util.Locale;
 
 import hallib.HalDashboard;
+import hallib.HalDbgLog;
 import trclib.TrcDbgTrace;
+import trclib.TrcLoopScheduler;
+import trclib.TrcPlatform;
 import trclib.TrcRobot;
 import trclib.TrcTaskMgr;
 import trclib.TrcUtil;
+import trclib.TrcWatchdog;
 
 /**
  * This class implements a cooperative multi-tasking scheduler extending LinearOpMode.
@@ -60,7 +64,8 @@ public abstract class FtcOpMode extends LinearOpMode implements TrcRobot.RobotMo
     private final static String OPMODE_TELEOP   = "FtcTeleOp";
     private final static String OPMODE_TEST     = "FtcTest";
 
-    private final static long LOOP_PERIOD = 20;
+    private final static long LOOP_PERIOD = 20000000;   // in nanoseconds
+    private final static long WATCHDOG_DEADLINE = 100000000;    // in nanoseconds
     private static FtcOpMode instance = null;
     private static double opModeStartTime = 0.0;
     private static double opModeElapsedTime = 0.0;
@@ -68,6 +73,8 @@ public abstract class FtcOpMode extends LinearOpMode implements TrcRobot.RobotMo
     private static long loopCounter = 0;
 
     private TrcTaskMgr taskMgr;
+    private TrcLoopScheduler loopScheduler;
+    private TrcWatchdog watchdog;
 
     /**
      * Constructor: Creates an instance of the object. It calls the constructor of the LinearOpMode class and saves
@@ -76,6 +83,10 @@ public abstract class FtcOpMode extends LinearOpMode implements TrcRobot.RobotMo
     public FtcOpMode()
     {
         super();
+        //
+        // Install the Android implementations of the platform services used by the library.
+        //
+        TrcPlatform.setDbgLog(new HalDbgLog());
 
         if (debugEnabled)
         {
@@ -87,6 +98,19 @@ public abstract class FtcOpMode extends LinearOpMode implements TrcRobot.RobotMo
         // Create task manager. There is only one global instance of task manager.
         //
         taskMgr = new TrcTaskMgr();
+        //
+        // Create the default loop scheduler. The periodic phase runs on a fixed 20 msec grid and after a stall,
+        // the missed periods are coalesced into one instead of being run back-to-back. The continuous phase runs
+        // as fast as possible.
+        //
+        loopScheduler = new TrcLoopScheduler(
+                moduleName, LOOP_PERIOD, TrcLoopScheduler.PeriodPolicy.FIXED_RATE,
+                TrcLoopScheduler.OverrunPolicy.COALESCE);
+        //
+        // Create the loop watchdog. It logs any loop that stalls for more than 100 msec along with the task that
+        // stalls it. Motors are only stopped if the robot code registers them and enables it.
+        //
+        watchdog = new TrcWatchdog(moduleName, WATCHDOG_DEADLINE, taskMgr, getGlobalTracer());
     }   //FtcOpMode
 
     /**
@@ -180,6 +204,39 @@ public abstract class FtcOpMode extends LinearOpMode implements TrcRobot.RobotMo
         return loopCounter;
     }   //getLoopCounter
 
+    /**
+     * This method returns the loop scheduler so that the caller can change its policies or retrieve its loop timing
+     * statistics.
+     *
+     * @return loop scheduler.
+     */
+    public TrcLoopScheduler getLoopScheduler()
+    {
+        return loopScheduler;
+    }   //getLoopScheduler
+
+    /**
+     * This method replaces the loop scheduler. It must be called before the competition mode starts (e.g. in
+     * initRobot).
+     *
+     * @param loopScheduler specifies the new loop scheduler.
+     */
+    public void setLoopScheduler(TrcLoopScheduler loopScheduler)
+    {
+        this.loopScheduler = loopScheduler;
+    }   //setLoopScheduler
+
+    /**
+     * This method returns the loop watchdog so that the caller can change its deadline, register the motors to be
+     * stopped on a stall or retrieve its loop latency statistics.
+     *
+     * @return loop watchdog.
+     */
+    public TrcWatchdog getWatchdog()
+    {
+        return watchdog;
+    }   //getWatchdog
+
     /**
      * This method returns a TextToSpeech object. If it doesn't exist yet, one is created.
      *
@@ -276,107 +333,137 @@ public abstract class FtcOpMode extends LinearOpMode implements TrcRobot.RobotMo
         }
 
         //
-        // robotInit contains code to initialize the robot.
-        //
-        if (debugEnabled)
-        {
-            dbgTrace.traceInfo(funcName, "Running robotInit ...");
-        }
-        dashboard.displayPrintf(0, "initRobot starting...");
-        initRobot();
-        dashboard.displayPrintf(0, "initRobot completed!");
-
-        //
-        // Run initPeriodic while waiting for competition to start.
-        //
-        if (debugEnabled)
-        {
-            dbgTrace.traceInfo(funcName, "Running initPeriodic ...");
-        }
-        dashboard.displayPrintf(0, "initPeriodic starting...");
-        while (!opModeIsActive())
-        {
-            initPeriodic();
-        }
-        dashboard.displayPrintf(0, "initPeriodic completed!");
-        opModeStartTime = TrcUtil.getCurrentTime();
-
-        //
-        // Prepare for starting the run mode.
+        // The task manager may have created worker threads (e.g. in initRobot), always release them so they don't
+        // outlive the OpMode.
         //
-        if (debugEnabled)
-        {
-            dbgTrace.traceInfo(funcName, "Running Start Mode Tasks ...");
-        }
-        taskMgr.executeTaskType(TrcTaskMgr.TaskType.START_TASK, runMode);
-
-        if (debugEnabled)
-        {
-            dbgTrace.traceInfo(funcName, "Running startMode ...");
-        }
-        startMode();
-
-        long nextPeriodTime = TrcUtil.getCurrentTimeMillis();
-        while (opModeIsActive())
+        try
         {
-            loopStartTime = TrcUtil.getCurrentTime();
-            opModeElapsedTime = loopStartTime - opModeStartTime;
-
+            //
+            // robotInit contains code to initialize the robot.
+            //
             if (debugEnabled)
             {
-                dbgTrace.traceInfo(funcName, "Running PreContinuous Tasks ...");
+                dbgTrace.traceInfo(funcName, "Running robotInit ...");
             }
-            taskMgr.executeTaskType(TrcTaskMgr.TaskType.PRECONTINUOUS_TASK, runMode);
+            dashboard.displayPrintf(0, "initRobot starting...");
+            initRobot();
+            dashboard.displayPrintf(0, "initRobot completed!");
 
+            //
+            // Run initPeriodic while waiting for competition to start.
+            //
             if (debugEnabled)
             {
-                dbgTrace.traceInfo(funcName, "Running runContinuous ...");
+                dbgTrace.traceInfo(funcName, "Running initPeriodic ...");
+            }
+            dashboard.displayPrintf(0, "initPeriodic starting...");
+            while (!opModeIsActive())
+            {
+                initPeriodic();
             }
-            runContinuous(opModeElapsedTime);
+            dashboard.displayPrintf(0, "initPeriodic completed!");
+            opModeStartTime = TrcUtil.getCurrentTime();
 
+            //
+            // Prepare for starting the run mode.
+            //
             if (debugEnabled)
             {
-                dbgTrace.traceInfo(funcName, "Running PostContinuous Tasks ...");
+                dbgTrace.traceInfo(funcName, "Running Start Mode Tasks ...");
             }
-            taskMgr.executeTaskType(TrcTaskMgr.TaskType.POSTCONTINUOUS_TASK, runMode);
+            taskMgr.executeTaskType(TrcTaskMgr.TaskType.START_TASK, runMode);
 
-            if (TrcUtil.getCurrentTimeMillis() >= nextPeriodTime)
+            if (debugEnabled)
             {
-                dashboard.displayPrintf(0, "%s: %.3f", opModeName, opModeElapsedTime);
-                nextPeriodTime += LOOP_PERIOD;
-
-                if (debugEnabled)
-                {
-                    dbgTrace.traceInfo(funcName, "Running PrePeriodic Tasks ...");
-                }
-                taskMgr.executeTaskType(TrcTaskMgr.TaskType.PREPERIODIC_TASK, runMode);
-
-                if (debugEnabled)
-                {
-                    dbgTrace.traceInfo(funcName, "Running runPeriodic ...");
-                }
-                runPeriodic(opModeElapsedTime);
-
-                if (debugEnabled)
+                dbgTrace.traceInfo(funcName, "Running startMode ...");
+            }
+            startMode();
+
+            loopScheduler.start();
+            watchdog.start();
+            //
+            // Make sure the watchdog stops reporting and the loop sequence is cleared even if a task or runContinuous
+            // throws or the OpMode is interrupted.
+            //
+            try
+            {
+                while (opModeIsActive())
                 {
-                    dbgTrace.traceInfo(funcName, "Running PostPeriodic Tasks ...");
+                    loopScheduler.loopStarted();
+                    watchdog.loopStarted();
+                    taskMgr.startLoop();
+                    loopStartTime = TrcUtil.getCurrentTime();
+                    opModeElapsedTime = loopStartTime - opModeStartTime;
+
+                    if (debugEnabled)
+                    {
+                        dbgTrace.traceInfo(funcName, "Running PreContinuous Tasks ...");
+                    }
+                    taskMgr.executeTaskType(TrcTaskMgr.TaskType.PRECONTINUOUS_TASK, runMode);
+
+                    if (debugEnabled)
+                    {
+                        dbgTrace.traceInfo(funcName, "Running runContinuous ...");
+                    }
+                    runContinuous(opModeElapsedTime);
+
+                    if (debugEnabled)
+                    {
+                        dbgTrace.traceInfo(funcName, "Running PostContinuous Tasks ...");
+                    }
+                    taskMgr.executeTaskType(TrcTaskMgr.TaskType.POSTCONTINUOUS_TASK, runMode);
+
+                    if (loopScheduler.isPeriodDue())
+                    {
+                        dashboard.displayPrintf(0, "%s: %.3f", opModeName, opModeElapsedTime);
+
+                        if (debugEnabled)
+                        {
+                            dbgTrace.traceInfo(funcName, "Running PrePeriodic Tasks ...");
+                        }
+                        taskMgr.executeTaskType(TrcTaskMgr.TaskType.PREPERIODIC_TASK, runMode);
+
+                        if (debugEnabled)
+                        {
+                            dbgTrace.traceInfo(funcName, "Running runPeriodic ...");
+                        }
+                        runPeriodic(opModeElapsedTime);
+
+                        if (debugEnabled)
+                        {
+                            dbgTrace.traceInfo(funcName, "Running PostPeriodic Tasks ...");
+                        }
+
+                        taskMgr.executeTaskType(TrcTaskMgr.TaskType.POSTPERIODIC_TASK, runMode);
+                        loopScheduler.periodDone();
+                    }
+
+                    watchdog.loopDone();
+                    loopScheduler.waitForNextLoop();
                 }
+            }
+            finally
+            {
+                watchdog.stop();
+                taskMgr.stopLoop();
+            }
 
-                taskMgr.executeTaskType(TrcTaskMgr.TaskType.POSTPERIODIC_TASK, runMode);
+            if (debugEnabled)
+            {
+                dbgTrace.traceInfo(funcName, "Running stopMode ...");
             }
-        }
+            stopMode();
 
-        if (debugEnabled)
-        {
-            dbgTrace.traceInfo(funcName, "Running stopMode ...");
+            if (debugEnabled)
+            {
+                dbgTrace.traceInfo(funcName, "Running Stop Mode Tasks ...");
+            }
+            taskMgr.executeTaskType(TrcTaskMgr.TaskType.STOP_TASK, runMode);
         }
-        stopMode();
-
-        if (debugEnabled)
+        finally
         {
-            dbgTrace.traceInfo(funcName, "Running Stop Mode Tasks ...");
+            taskMgr.shutdown();
         }
-        taskMgr.executeTaskType(TrcTaskMgr.TaskType.STOP_TASK, runMode);
     }   //runOpMode
 
     /**
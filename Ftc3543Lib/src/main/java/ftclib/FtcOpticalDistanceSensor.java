@@ -25,7 +25,9 @@ package ftclib;
 import com.qualcomm.robotcore.hardware.HardwareMap;
 import com.qualcomm.robotcore.hardware.OpticalDistanceSensor;
 
+import trclib.TrcCalibrationCache;
 import trclib.TrcDbgTrace;
+import trclib.TrcEvent;
 import trclib.TrcFilter;
 import trclib.TrcSensor;
 import trclib.TrcUtil;
@@ -105,6 +107,28 @@ public class FtcOpticalDistanceSensor extends TrcSensor<FtcOpticalDistanceSensor
         calibrate(DataType.RAW_LIGHT_DETECTED);
     }   //calibrate
 
+    /**
+     * This method starts calibrating the sensor in the background and returns immediately.
+     *
+     * @param event specifies the event to signal when the calibration is done, can be null.
+     */
+    public void startCalibration(TrcEvent event)
+    {
+        startCalibration(DataType.RAW_LIGHT_DETECTED, event);
+    }   //startCalibration
+
+    /**
+     * This method restores the calibration from the cache if present, then re-validates it in the background.
+     *
+     * @param cache specifies the calibration cache.
+     * @param event specifies the event to signal when the background calibration is done, can be null.
+     * @return true if the calibration is restored from the cache, false otherwise.
+     */
+    public boolean startCalibration(TrcCalibrationCache cache, TrcEvent event)
+    {
+        return startCalibration(DataType.RAW_LIGHT_DETECTED, cache, event);
+    }   //startCalibration
+
     //
     // Implements TrcAnalogInput abstract methods.
     //
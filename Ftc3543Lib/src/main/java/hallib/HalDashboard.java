@@ -30,7 +30,9 @@ import org.firstinspires.ftc.robotcore.external.Telemetry;
 import java.util.Locale;
 import java.util.NoSuchElementException;
 
+import trclib.TrcDashboard;
 import trclib.TrcDbgTrace;
+import trclib.TrcPlatform;
 
 /**
  * This class is a wrapper for the Telemetry class. In addition to providing a way to send named data to the Driver
@@ -40,7 +42,7 @@ import trclib.TrcDbgTrace;
  * is very useful for displaying debug information. In particular, the TrcMenu class uses the dashboard to display a
  * choice menu and interact with the user for choosing autonomous strategies and options.
  */
-public class HalDashboard
+public class HalDashboard implements TrcDashboard
 {
     private static final String moduleName = "HalDashboard";
     private static final boolean debugEnabled = false;
@@ -62,6 +64,7 @@ public class HalDashboard
         if (instance == null)
         {
             instance = new HalDashboard(telemetry);
+            TrcPlatform.setDashboard(instance);
         }
 
         return instance;
@@ -24,12 +24,13 @@ package hallib;
 
 import android.util.Log;
 
+import trclib.TrcDbgLog;
 import trclib.TrcDbgTrace;
 
 /**
  * This class implements the platform dependent debug logging.
  */
-public class HalDbgLog
+public class HalDbgLog implements TrcDbgLog
 {
     private static final String TAG = "TrcDbg";
 
@@ -39,7 +40,8 @@ public class HalDbgLog
      * @param level specifies the message level.
      * @param msg specifies the message.
      */
-    public static void msg(TrcDbgTrace.MsgLevel level, String msg)
+    @Override
+    public void msg(TrcDbgTrace.MsgLevel level, String msg)
     {
         switch (level)
         {
@@ -67,7 +69,8 @@ public class HalDbgLog
      *
      * @param msg specifies the message.
      */
-    public static void traceMsg(String msg)
+    @Override
+    public void traceMsg(String msg)
     {
         Log.d(TAG, msg);
     }   //traceMsg
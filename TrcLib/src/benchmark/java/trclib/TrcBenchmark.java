@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2017 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package trclib;
+
+import java.util.Arrays;
+
+/**
+ * This class implements a minimal microbenchmark harness to measure TrcLib code on a desktop JVM. Each benchmark is
+ * first run for a number of warmup rounds so that the JIT has compiled it, then timed for a number of measurement
+ * rounds. The median and the best time per operation are reported. The median is used for comparisons since it is
+ * the least sensitive to garbage collection and other processes sharing the machine. This class also contains the
+ * entry point running all benchmark suites, which is what the benchmark task of the TrcLib build runs.
+ */
+public class TrcBenchmark
+{
+    private static final int WARMUP_ROUNDS = 10;
+    private static final int MEASURE_ROUNDS = 15;
+    //
+    // The results of the benchmark bodies are accumulated here so the JIT cannot eliminate the measured work.
+    //
+    private static volatile double sink = 0.0;
+
+    /**
+     * This interface is implemented by the code to be measured.
+     */
+    public interface Body
+    {
+        /**
+         * This method runs the code to be measured the given number of times.
+         *
+         * @param numOps specifies the number of operations to run.
+         * @return any value derived from the work done, to keep the JIT from eliminating it.
+         */
+        double run(int numOps);
+
+    }   //interface Body
+
+    /**
+     * This method measures the given benchmark body and prints the time per operation.
+     *
+     * @param name specifies the name of the benchmark.
+     * @param numOps specifies the number of operations per round.
+     * @param body specifies the code to be measured.
+     * @return median time per operation in nanoseconds.
+     */
+    public static double measure(final String name, int numOps, Body body)
+    {
+        double[] times = new double[MEASURE_ROUNDS];
+        double result = 0.0;
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++)
+        {
+            result += body.run(numOps);
+        }
+
+        for (int i = 0; i < MEASURE_ROUNDS; i++)
+        {
+            long startTime = System.nanoTime();
+            result += body.run(numOps);
+            times[i] = (double)(System.nanoTime() - startTime)/numOps;
+        }
+        sink += result;
+
+        Arrays.sort(times);
+        System.out.printf("  %-48s %9.2f ns/op (best %9.2f)\n", name, times[MEASURE_ROUNDS/2], times[0]);
+
+        return times[MEASURE_ROUNDS/2];
+    }   //measure
+
+    /**
+     * This method checks a condition of a correctness check.
+     *
+     * @param condition specifies the condition that must be true.
+     * @param format specifies the format string of the failure message.
+     * @param args specifies the arguments of the failure message.
+     * @throws IllegalStateException if the condition is false.
+     */
+    public static void check(boolean condition, String format, Object... args)
+    {
+        if (!condition)
+        {
+            throw new IllegalStateException("Check failed: " + String.format(format, args));
+        }
+    }   //check
+
+    /**
+     * This method prints the title of a benchmark suite.
+     *
+     * @param title specifies the title.
+     */
+    public static void printTitle(final String title)
+    {
+        System.out.printf("%s (java %s, %s)\n", title, System.getProperty("java.version"),
+                          System.getProperty("java.vm.name"));
+    }   //printTitle
+
+    /**
+     * This method runs all benchmark suites.
+     *
+     * @param args specifies the command line arguments, not used.
+     */
+    public static void main(String[] args)
+    {
+        TrcTaskMgrBenchmark.run();
+        TrcFilterBenchmark.run();
+    }   //main
+
+}   //class TrcBenchmark
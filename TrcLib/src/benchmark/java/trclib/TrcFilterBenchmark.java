@@ -0,0 +1,316 @@
+/*
+ * Copyright (c) 2017 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package trclib;
+
+import java.util.Random;
+
+/**
+ * This class checks the filters for correctness and benchmarks their per-sample cost. Each filter is measured
+ * filtering one sample at a time and, where it has its own batch implementation, filtering an array. The filter
+ * chain is compared against calling the same filters by hand one sample at a time.
+ */
+public class TrcFilterBenchmark
+{
+    private static final int NUM_SAMPLES = 4096;
+    private static final int NUM_PASSES = 50;
+    private static final double SAMPLE_RATE = 100.0;
+    private static final double TOLERANCE = 1e-9;
+
+    /**
+     * This method creates noisy sensor data with occasional spikes.
+     *
+     * @param numSamples specifies the number of samples.
+     * @return sensor data.
+     */
+    private static double[] createData(int numSamples)
+    {
+        Random random = new Random(3543);
+        double[] data = new double[numSamples];
+
+        for (int i = 0; i < numSamples; i++)
+        {
+            data[i] = Math.sin(2.0*Math.PI*i/SAMPLE_RATE) + 0.1*random.nextGaussian();
+            if (random.nextInt(50) == 0)
+            {
+                data[i] += 10.0;
+            }
+        }
+
+        return data;
+    }   //createData
+
+    /**
+     * This method feeds the given values to the filter one at a time.
+     *
+     * @param filter specifies the filter.
+     * @param values specifies the values.
+     * @return filtered value of the last data value.
+     */
+    private static double feed(TrcFilter filter, double... values)
+    {
+        double filteredData = 0.0;
+
+        for (int i = 0; i < values.length; i++)
+        {
+            filteredData = filter.filterData(values[i]);
+        }
+
+        return filteredData;
+    }   //feed
+
+    /**
+     * This method checks that filtering an array gives the same result as filtering one sample at a time.
+     *
+     * @param singleFilter specifies the filter used one sample at a time.
+     * @param batchFilter specifies an identical filter used on the whole array.
+     * @param data specifies the data.
+     */
+    private static void checkBatch(TrcFilter singleFilter, TrcFilter batchFilter, double[] data)
+    {
+        double[] batch = data.clone();
+
+        batchFilter.filterData(batch, 0, batch.length);
+        for (int i = 0; i < data.length; i++)
+        {
+            double expected = singleFilter.filterData(data[i]);
+            TrcBenchmark.check(Math.abs(batch[i] - expected) <= TOLERANCE,
+                               "%s batch[%d]=%f, expected %f", batchFilter, i, batch[i], expected);
+        }
+    }   //checkBatch
+
+    /**
+     * This method checks the filters against known results.
+     */
+    private static void checkFilters()
+    {
+        double[] data = createData(NUM_SAMPLES);
+        //
+        // Median: odd and even windows and spike rejection.
+        //
+        TrcBenchmark.check(feed(new TrcMedianFilter("median", 5), 5.0, 1.0, 4.0, 2.0, 3.0) == 3.0,
+                           "median of 5,1,4,2,3");
+        TrcBenchmark.check(feed(new TrcMedianFilter("median", 5), 1.0, 3.0) == 2.0, "median of 1,3");
+        TrcBenchmark.check(feed(new TrcMedianFilter("median", 3), 9.0, 1.0, 100.0, 1.0, 2.0) == 2.0,
+                           "median of the last 3 of 9,1,100,1,2");
+        TrcBenchmark.check(feed(new TrcMedianFilter("median", 5), 1.0, 1.0, 100.0, 1.0, 1.0) == 1.0,
+                           "median rejects a spike");
+        //
+        // Moving average: partial window, full window and after many wrap-arounds.
+        //
+        TrcBenchmark.check(feed(new TrcMovingAverageFilter("average", 4), 1.0, 2.0) == 1.5, "average of 1,2");
+        TrcBenchmark.check(feed(new TrcMovingAverageFilter("average", 4), 1, 2, 3, 4, 5, 6, 7, 8) == 6.5,
+                           "average of 5,6,7,8");
+        TrcMovingAverageFilter average = new TrcMovingAverageFilter("average", 8);
+        double expected = 0.0;
+        double filtered = 0.0;
+        for (int i = 0; i < data.length; i++)
+        {
+            filtered = average.filterData(data[i]);
+        }
+        for (int i = data.length - 8; i < data.length; i++)
+        {
+            expected += data[i]/8.0;
+        }
+        TrcBenchmark.check(Math.abs(filtered - expected) <= TOLERANCE, "average=%f, expected %f", filtered, expected);
+        //
+        // Butterworth: the step response of a 2nd order Butterworth low pass filter settles at 1.0 with about 4.3%
+        // overshoot, and a constant input must not produce a startup transient.
+        //
+        TrcButterworthFilter butterworth = new TrcButterworthFilter("butterworth", 5.0, SAMPLE_RATE);
+        TrcBenchmark.check(Math.abs(feed(butterworth, 2.0, 2.0, 2.0) - 2.0) <= TOLERANCE, "butterworth transient");
+        butterworth = new TrcButterworthFilter("butterworth", 5.0, SAMPLE_RATE);
+        butterworth.filterData(0.0);
+        double peak = 0.0;
+        filtered = 0.0;
+        for (int i = 0; i < 200; i++)
+        {
+            filtered = butterworth.filterData(1.0);
+            peak = Math.max(peak, filtered);
+        }
+        TrcBenchmark.check(Math.abs(filtered - 1.0) <= 1e-6, "butterworth step settles at %f", filtered);
+        TrcBenchmark.check(peak > 1.03 && peak < 1.06, "butterworth step overshoot %f", peak);
+        checkBatch(new TrcButterworthFilter("butterworth", 5.0, SAMPLE_RATE),
+                   new TrcButterworthFilter("butterworth", 5.0, SAMPLE_RATE), data);
+        //
+        // Complementary: follows the change of the fast signal and is pulled towards the reference.
+        //
+        TrcComplementaryFilter complementary = new TrcComplementaryFilter("complementary", 0.98, null);
+        complementary.filterData(0.0, 10.0);
+        TrcBenchmark.check(Math.abs(complementary.filterData(1.0, 10.0) - 10.98) <= TOLERANCE,
+                           "complementary follows the fast signal");
+        for (int i = 0; i < 1000; i++)
+        {
+            filtered = complementary.filterData(1.0, 10.0);
+        }
+        TrcBenchmark.check(Math.abs(filtered - 10.0) <= 1e-6, "complementary converges to %f", filtered);
+        //
+        // Rate limiter: 10 units/sec at 10 Hz steps at most 1 unit per sample.
+        //
+        TrcRateLimiter rateLimiter = new TrcRateLimiter("rateLimiter", 10.0, 0.1);
+        rateLimiter.filterData(0.0);
+        for (int i = 1; i <= 7; i++)
+        {
+            filtered = rateLimiter.filterData(5.0);
+            TrcBenchmark.check(Math.abs(filtered - Math.min(i, 5.0)) <= TOLERANCE, "rate limited step %f", filtered);
+        }
+        //
+        // Chain: same result as the filters applied by hand, one sample at a time and on an array.
+        //
+        TrcFilter median = new TrcMedianFilter("median", 5);
+        TrcFilter butterworth2 = new TrcButterworthFilter("butterworth", 5.0, SAMPLE_RATE);
+        TrcFilterChain chain = new TrcFilterChain(
+            "chain", new TrcMedianFilter("median", 5), new TrcButterworthFilter("butterworth", 5.0, SAMPLE_RATE));
+        for (int i = 0; i < data.length; i++)
+        {
+            expected = butterworth2.filterData(median.filterData(data[i]));
+            filtered = chain.filterData(data[i]);
+            TrcBenchmark.check(Math.abs(filtered - expected) <= TOLERANCE, "chain[%d]=%f, expected %f",
+                               i, filtered, expected);
+        }
+        checkBatch(new TrcFilterChain("chain", new TrcMedianFilter("median", 5),
+                                      new TrcButterworthFilter("butterworth", 5.0, SAMPLE_RATE)),
+                   new TrcFilterChain("chain", new TrcMedianFilter("median", 5),
+                                      new TrcButterworthFilter("butterworth", 5.0, SAMPLE_RATE)), data);
+
+        System.out.println("  correctness checks passed");
+    }   //checkFilters
+
+    /**
+     * This method measures a filter filtering one sample at a time.
+     *
+     * @param name specifies the name of the benchmark.
+     * @param filter specifies the filter.
+     * @param data specifies the data.
+     */
+    private static void measureSingle(final String name, final TrcFilter filter, final double[] data)
+    {
+        TrcBenchmark.measure(name, NUM_PASSES*data.length, new TrcBenchmark.Body()
+        {
+            @Override
+            public double run(int numOps)
+            {
+                double sum = 0.0;
+
+                for (int n = 0; n < NUM_PASSES; n++)
+                {
+                    for (int i = 0; i < data.length; i++)
+                    {
+                        sum += filter.filterData(data[i]);
+                    }
+                }
+
+                return sum;
+            }
+        });
+    }   //measureSingle
+
+    /**
+     * This method measures a filter filtering the data as an array.
+     *
+     * @param name specifies the name of the benchmark.
+     * @param filter specifies the filter.
+     * @param data specifies the data.
+     */
+    private static void measureBatch(final String name, final TrcFilter filter, final double[] data)
+    {
+        final double[] buffer = new double[data.length];
+
+        TrcBenchmark.measure(name, NUM_PASSES*data.length, new TrcBenchmark.Body()
+        {
+            @Override
+            public double run(int numOps)
+            {
+                double sum = 0.0;
+
+                for (int n = 0; n < NUM_PASSES; n++)
+                {
+                    System.arraycopy(data, 0, buffer, 0, data.length);
+                    filter.filterData(buffer, 0, buffer.length);
+                    sum += buffer[buffer.length - 1];
+                }
+
+                return sum;
+            }
+        });
+    }   //measureBatch
+
+    /**
+     * This method runs the filter correctness checks and benchmarks. The time per operation is the time to filter
+     * one sample.
+     */
+    public static void run()
+    {
+        final double[] data = createData(NUM_SAMPLES);
+
+        TrcBenchmark.printTitle("TrcFilter per-sample cost, " + NUM_SAMPLES + " samples");
+        checkFilters();
+
+        measureSingle("TrcMedianFilter(5)", new TrcMedianFilter("median", 5), data);
+        measureSingle("TrcMedianFilter(15)", new TrcMedianFilter("median", 15), data);
+        measureSingle("TrcMovingAverageFilter(8)", new TrcMovingAverageFilter("average", 8), data);
+        measureSingle("TrcMovingAverageFilter(64)", new TrcMovingAverageFilter("average", 64), data);
+        measureSingle("TrcButterworthFilter", new TrcButterworthFilter("butterworth", 5.0, SAMPLE_RATE), data);
+        measureBatch("TrcButterworthFilter (array)",
+                     new TrcButterworthFilter("butterworth", 5.0, SAMPLE_RATE), data);
+        measureSingle("TrcComplementaryFilter", new TrcComplementaryFilter(
+            "complementary", 0.98, new TrcComplementaryFilter.ReferenceSource()
+            {
+                @Override
+                public double getReferenceValue()
+                {
+                    return 0.0;
+                }
+            }), data);
+        measureSingle("TrcRateLimiter", new TrcRateLimiter("rateLimiter", 10.0, 1.0/SAMPLE_RATE), data);
+        //
+        // A median filter followed by a Butterworth filter, called by hand and as a chain.
+        //
+        final TrcFilter median = new TrcMedianFilter("median", 5);
+        final TrcFilter butterworth = new TrcButterworthFilter("butterworth", 5.0, SAMPLE_RATE);
+        TrcBenchmark.measure("median(5) + butterworth by hand", NUM_PASSES*data.length, new TrcBenchmark.Body()
+        {
+            @Override
+            public double run(int numOps)
+            {
+                double sum = 0.0;
+
+                for (int n = 0; n < NUM_PASSES; n++)
+                {
+                    for (int i = 0; i < data.length; i++)
+                    {
+                        sum += butterworth.filterData(median.filterData(data[i]));
+                    }
+                }
+
+                return sum;
+            }
+        });
+        measureSingle("median(5) + butterworth chain", new TrcFilterChain(
+            "chain", new TrcMedianFilter("median", 5), new TrcButterworthFilter("butterworth", 5.0, SAMPLE_RATE)),
+            data);
+        measureBatch("median(5) + butterworth chain (array)", new TrcFilterChain(
+            "chain", new TrcMedianFilter("median", 5), new TrcButterworthFilter("butterworth", 5.0, SAMPLE_RATE)),
+            data);
+    }   //run
+
+}   //class TrcFilterBenchmark
@@ -0,0 +1,385 @@
+/*
+ * Copyright (c) 2017 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package trclib;
+
+/**
+ * This class benchmarks the per-task dispatch overhead of TrcTaskMgr. It compares the single switch dispatch used
+ * before the per-phase loops (a shared executeTask method switching on the task type for every task) with the
+ * per-phase loops of TrcTaskMgr.executeTaskType (one switch per pass, each case looping over the tasks and calling
+ * the phase method directly). Both shapes are reproduced here over the same dispatch table so that only the dispatch
+ * differs, and the real task manager is measured as well. The tasks are of several classes and do almost nothing so
+ * that the dispatch cost dominates.
+ */
+public class TrcTaskMgrBenchmark
+{
+    private static final int NUM_TASKS = 24;
+    private static final int NUM_LOOPS = 20000;
+    private static final TrcTaskMgr.TaskType[] LOOP_PHASES =
+        {
+            TrcTaskMgr.TaskType.PRECONTINUOUS_TASK, TrcTaskMgr.TaskType.POSTCONTINUOUS_TASK,
+            TrcTaskMgr.TaskType.PREPERIODIC_TASK, TrcTaskMgr.TaskType.POSTPERIODIC_TASK
+        };
+
+    /**
+     * This class implements a task doing a trivial amount of work in every phase.
+     */
+    private static class CounterTask implements TrcTaskMgr.Task
+    {
+        long count = 0;
+
+        @Override
+        public void startTask(TrcRobot.RunMode runMode)
+        {
+            count++;
+        }   //startTask
+
+        @Override
+        public void stopTask(TrcRobot.RunMode runMode)
+        {
+            count++;
+        }   //stopTask
+
+        @Override
+        public void prePeriodicTask(TrcRobot.RunMode runMode)
+        {
+            count++;
+        }   //prePeriodicTask
+
+        @Override
+        public void postPeriodicTask(TrcRobot.RunMode runMode)
+        {
+            count += 2;
+        }   //postPeriodicTask
+
+        @Override
+        public void preContinuousTask(TrcRobot.RunMode runMode)
+        {
+            count += 3;
+        }   //preContinuousTask
+
+        @Override
+        public void postContinuousTask(TrcRobot.RunMode runMode)
+        {
+            count += 4;
+        }   //postContinuousTask
+
+    }   //class CounterTask
+
+    //
+    // Distinct task classes so that the call sites see as many receiver types as on a real robot.
+    //
+    private static class MotorTask extends CounterTask
+    {
+        @Override
+        public void preContinuousTask(TrcRobot.RunMode runMode)
+        {
+            count += 5;
+        }   //preContinuousTask
+    }   //class MotorTask
+
+    private static class SensorTask extends CounterTask
+    {
+        @Override
+        public void postContinuousTask(TrcRobot.RunMode runMode)
+        {
+            count += 6;
+        }   //postContinuousTask
+    }   //class SensorTask
+
+    private static class ServoTask extends CounterTask
+    {
+        @Override
+        public void prePeriodicTask(TrcRobot.RunMode runMode)
+        {
+            count += 7;
+        }   //prePeriodicTask
+    }   //class ServoTask
+
+    /**
+     * This class reproduces the entries of the task manager dispatch tables.
+     */
+    private static class Entry
+    {
+        final TrcTaskMgr.Task task;
+
+        Entry(TrcTaskMgr.Task task)
+        {
+            this.task = task;
+        }   //Entry
+    }   //class Entry
+
+    private final CounterTask[] tasks = new CounterTask[NUM_TASKS];
+    private final Entry[] taskTable = new Entry[NUM_TASKS];
+    private volatile Entry currentTask = null;
+    private volatile TrcTaskMgr.TaskType currentTaskType = null;
+
+    /**
+     * Constructor: Creates the tasks.
+     */
+    private TrcTaskMgrBenchmark()
+    {
+        for (int i = 0; i < NUM_TASKS; i++)
+        {
+            switch (i%4)
+            {
+                case 0:
+                    tasks[i] = new MotorTask();
+                    break;
+
+                case 1:
+                    tasks[i] = new SensorTask();
+                    break;
+
+                case 2:
+                    tasks[i] = new ServoTask();
+                    break;
+
+                default:
+                    tasks[i] = new CounterTask();
+                    break;
+            }
+            taskTable[i] = new Entry(tasks[i]);
+        }
+    }   //TrcTaskMgrBenchmark
+
+    /**
+     * This method returns the total work done by the tasks.
+     *
+     * @return sum of the task counters.
+     */
+    private double getTotalCount()
+    {
+        long total = 0;
+
+        for (int i = 0; i < NUM_TASKS; i++)
+        {
+            total += tasks[i].count;
+        }
+
+        return total;
+    }   //getTotalCount
+
+    /**
+     * This method executes a pass the way it was done before the per-phase loops: a single loop over the tasks
+     * calling a shared executeTask method that switches on the task type.
+     *
+     * @param type specifies the task type.
+     * @param mode specifies the robot run mode.
+     */
+    private void executeSingleSwitchPass(TrcTaskMgr.TaskType type, TrcRobot.RunMode mode)
+    {
+        for (int i = 0; i < NUM_TASKS; i++)
+        {
+            executeTask(taskTable[i], type, mode);
+        }
+        currentTask = null;
+    }   //executeSingleSwitchPass
+
+    /**
+     * This method executes a task the way the single switch dispatch did.
+     *
+     * @param entry specifies the task entry.
+     * @param type specifies the task type.
+     * @param mode specifies the robot run mode.
+     */
+    private void executeTask(Entry entry, TrcTaskMgr.TaskType type, TrcRobot.RunMode mode)
+    {
+        currentTaskType = type;
+        currentTask = entry;
+        switch (type)
+        {
+            case START_TASK:
+                entry.task.startTask(mode);
+                break;
+
+            case STOP_TASK:
+                entry.task.stopTask(mode);
+                break;
+
+            case PREPERIODIC_TASK:
+                entry.task.prePeriodicTask(mode);
+                break;
+
+            case POSTPERIODIC_TASK:
+                entry.task.postPeriodicTask(mode);
+                break;
+
+            case PRECONTINUOUS_TASK:
+                entry.task.preContinuousTask(mode);
+                break;
+
+            case POSTCONTINUOUS_TASK:
+                entry.task.postContinuousTask(mode);
+                break;
+        }
+    }   //executeTask
+
+    /**
+     * This method executes a pass the way TrcTaskMgr.executeTaskType does now: the switch is outside the task loop
+     * and each case has its own loop calling the phase method directly.
+     *
+     * @param type specifies the task type.
+     * @param mode specifies the robot run mode.
+     */
+    private void executePerPhasePass(TrcTaskMgr.TaskType type, TrcRobot.RunMode mode)
+    {
+        currentTaskType = type;
+        switch (type)
+        {
+            case START_TASK:
+                for (int i = 0; i < NUM_TASKS; i++)
+                {
+                    Entry entry = taskTable[i];
+                    currentTask = entry;
+                    entry.task.startTask(mode);
+                }
+                break;
+
+            case STOP_TASK:
+                for (int i = 0; i < NUM_TASKS; i++)
+                {
+                    Entry entry = taskTable[i];
+                    currentTask = entry;
+                    entry.task.stopTask(mode);
+                }
+                break;
+
+            case PREPERIODIC_TASK:
+                for (int i = 0; i < NUM_TASKS; i++)
+                {
+                    Entry entry = taskTable[i];
+                    currentTask = entry;
+                    entry.task.prePeriodicTask(mode);
+                }
+                break;
+
+            case POSTPERIODIC_TASK:
+                for (int i = 0; i < NUM_TASKS; i++)
+                {
+                    Entry entry = taskTable[i];
+                    currentTask = entry;
+                    entry.task.postPeriodicTask(mode);
+                }
+                break;
+
+            case PRECONTINUOUS_TASK:
+                for (int i = 0; i < NUM_TASKS; i++)
+                {
+                    Entry entry = taskTable[i];
+                    currentTask = entry;
+                    entry.task.preContinuousTask(mode);
+                }
+                break;
+
+            case POSTCONTINUOUS_TASK:
+                for (int i = 0; i < NUM_TASKS; i++)
+                {
+                    Entry entry = taskTable[i];
+                    currentTask = entry;
+                    entry.task.postContinuousTask(mode);
+                }
+                break;
+        }
+        currentTask = null;
+    }   //executePerPhasePass
+
+    /**
+     * This method runs the task manager benchmarks. The time per operation is the time to dispatch one task in one
+     * phase.
+     */
+    public static void run()
+    {
+        final TrcTaskMgrBenchmark bench = new TrcTaskMgrBenchmark();
+        final TrcRobot.RunMode mode = TrcRobot.RunMode.TELEOP_MODE;
+        final int numOps = NUM_LOOPS*LOOP_PHASES.length*NUM_TASKS;
+
+        TrcBenchmark.printTitle("TrcTaskMgr dispatch, " + NUM_TASKS + " tasks of 4 classes");
+        //
+        // Both dispatch shapes must call the same task methods.
+        //
+        bench.executeSingleSwitchPass(TrcTaskMgr.TaskType.PRECONTINUOUS_TASK, mode);
+        double singleSwitchCount = bench.getTotalCount();
+        bench.executePerPhasePass(TrcTaskMgr.TaskType.PRECONTINUOUS_TASK, mode);
+        TrcBenchmark.check(bench.getTotalCount() == 2*singleSwitchCount, "dispatch shapes call different methods");
+
+        double before = TrcBenchmark.measure("single switch dispatch (before)", numOps, new TrcBenchmark.Body()
+        {
+            @Override
+            public double run(int numOps)
+            {
+                for (int n = 0; n < NUM_LOOPS; n++)
+                {
+                    for (int i = 0; i < LOOP_PHASES.length; i++)
+                    {
+                        bench.executeSingleSwitchPass(LOOP_PHASES[i], mode);
+                    }
+                }
+                return bench.getTotalCount();
+            }
+        });
+
+        double after = TrcBenchmark.measure("per-phase loops (after)", numOps, new TrcBenchmark.Body()
+        {
+            @Override
+            public double run(int numOps)
+            {
+                for (int n = 0; n < NUM_LOOPS; n++)
+                {
+                    for (int i = 0; i < LOOP_PHASES.length; i++)
+                    {
+                        bench.executePerPhasePass(LOOP_PHASES[i], mode);
+                    }
+                }
+                return bench.getTotalCount();
+            }
+        });
+
+        final TrcTaskMgr taskMgr = new TrcTaskMgr();
+        for (int i = 0; i < NUM_TASKS; i++)
+        {
+            for (int j = 0; j < LOOP_PHASES.length; j++)
+            {
+                taskMgr.registerTask("task" + i, bench.tasks[i], LOOP_PHASES[j]);
+            }
+        }
+
+        TrcBenchmark.measure("TrcTaskMgr.executeTaskType", numOps, new TrcBenchmark.Body()
+        {
+            @Override
+            public double run(int numOps)
+            {
+                for (int n = 0; n < NUM_LOOPS; n++)
+                {
+                    for (int i = 0; i < LOOP_PHASES.length; i++)
+                    {
+                        taskMgr.executeTaskType(LOOP_PHASES[i], mode);
+                    }
+                }
+                return bench.getTotalCount();
+            }
+        });
+
+        System.out.printf("  per-phase loops / single switch = %.2f\n", after/before);
+    }   //run
+
+}   //class TrcTaskMgrBenchmark
@@ -234,50 +234,45 @@ public class TrcAnalogTrigger<D> implements TrcTaskMgr.Task
     public void preContinuousTask(TrcRobot.RunMode runMode)
     {
         final String funcName = "preContinuousTask";
-        TrcSensor.SensorData<Double> data = sensor.getProcessedData(index, dataType);
+        double sample = sensor.getProcessedValue(index, dataType);
+        int currZone = -1;
 
-        if (data.value != null)
+        if (sample < thresholds[0])
         {
-            double sample = (double)data.value;
-            int currZone = -1;
-
-            if (sample < thresholds[0])
-            {
-                currZone = 0;
-            }
-            else
+            currZone = 0;
+        }
+        else
+        {
+            for (int i = 0; i < thresholds.length - 1; i++)
             {
-                for (int i = 0; i < thresholds.length - 1; i++)
+                if (sample >= thresholds[i] && sample < thresholds[i + 1])
                 {
-                    if (sample >= thresholds[i] && sample < thresholds[i + 1])
-                    {
-                        currZone = i + 1;
-                        break;
-                    }
+                    currZone = i + 1;
+                    break;
                 }
+            }
 
-                if (currZone == -1)
-                {
-                    currZone = thresholds.length;
-                }
+            if (currZone == -1)
+            {
+                currZone = thresholds.length;
             }
+        }
 
-            if (currZone != zone)
+        if (currZone != zone)
+        {
+            //
+            // We have crossed to another zone, let's notify somebody.
+            //
+            if (triggerHandler != null)
             {
-                //
-                // We have crossed to another zone, let's notify somebody.
-                //
-                if (triggerHandler != null)
-                {
-                    triggerHandler.AnalogTriggerEvent(this, currZone, sample);
-                }
-                zone = currZone;
-                value = sample;
+                triggerHandler.AnalogTriggerEvent(this, currZone, sample);
+            }
+            zone = currZone;
+            value = sample;
 
-                if (debugEnabled)
-                {
-                    dbgTrace.traceInfo(funcName, "%s entering zone %d (value=%f)", instanceName, zone, value);
-                }
+            if (debugEnabled)
+            {
+                dbgTrace.traceInfo(funcName, "%s entering zone %d (value=%f)", instanceName, zone, value);
             }
         }
     }   //preContinuousTask
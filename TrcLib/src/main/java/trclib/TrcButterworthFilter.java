@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2017 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package trclib;
+
+/**
+ * This class implements a second order Butterworth low pass filter as a biquad in transposed direct form II. The
+ * coefficients are computed from the cutoff frequency and the sample rate using the bilinear transform. Compared to
+ * the IIR filter, it rolls off noise above the cutoff frequency much more steeply for the same lag. It assumes the
+ * data is sampled at the given rate, i.e. filterData is called once per sample period.
+ */
+public class TrcButterworthFilter extends TrcFilter
+{
+    private static final String moduleName = "TrcButterworthFilter";
+    private static final boolean debugEnabled = false;
+    private static final boolean tracingEnabled = false;
+    private static final TrcDbgTrace.TraceLevel traceLevel = TrcDbgTrace.TraceLevel.API;
+    private static final TrcDbgTrace.MsgLevel msgLevel = TrcDbgTrace.MsgLevel.INFO;
+    private TrcDbgTrace dbgTrace = null;
+
+    private final String instanceName;
+    private final double b0, b1, b2, a1, a2;
+    private double z1, z2;
+    private boolean initialized;
+
+    /**
+     * Constructor: Create an instance of the object.
+     *
+     * @param instanceName specifies the instance name.
+     * @param cutoffFreq specifies the cutoff frequency in Hz.
+     * @param sampleRate specifies the sample rate in Hz.
+     */
+    public TrcButterworthFilter(final String instanceName, double cutoffFreq, double sampleRate)
+    {
+        super(instanceName);
+
+        if (debugEnabled)
+        {
+            dbgTrace = new TrcDbgTrace(moduleName + "." + instanceName, tracingEnabled, traceLevel, msgLevel);
+        }
+
+        if (cutoffFreq <= 0.0 || cutoffFreq >= sampleRate/2.0)
+        {
+            throw new IllegalArgumentException("Cutoff frequency must be positive and below half the sample rate.");
+        }
+
+        this.instanceName = instanceName;
+        double k = Math.tan(Math.PI*cutoffFreq/sampleRate);
+        double kk = k*k;
+        double norm = 1.0/(1.0 + Math.sqrt(2.0)*k + kk);
+        b0 = kk*norm;
+        b1 = 2.0*b0;
+        b2 = b0;
+        a1 = 2.0*(kk - 1.0)*norm;
+        a2 = (1.0 - Math.sqrt(2.0)*k + kk)*norm;
+        initialized = false;
+    }   //TrcButterworthFilter
+
+    /**
+     * This method returns the instance name.
+     *
+     * @return instance name.
+     */
+    public String toString()
+    {
+        return instanceName;
+    }   //toString
+
+    //
+    // Implements TrcFilter abstract methods.
+    //
+
+    /**
+     * This method returns the filtered data.
+     *
+     * @param data specifies the data value to be filtered.
+     * @return filtered data.
+     */
+    @Override
+    public double filterData(double data)
+    {
+        final String funcName = "filterData";
+
+        if (!initialized)
+        {
+            //
+            // Start from the steady state of the first data point to avoid a startup transient.
+            //
+            z1 = (1.0 - b0)*data;
+            z2 = (b2 - a2)*data;
+            initialized = true;
+        }
+
+        double filteredData = b0*data + z1;
+        z1 = b1*data - a1*filteredData + z2;
+        z2 = b2*data - a2*filteredData;
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "data=%f", data);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API, "=%f", filteredData);
+        }
+
+        return filteredData;
+    }   //filterData
+
+    /**
+     * This method filters an array of data in place with the filter state kept in local variables.
+     *
+     * @param data specifies the array of data values to be filtered, receives the filtered values.
+     * @param offset specifies the index of the first value to filter.
+     * @param length specifies the number of values to filter.
+     */
+    @Override
+    public void filterData(double[] data, int offset, int length)
+    {
+        if (length > 0)
+        {
+            data[offset] = filterData(data[offset]);
+
+            double s1 = z1, s2 = z2;
+            for (int i = offset + 1; i < offset + length; i++)
+            {
+                double x = data[i];
+                double y = b0*x + s1;
+                s1 = b1*x - a1*y + s2;
+                s2 = b2*x - a2*y;
+                data[i] = y;
+            }
+            z1 = s1;
+            z2 = s2;
+        }
+    }   //filterData
+
+}   //class TrcButterworthFilter
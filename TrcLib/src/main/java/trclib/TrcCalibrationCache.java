@@ -0,0 +1,313 @@
+/*
+ * Copyright (c) 2017 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package trclib;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class implements a persistent cache of sensor calibrations. The zero offset, deadband and scale of each axis
+ * are kept per sensor instance name and stored in a compact binary file, so a sensor can restore its calibration
+ * instantly at init instead of waiting for a full calibration. The file is written to a temporary file first and
+ * then renamed, so a robot losing power while saving never leaves a corrupted cache behind. A missing or corrupted
+ * file is treated as an empty cache. This class is thread-safe.
+ */
+public class TrcCalibrationCache
+{
+    private static final String moduleName = "TrcCalibrationCache";
+    private static final boolean debugEnabled = false;
+    private static final boolean tracingEnabled = false;
+    private static final TrcDbgTrace.TraceLevel traceLevel = TrcDbgTrace.TraceLevel.API;
+    private static final TrcDbgTrace.MsgLevel msgLevel = TrcDbgTrace.MsgLevel.INFO;
+    private TrcDbgTrace dbgTrace = null;
+
+    private static final int FILE_MAGIC = 0x54524343;   // "TRCC"
+    private static final int FILE_VERSION = 1;
+    private static final int MAX_AXES = 16;
+
+    /**
+     * This class contains the calibration of all axes of a sensor.
+     */
+    public static class Calibration
+    {
+        public final double[] zeroOffsets;
+        public final double[] deadbands;
+        public final double[] scales;
+
+        /**
+         * Constructor: Create an instance of the object.
+         *
+         * @param numAxes specifies the number of axes.
+         */
+        public Calibration(int numAxes)
+        {
+            zeroOffsets = new double[numAxes];
+            deadbands = new double[numAxes];
+            scales = new double[numAxes];
+        }   //Calibration
+
+        /**
+         * This method returns the number of axes.
+         *
+         * @return number of axes.
+         */
+        public int getNumAxes()
+        {
+            return zeroOffsets.length;
+        }   //getNumAxes
+
+    }   //class Calibration
+
+    private final String filePath;
+    private final HashMap<String, Calibration> calibrations = new HashMap<>();
+
+    /**
+     * Constructor: Create an instance of the object and loads the cache file if it exists.
+     *
+     * @param filePath specifies the path of the cache file.
+     */
+    public TrcCalibrationCache(final String filePath)
+    {
+        if (debugEnabled)
+        {
+            dbgTrace = new TrcDbgTrace(moduleName, tracingEnabled, traceLevel, msgLevel);
+        }
+
+        this.filePath = filePath;
+        load();
+    }   //TrcCalibrationCache
+
+    /**
+     * This method returns the path of the cache file.
+     *
+     * @return cache file path.
+     */
+    public String toString()
+    {
+        return filePath;
+    }   //toString
+
+    /**
+     * This method returns the cached calibration of a sensor.
+     *
+     * @param sensorName specifies the sensor instance name.
+     * @return copy of the cached calibration, null if the sensor is not in the cache.
+     */
+    public synchronized Calibration getCalibration(final String sensorName)
+    {
+        Calibration cached = calibrations.get(sensorName);
+        Calibration calibration = null;
+
+        if (cached != null)
+        {
+            calibration = new Calibration(cached.getNumAxes());
+            copyCalibration(cached, calibration);
+        }
+
+        return calibration;
+    }   //getCalibration
+
+    /**
+     * This method puts the calibration of a sensor into the cache. Call save to make it persistent.
+     *
+     * @param sensorName specifies the sensor instance name.
+     * @param calibration specifies the calibration, it is copied into the cache.
+     */
+    public synchronized void putCalibration(final String sensorName, Calibration calibration)
+    {
+        Calibration cached = new Calibration(calibration.getNumAxes());
+
+        copyCalibration(calibration, cached);
+        calibrations.put(sensorName, cached);
+    }   //putCalibration
+
+    /**
+     * This method removes the calibration of a sensor from the cache. Call save to make it persistent.
+     *
+     * @param sensorName specifies the sensor instance name.
+     */
+    public synchronized void removeCalibration(final String sensorName)
+    {
+        calibrations.remove(sensorName);
+    }   //removeCalibration
+
+    /**
+     * This method loads the cache file, replacing the calibrations in the cache.
+     *
+     * @return true if the cache file is loaded successfully, false otherwise.
+     */
+    public synchronized boolean load()
+    {
+        final String funcName = "load";
+        boolean success = false;
+        DataInputStream in = null;
+
+        calibrations.clear();
+        try
+        {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(filePath)));
+            if (in.readInt() == FILE_MAGIC && in.readInt() == FILE_VERSION)
+            {
+                int numSensors = in.readInt();
+                for (int i = 0; i < numSensors; i++)
+                {
+                    String sensorName = in.readUTF();
+                    int numAxes = in.readInt();
+                    if (numAxes <= 0 || numAxes > MAX_AXES)
+                    {
+                        throw new IOException("Invalid number of axes " + numAxes + ".");
+                    }
+
+                    Calibration calibration = new Calibration(numAxes);
+                    for (int j = 0; j < calibration.getNumAxes(); j++)
+                    {
+                        calibration.zeroOffsets[j] = in.readDouble();
+                        calibration.deadbands[j] = in.readDouble();
+                        calibration.scales[j] = in.readDouble();
+                    }
+                    calibrations.put(sensorName, calibration);
+                }
+                success = true;
+            }
+        }
+        catch (IOException e)
+        {
+            success = false;
+        }
+        finally
+        {
+            closeStream(in);
+        }
+
+        if (!success)
+        {
+            calibrations.clear();
+        }
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API, "=%s", Boolean.toString(success));
+        }
+
+        return success;
+    }   //load
+
+    /**
+     * This method saves the cache to the cache file.
+     *
+     * @return true if the cache file is saved successfully, false otherwise.
+     */
+    public synchronized boolean save()
+    {
+        final String funcName = "save";
+        boolean success = false;
+        File file = new File(filePath);
+        File tempFile = new File(filePath + ".tmp");
+        DataOutputStream out = null;
+
+        try
+        {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(FILE_VERSION);
+            out.writeInt(calibrations.size());
+            for (Map.Entry<String, Calibration> entry: calibrations.entrySet())
+            {
+                Calibration calibration = entry.getValue();
+
+                out.writeUTF(entry.getKey());
+                out.writeInt(calibration.getNumAxes());
+                for (int j = 0; j < calibration.getNumAxes(); j++)
+                {
+                    out.writeDouble(calibration.zeroOffsets[j]);
+                    out.writeDouble(calibration.deadbands[j]);
+                    out.writeDouble(calibration.scales[j]);
+                }
+            }
+            out.close();
+            out = null;
+            //
+            // On some file systems, rename does not replace an existing file.
+            //
+            success = tempFile.renameTo(file) || file.delete() && tempFile.renameTo(file);
+        }
+        catch (IOException e)
+        {
+            success = false;
+        }
+        finally
+        {
+            closeStream(out);
+        }
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API, "=%s", Boolean.toString(success));
+        }
+
+        return success;
+    }   //save
+
+    /**
+     * This method copies a calibration.
+     *
+     * @param from specifies the calibration to copy from.
+     * @param to specifies the calibration to copy to.
+     */
+    private static void copyCalibration(Calibration from, Calibration to)
+    {
+        System.arraycopy(from.zeroOffsets, 0, to.zeroOffsets, 0, from.getNumAxes());
+        System.arraycopy(from.deadbands, 0, to.deadbands, 0, from.getNumAxes());
+        System.arraycopy(from.scales, 0, to.scales, 0, from.getNumAxes());
+    }   //copyCalibration
+
+    /**
+     * This method closes a stream, ignoring any error.
+     *
+     * @param stream specifies the stream to close, can be null.
+     */
+    private static void closeStream(Closeable stream)
+    {
+        if (stream != null)
+        {
+            try
+            {
+                stream.close();
+            }
+            catch (IOException e)
+            {
+            }
+        }
+    }   //closeStream
+
+}   //class TrcCalibrationCache
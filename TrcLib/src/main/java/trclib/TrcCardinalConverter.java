@@ -34,9 +34,12 @@ import java.util.Arrays;
  * especially when the heading value is used in PID controlled driving. For example, if the robot wants to go
  * straight and maintain the heading of zero and the robot turned left slightly with a heading of 358.0, instead
  * of turning right 2 degrees to get back to zero heading, the robot will turn left all the way around to get back
- * to zero. This class implements a periodic task that monitor the sensor data. If it crosses the value range
- * boundary, it will keep track of the number of crossovers and will adjust the value so it doesn't wrap in effect
- * converting cardinal heading back to cartesian heading.
+ * to zero. This class monitors the sensor data. Each new sample is unwrapped in constant time by taking the change
+ * from the previous sample modulo the value range, so it handles any number of crossovers between samples as long
+ * as the sensor moved less than half the value range in between, in effect converting cardinal heading back to
+ * cartesian heading. By default, the conversion is done lazily when the cartesian value is read, which costs
+ * nothing if nobody reads it. If the value may not be read often enough to catch the sensor moving half the value
+ * range, lazy mode can be disabled to convert all axes in a periodic task every loop instead.
  */
 public class TrcCardinalConverter<D> implements TrcTaskMgr.Task
 {
@@ -53,8 +56,11 @@ public class TrcCardinalConverter<D> implements TrcTaskMgr.Task
     private int numAxes;
     private double[] cardinalRangeLows;
     private double[] cardinalRangeHighs;
-    private TrcSensor.SensorData<Double>[] prevData;
-    private int[] numCrossovers;
+    private TrcSensor.SensorSample[] prevData;
+    private double[] unwrappedValues;
+    private final TrcSensor.SensorSample currData = new TrcSensor.SensorSample();
+    private boolean lazyMode = true;
+    private boolean enabled = false;
 
     /**
      * Constructor: Creates an instance of the object.
@@ -82,15 +88,15 @@ public class TrcCardinalConverter<D> implements TrcTaskMgr.Task
 
         cardinalRangeLows = new double[numAxes];
         cardinalRangeHighs = new double[numAxes];
-        prevData = new TrcSensor.SensorData[numAxes];
-        numCrossovers = new int[numAxes];
+        prevData = new TrcSensor.SensorSample[numAxes];
+        unwrappedValues = new double[numAxes];
 
         for (int i = 0; i < numAxes; i++)
         {
             cardinalRangeLows[i] = 0.0;
             cardinalRangeHighs[i] = 0.0;
-            prevData[i] = new TrcSensor.SensorData<>(0.0, 0.0);
-            numCrossovers[i] = 0;
+            prevData[i] = new TrcSensor.SensorSample();
+            unwrappedValues[i] = 0.0;
         }
     }   //TrcCardinalConverter
 
@@ -105,8 +111,28 @@ public class TrcCardinalConverter<D> implements TrcTaskMgr.Task
     }   //toString
 
     /**
-     * This method enables/disables the converter task. It is not automatically enabled when created. You must
-     * explicitly call this method to enable the converter.
+     * This method enables/disables lazy mode. In lazy mode (the default), the sensor data is converted when the
+     * cartesian value is read. Otherwise, the data of all axes is converted by a periodic task every loop. It must be
+     * called while the converter is disabled.
+     *
+     * @param enabled specifies true to enable lazy mode, false to convert in a periodic task.
+     */
+    public void setLazyModeEnabled(boolean enabled)
+    {
+        final String funcName = "setLazyModeEnabled";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "enabled=%s", Boolean.toString(enabled));
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        lazyMode = enabled;
+    }   //setLazyModeEnabled
+
+    /**
+     * This method enables/disables the converter. It is not automatically enabled when created. You must
+     * explicitly call this method to enable the converter. While disabled, the cartesian values are frozen.
      *
      * @param enabled specifies true for enabling the converter, disabling it otherwise.
      */
@@ -123,12 +149,23 @@ public class TrcCardinalConverter<D> implements TrcTaskMgr.Task
         if (enabled)
         {
             reset();
-            TrcTaskMgr.getInstance().registerTask(instanceName, this, TrcTaskMgr.TaskType.PRECONTINUOUS_TASK);
+            if (!lazyMode)
+            {
+                TrcTaskMgr taskMgr = TrcTaskMgr.getInstance();
+                //
+                // Cartesian headings are consumed by other tasks such as the drive base odometry, so convert first.
+                //
+                taskMgr.setTaskPriority(instanceName, this, TrcTaskMgr.SENSOR_TASK_PRIORITY);
+                taskMgr.registerTask(instanceName, this, TrcTaskMgr.TaskType.PRECONTINUOUS_TASK);
+            }
         }
         else
         {
-            TrcTaskMgr.getInstance().unregisterTask(this, TrcTaskMgr.TaskType.PRECONTINUOUS_TASK);
+            TrcTaskMgr taskMgr = TrcTaskMgr.getInstance();
+            taskMgr.unregisterTask(this, TrcTaskMgr.TaskType.PRECONTINUOUS_TASK);
+            taskMgr.setTaskPriority(instanceName, this, TrcTaskMgr.DEFAULT_TASK_PRIORITY);
         }
+        this.enabled = enabled;
     }   //setEnabled
 
     /**
@@ -146,8 +183,8 @@ public class TrcCardinalConverter<D> implements TrcTaskMgr.Task
             dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
         }
 
-        prevData[index] = sensor.getProcessedData(index, dataType);
-        numCrossovers[index] = 0;
+        sensor.getProcessedSample(index, dataType, prevData[index]);
+        unwrappedValues[index] = prevData[index].value;
     }   //reset
 
     /**
@@ -195,6 +232,58 @@ public class TrcCardinalConverter<D> implements TrcTaskMgr.Task
         cardinalRangeHighs[index] = rangeHigh;
     }   //setCardinalRange
 
+    /**
+     * This method returns the converted indexed cartesian value. In lazy mode, the latest sensor data is converted
+     * first.
+     *
+     * @param index specifies the axis index.
+     * @return converted cartesian value.
+     */
+    public double getCartesianValue(int index)
+    {
+        if (lazyMode && enabled)
+        {
+            convert(index);
+        }
+
+        return unwrappedValues[index] - cardinalRangeLows[index];
+    }   //getCartesianValue
+
+    /**
+     * This method returns the timestamp of the last converted indexed sample.
+     *
+     * @param index specifies the axis index.
+     * @return timestamp of the last converted sample.
+     */
+    public double getTimestamp(int index)
+    {
+        return prevData[index].timestamp;
+    }   //getTimestamp
+
+    /**
+     * This method reads the latest sensor data of the indexed axis and unwraps it. Reading the same sample again
+     * does not change the result, so it is safe to call more than once per loop.
+     *
+     * @param index specifies the axis index.
+     */
+    private void convert(int index)
+    {
+        TrcSensor.SensorSample data = currData;
+        double range = cardinalRangeHighs[index] - cardinalRangeLows[index];
+
+        sensor.getProcessedSample(index, dataType, data);
+        double delta = data.value - prevData[index].value;
+        if (range > 0.0)
+        {
+            //
+            // Take the change modulo the range, i.e. assume the sensor took the shorter way around.
+            //
+            delta -= range*Math.floor(delta/range + 0.5);
+        }
+        unwrappedValues[index] += delta;
+        prevData[index].set(data.timestamp, data.value);
+    }   //convert
+
     /**
      * This method returns the converted indexed cartesian data.
      *
@@ -204,11 +293,8 @@ public class TrcCardinalConverter<D> implements TrcTaskMgr.Task
     public TrcSensor.SensorData<Double> getCartesianData(int index)
     {
         final String funcName = "getCartesianData";
-        TrcSensor.SensorData<Double> data = new TrcSensor.SensorData<>(
-                prevData[index].timestamp, prevData[index].value);
-
-        data.value = (cardinalRangeHighs[index] - cardinalRangeLows[index])*numCrossovers[index] +
-                     (data.value - cardinalRangeLows[index]);
+        double value = getCartesianValue(index);
+        TrcSensor.SensorData<Double> data = new TrcSensor.SensorData<>(prevData[index].timestamp, value);
 
         if (debugEnabled)
         {
@@ -245,7 +331,7 @@ public class TrcCardinalConverter<D> implements TrcTaskMgr.Task
     }   //postPeriodicTask
 
     /**
-     * This method is called periodically to check for range crossovers.
+     * This method is called periodically to convert the data of all axes when not in lazy mode.
      *
      * @param runMode specifies the competition mode that is running.
      */
@@ -261,25 +347,13 @@ public class TrcCardinalConverter<D> implements TrcTaskMgr.Task
 
         for (int i = 0; i < numAxes; i++)
         {
-            TrcSensor.SensorData<Double> data = sensor.getProcessedData(i, dataType);
-            if (Math.abs(data.value - prevData[i].value) > (cardinalRangeHighs[i] - cardinalRangeLows[i])/2.0)
-            {
-                if (data.value > prevData[i].value)
-                {
-                    numCrossovers[i]--;
-                }
-                else
-                {
-                    numCrossovers[i]++;
-                }
-            }
-            prevData[i] = data;
+            convert(i);
         }
 
         if (debugEnabled)
         {
             dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.TASK,
-                               "! (numCrossovers=%s)", Arrays.toString(numCrossovers));
+                               "! (unwrappedValues=%s)", Arrays.toString(unwrappedValues));
         }
     }   //preContinuousTask
 
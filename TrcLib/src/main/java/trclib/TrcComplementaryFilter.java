@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2017 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package trclib;
+
+/**
+ * This class implements a complementary filter. It fuses a fast but drifting signal (e.g. the integrated heading of
+ * a gyro) with a slow but drift free reference (e.g. the heading of a compass). The change of the fast signal is
+ * trusted in the short term while the estimate is pulled towards the reference in the long term. The data given to
+ * filterData is the fast signal and the reference is either given explicitly or read from a reference source.
+ */
+public class TrcComplementaryFilter extends TrcFilter
+{
+    private static final String moduleName = "TrcComplementaryFilter";
+    private static final boolean debugEnabled = false;
+    private static final boolean tracingEnabled = false;
+    private static final TrcDbgTrace.TraceLevel traceLevel = TrcDbgTrace.TraceLevel.API;
+    private static final TrcDbgTrace.MsgLevel msgLevel = TrcDbgTrace.MsgLevel.INFO;
+    private TrcDbgTrace dbgTrace = null;
+
+    /**
+     * This interface provides the reference value of the filter.
+     */
+    public interface ReferenceSource
+    {
+        /**
+         * This method returns the current reference value.
+         *
+         * @return reference value.
+         */
+        double getReferenceValue();
+
+    }   //interface ReferenceSource
+
+    private final String instanceName;
+    private final double weight;
+    private final ReferenceSource referenceSource;
+    private double prevData;
+    private double filteredData;
+    private boolean initialized;
+
+    /**
+     * Constructor: Create an instance of the object.
+     *
+     * @param instanceName specifies the instance name.
+     * @param weight specifies the weight of the fast signal, a fraction within 1.0 (e.g. 0.98).
+     * @param referenceSource specifies the reference source, can be null if the reference is always given
+     *                        explicitly.
+     */
+    public TrcComplementaryFilter(final String instanceName, double weight, ReferenceSource referenceSource)
+    {
+        super(instanceName);
+
+        if (debugEnabled)
+        {
+            dbgTrace = new TrcDbgTrace(moduleName + "." + instanceName, tracingEnabled, traceLevel, msgLevel);
+        }
+
+        if (weight < 0.0 || weight > 1.0)
+        {
+            throw new IllegalArgumentException("Weight must be a positive fraction within 1.0.");
+        }
+
+        this.instanceName = instanceName;
+        this.weight = weight;
+        this.referenceSource = referenceSource;
+        initialized = false;
+    }   //TrcComplementaryFilter
+
+    /**
+     * This method returns the instance name.
+     *
+     * @return instance name.
+     */
+    public String toString()
+    {
+        return instanceName;
+    }   //toString
+
+    /**
+     * This method returns the fused data of the fast signal and the given reference.
+     *
+     * @param data specifies the fast signal value.
+     * @param reference specifies the reference value.
+     * @return fused data.
+     */
+    public double filterData(double data, double reference)
+    {
+        final String funcName = "filterData";
+
+        if (initialized)
+        {
+            filteredData = weight*(filteredData + data - prevData) + (1.0 - weight)*reference;
+        }
+        else
+        {
+            filteredData = reference;
+            initialized = true;
+        }
+        prevData = data;
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "data=%f,ref=%f", data, reference);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API, "=%f", filteredData);
+        }
+
+        return filteredData;
+    }   //filterData
+
+    //
+    // Implements TrcFilter abstract methods.
+    //
+
+    /**
+     * This method returns the fused data of the fast signal and the value of the reference source.
+     *
+     * @param data specifies the fast signal value.
+     * @return fused data.
+     */
+    @Override
+    public double filterData(double data)
+    {
+        if (referenceSource == null)
+        {
+            throw new IllegalStateException("No reference source, the reference must be given explicitly.");
+        }
+
+        return filterData(data, referenceSource.getReferenceValue());
+    }   //filterData
+
+}   //class TrcComplementaryFilter
@@ -26,7 +26,8 @@ package trclib;
  * This class does data integration for sensors that have one or more axes. Some value sensors such as gyros and
  * accelerometers may need to integrate their data to provide heading from gyro rotation rate, and velocity or
  * distance from accelerometer acceleration data. This class uses a periodic task to do integration and optionally
- * double integration.
+ * double integration. Integration is driven by the timestamps of the sensor samples, a sample that has already been
+ * integrated (i.e. same timestamp) is skipped. The integration method can be rectangular, trapezoidal or Simpson.
  */
 public class TrcDataIntegrator<D> implements TrcTaskMgr.Task
 {
@@ -37,14 +38,40 @@ public class TrcDataIntegrator<D> implements TrcTaskMgr.Task
     private static final TrcDbgTrace.MsgLevel msgLevel = TrcDbgTrace.MsgLevel.INFO;
     private TrcDbgTrace dbgTrace = null;
 
+    public enum IntegrationMethod
+    {
+        /**
+         * Multiplies each sample by the time since the previous sample.
+         */
+        RECTANGULAR,
+        /**
+         * Averages each sample with the previous sample.
+         */
+        TRAPEZOIDAL,
+        /**
+         * Fits a parabola through each sample and the two previous samples. The samples need not be evenly spaced.
+         */
+        SIMPSON
+    }   //enum IntegrationMethod
+
     private final String instanceName;
     private TrcSensor<D> sensor;
     private D dataType;
     private int numAxes;
-    private TrcSensor.SensorData<Double>[] inputData;
-    private TrcSensor.SensorData<Double>[] integratedData;
-    private TrcSensor.SensorData<Double>[] doubleIntegratedData;
+    private TrcSensor.SensorSample[] inputData;
+    private TrcSensor.SensorSample[] integratedData;
+    private TrcSensor.SensorSample[] doubleIntegratedData;
+    private IntegrationMethod integrationMethod = IntegrationMethod.TRAPEZOIDAL;
+    //
+    // Per axis history of the last two integration steps: times, input values and integrated values.
+    //
+    private int[] numSteps;
     private double[] prevTimes;
+    private double[] prevPrevTimes;
+    private double[] prevInputs;
+    private double[] prevPrevInputs;
+    private double[] prevIntegrated;
+    private double[] prevPrevIntegrated;
 
     /**
      * Constructor: Creates an instance of the object.
@@ -71,19 +98,25 @@ public class TrcDataIntegrator<D> implements TrcTaskMgr.Task
         this.dataType = dataType;
         numAxes = sensor.getNumAxes();
 
-        inputData = new TrcSensor.SensorData[numAxes];
-        integratedData = new TrcSensor.SensorData[numAxes];
-        doubleIntegratedData = doubleIntegration? new TrcSensor.SensorData[numAxes]: null;
+        inputData = new TrcSensor.SensorSample[numAxes];
+        integratedData = new TrcSensor.SensorSample[numAxes];
+        doubleIntegratedData = doubleIntegration? new TrcSensor.SensorSample[numAxes]: null;
+        numSteps = new int[numAxes];
         prevTimes = new double[numAxes];
+        prevPrevTimes = new double[numAxes];
+        prevInputs = new double[numAxes];
+        prevPrevInputs = new double[numAxes];
+        prevIntegrated = new double[numAxes];
+        prevPrevIntegrated = new double[numAxes];
 
         for (int i = 0; i < numAxes; i++)
         {
-            integratedData[i] = new TrcSensor.SensorData<>(0.0, 0.0);
+            inputData[i] = new TrcSensor.SensorSample();
+            integratedData[i] = new TrcSensor.SensorSample();
             if (doubleIntegratedData != null)
             {
-                doubleIntegratedData[i] = new TrcSensor.SensorData<>(0.0, 0.0);
+                doubleIntegratedData[i] = new TrcSensor.SensorSample();
             }
-            prevTimes[i] = 0.0;
         }
     }   //TrcDataIntegrator
 
@@ -109,6 +142,29 @@ public class TrcDataIntegrator<D> implements TrcTaskMgr.Task
         return instanceName;
     }   //toString
 
+    /**
+     * This method sets the integration method. The default is trapezoidal.
+     *
+     * @param method specifies the integration method.
+     */
+    public void setIntegrationMethod(IntegrationMethod method)
+    {
+        final String funcName = "setIntegrationMethod";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "method=%s", method);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        if (method == null)
+        {
+            throw new NullPointerException("method cannot be null.");
+        }
+
+        integrationMethod = method;
+    }   //setIntegrationMethod
+
     /**
      * This method enables the data integrator. The data integrator is not automatically enabled when created. You
      * must explicitly call this method to enable the data integrator.
@@ -128,11 +184,18 @@ public class TrcDataIntegrator<D> implements TrcTaskMgr.Task
         if (enabled)
         {
             reset();
-            TrcTaskMgr.getInstance().registerTask(instanceName, this, TrcTaskMgr.TaskType.PRECONTINUOUS_TASK);
+            TrcTaskMgr taskMgr = TrcTaskMgr.getInstance();
+            //
+            // The integrated data are consumed by other tasks such as the drive base odometry, so integrate first.
+            //
+            taskMgr.setTaskPriority(instanceName, this, TrcTaskMgr.SENSOR_TASK_PRIORITY);
+            taskMgr.registerTask(instanceName, this, TrcTaskMgr.TaskType.PRECONTINUOUS_TASK);
         }
         else
         {
-            TrcTaskMgr.getInstance().unregisterTask(this, TrcTaskMgr.TaskType.PRECONTINUOUS_TASK);
+            TrcTaskMgr taskMgr = TrcTaskMgr.getInstance();
+            taskMgr.unregisterTask(this, TrcTaskMgr.TaskType.PRECONTINUOUS_TASK);
+            taskMgr.setTaskPriority(instanceName, this, TrcTaskMgr.DEFAULT_TASK_PRIORITY);
         }
     }   //setEnabled
 
@@ -151,7 +214,9 @@ public class TrcDataIntegrator<D> implements TrcTaskMgr.Task
             dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
         }
 
+        numSteps[index] = 0;
         prevTimes[index] = TrcUtil.getCurrentTime();
+        prevIntegrated[index] = 0.0;
         integratedData[index].value = 0.0;
         if (doubleIntegratedData != null)
         {
@@ -178,6 +243,51 @@ public class TrcDataIntegrator<D> implements TrcTaskMgr.Task
         }
     }   //reset
 
+    /**
+     * This method returns the last indexed input value.
+     *
+     * @param index specifies the index.
+     * @return the last indexed input value.
+     */
+    public double getInputValue(int index)
+    {
+        return inputData[index].value;
+    }   //getInputValue
+
+    /**
+     * This method returns the last indexed integrated value.
+     *
+     * @param index specifies the index.
+     * @return last indexed integrated value.
+     */
+    public double getIntegratedValue(int index)
+    {
+        return integratedData[index].value;
+    }   //getIntegratedValue
+
+    /**
+     * This method returns the last indexed double integrated value.
+     *
+     * @param index specifies the index.
+     * @return last indexed double integrated value.
+     */
+    public double getDoubleIntegratedValue(int index)
+    {
+        return doubleIntegratedData[index].value;
+    }   //getDoubleIntegratedValue
+
+    /**
+     * This method returns the timestamp of the last indexed input sample which is also the timestamp of the
+     * integrated values.
+     *
+     * @param index specifies the index.
+     * @return timestamp of the last indexed input sample.
+     */
+    public double getTimestamp(int index)
+    {
+        return inputData[index].timestamp;
+    }   //getTimestamp
+
     /**
      * This method returns the last indexed input data.
      *
@@ -188,7 +298,7 @@ public class TrcDataIntegrator<D> implements TrcTaskMgr.Task
     {
         final String funcName = "getInputData";
         TrcSensor.SensorData<Double> data = new TrcSensor.SensorData<>(
-                inputData[index].timestamp, inputData[index].value);
+                inputData[index].timestamp, getInputValue(index));
 
         if (debugEnabled)
         {
@@ -211,7 +321,7 @@ public class TrcDataIntegrator<D> implements TrcTaskMgr.Task
     {
         final String funcName = "getIntegratedData";
         TrcSensor.SensorData<Double> data = new TrcSensor.SensorData<>(
-                integratedData[index].timestamp, integratedData[index].value);
+                integratedData[index].timestamp, getIntegratedValue(index));
 
         if (debugEnabled)
         {
@@ -234,7 +344,7 @@ public class TrcDataIntegrator<D> implements TrcTaskMgr.Task
     {
         final String funcName = "getDoubleIntegratedData";
         TrcSensor.SensorData<Double> data = new TrcSensor.SensorData<>(
-                    doubleIntegratedData[index].timestamp, doubleIntegratedData[index].value);
+                doubleIntegratedData[index].timestamp, getDoubleIntegratedValue(index));
 
         if (debugEnabled)
         {
@@ -287,43 +397,59 @@ public class TrcDataIntegrator<D> implements TrcTaskMgr.Task
         }
 
         boolean allZeroAxis = true;
-        double[] deltaTime = new double[inputData.length];
         for (int i = 0; i < inputData.length; i++)
         {
             //
-            // Get sensor data.
+            // Get sensor data. If the sensor has no new sample since the last integration, there is nothing to do.
             //
-            inputData[i] = sensor.getProcessedData(i, dataType);
-            deltaTime[i] = inputData[i].timestamp - prevTimes[i];
+            sensor.getProcessedSample(i, dataType, inputData[i]);
             if (inputData[i].value != 0.0)
             {
                 allZeroAxis = false;
             }
-            //
-            // Do integration.
-            //
-            integratedData[i].timestamp = inputData[i].timestamp;
-            integratedData[i].value = integratedData[i].value + inputData[i].value*deltaTime[i];
-            prevTimes[i] = inputData[i].timestamp;
+
+            if (inputData[i].timestamp > prevTimes[i])
+            {
+                double currTime = inputData[i].timestamp;
+                double currInput = inputData[i].value;
+                //
+                // Do integration.
+                //
+                integratedData[i].timestamp = currTime;
+                integratedData[i].value += integrate(
+                        numSteps[i], prevPrevTimes[i], prevTimes[i], currTime,
+                        prevPrevInputs[i], prevInputs[i], currInput);
+                //
+                // Do double integration if necessary.
+                //
+                if (doubleIntegratedData != null)
+                {
+                    doubleIntegratedData[i].timestamp = currTime;
+                    doubleIntegratedData[i].value += integrate(
+                            numSteps[i], prevPrevTimes[i], prevTimes[i], currTime,
+                            prevPrevIntegrated[i], prevIntegrated[i], integratedData[i].value);
+                }
+
+                prevPrevTimes[i] = prevTimes[i];
+                prevTimes[i] = currTime;
+                prevPrevInputs[i] = prevInputs[i];
+                prevInputs[i] = currInput;
+                prevPrevIntegrated[i] = prevIntegrated[i];
+                prevIntegrated[i] = integratedData[i].value;
+                numSteps[i]++;
+            }
         }
 
         //
-        // Do double integration if necessary.
+        // If all axes read zero while doing double integration, the sensor is assumed to be at rest, so the
+        // integrated data (e.g. velocity) is zeroed to stop it from drifting.
         //
-        if (doubleIntegratedData != null)
+        if (doubleIntegratedData != null && allZeroAxis)
         {
             for (int i = 0; i < inputData.length; i++)
             {
-                doubleIntegratedData[i].timestamp = inputData[i].timestamp;
-                if (allZeroAxis)
-                {
-                    integratedData[i].value = 0.0;
-                }
-                else
-                {
-                    doubleIntegratedData[i].value =
-                            doubleIntegratedData[i].value + integratedData[i].value*deltaTime[i];
-                }
+                integratedData[i].value = 0.0;
+                prevIntegrated[i] = 0.0;
             }
         }
 
@@ -338,4 +464,45 @@ public class TrcDataIntegrator<D> implements TrcTaskMgr.Task
     {
     }   //postContinuousTask
 
+    /**
+     * This method integrates the input over the interval ending at the current sample using the selected method.
+     * The methods that need previous samples fall back to a lower order until enough samples have been seen since
+     * the last reset.
+     *
+     * @param numSteps specifies the number of integration steps done since the last reset.
+     * @param t0 specifies the time of the sample before the previous sample.
+     * @param t1 specifies the time of the previous sample, or the reset time if there is no previous sample.
+     * @param t2 specifies the time of the current sample.
+     * @param f0 specifies the input value of the sample before the previous sample.
+     * @param f1 specifies the input value of the previous sample.
+     * @param f2 specifies the input value of the current sample.
+     * @return integral over the interval from t1 to t2.
+     */
+    private double integrate(int numSteps, double t0, double t1, double t2, double f0, double f1, double f2)
+    {
+        double h2 = t2 - t1;
+        double value;
+
+        if (integrationMethod == IntegrationMethod.RECTANGULAR || numSteps == 0)
+        {
+            value = f2*h2;
+        }
+        else if (integrationMethod == IntegrationMethod.TRAPEZOIDAL || numSteps == 1)
+        {
+            value = (f1 + f2)*h2/2.0;
+        }
+        else
+        {
+            //
+            // Integrate the parabola through the three samples over the last interval. It is the trapezoidal area
+            // corrected by the curvature c of the parabola.
+            //
+            double h1 = t1 - t0;
+            double c = ((f0 - f1)*h2 + (f2 - f1)*h1)/(h1*h2*(h1 + h2));
+            value = (f1 + f2)*h2/2.0 - c*h2*h2*h2/6.0;
+        }
+
+        return value;
+    }   //integrate
+
 }   //class TrcDataIntegrator
@@ -29,8 +29,6 @@ import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Locale;
 
-import hallib.HalDbgLog;
-
 /**
  * This class implements the Debug Tracer.
  */
@@ -194,7 +192,7 @@ public class TrcDbgTrace
     {
         if (traceEnabled && funcLevel.getValue() <= traceLevel.getValue())
         {
-            HalDbgLog.traceMsg(tracePrefix(funcName, true, false) + String.format(format, args) + ")\n");
+            TrcPlatform.getDbgLog().traceMsg(tracePrefix(funcName, true, false) + String.format(format, args) + ")\n");
         }
     }   //traceEnter
 
@@ -208,7 +206,7 @@ public class TrcDbgTrace
     {
         if (traceEnabled && funcLevel.getValue() <= traceLevel.getValue())
         {
-            HalDbgLog.traceMsg(tracePrefix(funcName, true, true));
+            TrcPlatform.getDbgLog().traceMsg(tracePrefix(funcName, true, true));
         }
     }   //traceEnter
 
@@ -224,7 +222,7 @@ public class TrcDbgTrace
     {
         if (traceEnabled && funcLevel.getValue() <= traceLevel.getValue())
         {
-            HalDbgLog.traceMsg(tracePrefix(funcName, false, false) + String.format(format, args) + "\n");
+            TrcPlatform.getDbgLog().traceMsg(tracePrefix(funcName, false, false) + String.format(format, args) + "\n");
         }
     }   //traceExitMsg
 
@@ -237,7 +235,7 @@ public class TrcDbgTrace
     {
         if (traceEnabled && funcLevel.getValue() <= traceLevel.getValue())
         {
-            HalDbgLog.traceMsg(tracePrefix(funcName, false, true));
+            TrcPlatform.getDbgLog().traceMsg(tracePrefix(funcName, false, true));
         }
     }   //traceExit
 
@@ -322,7 +320,7 @@ public class TrcDbgTrace
      */
     public void tracePrintf(String format, Object... args)
     {
-        HalDbgLog.traceMsg(String.format(format, args));
+        TrcPlatform.getDbgLog().traceMsg(String.format(format, args));
     }   //tracePrintf
 
     /**
@@ -344,7 +342,7 @@ public class TrcDbgTrace
             {
                 nextTraceTime = currTime + traceInterval;
                 String msg = msgPrefix(funcName, level) + String.format(format, args) + "\n";
-                HalDbgLog.msg(level, msg);
+                TrcPlatform.getDbgLog().msg(level, msg);
                 if (traceLog != null)
                 {
                     traceLog.print(msg);
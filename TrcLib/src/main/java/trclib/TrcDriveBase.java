@@ -69,6 +69,15 @@ public class TrcDriveBase implements TrcTaskMgr.Task
     private double gyroRateScale = 0.0;
     private double gyroAssistKp = 1.0;
     private boolean gyroAssistEnabled = false;
+    private TrcKinematicKalmanFilter headingFilter = null;
+    private double gyroHeadingVariance = 0.0;
+    private double gyroRateVariance = 0.0;
+    private double encoderRateVariance = 0.0;
+    private double fusionTime = 0.0;
+    private double prevGyroTime = 0.0;
+    private double encoderTime = 0.0;
+    private double prevEncoderTime = 0.0;
+    private double prevFusionRotPos = 0.0;
 
     private double prevLeftFrontPos = 0.0;
     private double prevLeftRearPos = 0.0;
@@ -130,6 +139,10 @@ public class TrcDriveBase implements TrcTaskMgr.Task
         TrcTaskMgr taskMgr = TrcTaskMgr.getInstance();
         taskMgr.registerTask(moduleName, this, TrcTaskMgr.TaskType.STOP_TASK);
         taskMgr.registerTask(moduleName, this, TrcTaskMgr.TaskType.PRECONTINUOUS_TASK);
+        //
+        // Odometry consumes the motor encoders and the gyro and is consumed by everything else (e.g. PID drive).
+        //
+        taskMgr.setTaskPriority(moduleName, this, TrcTaskMgr.ODOMETRY_TASK_PRIORITY);
     }   //commonInit
 
     /**
@@ -310,6 +323,70 @@ public class TrcDriveBase implements TrcTaskMgr.Task
         this.gyroAssistEnabled = false;
     }   //disableGyroAssist
 
+    /**
+     * This method enables heading fusion. The heading and turn speed of the drive base are then estimated jointly
+     * by a Kalman filter fusing the gyro heading, the gyro rotation rate and the turn rate derived from the wheel
+     * encoder difference. The encoder turn rate is in the rotation scaled unit, so the rotation scale must be set to
+     * convert it to degrees per second.
+     *
+     * @param filter specifies the Kalman filter.
+     * @param gyroHeadingVariance specifies the variance of the gyro heading, zero to not fuse the gyro heading.
+     * @param gyroRateVariance specifies the variance of the gyro rotation rate.
+     * @param encoderRateVariance specifies the variance of the encoder turn rate.
+     */
+    public void enableHeadingFusion(TrcKinematicKalmanFilter filter, double gyroHeadingVariance,
+                                    double gyroRateVariance, double encoderRateVariance)
+    {
+        final String funcName = "enableHeadingFusion";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API,
+                                "filter=%s,gyroHeadingVar=%f,gyroRateVar=%f,encoderRateVar=%f",
+                                filter, gyroHeadingVariance, gyroRateVariance, encoderRateVariance);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        if (gyro == null)
+        {
+            throw new IllegalStateException("Heading fusion requires a gyro.");
+        }
+
+        if (filter == null)
+        {
+            throw new NullPointerException("filter cannot be null.");
+        }
+
+        if (gyroRateVariance <= 0.0 || encoderRateVariance <= 0.0)
+        {
+            throw new IllegalArgumentException("Rate variances must be positive.");
+        }
+
+        filter.reset(heading, turnSpeed);
+        this.headingFilter = filter;
+        this.gyroHeadingVariance = gyroHeadingVariance;
+        this.gyroRateVariance = gyroRateVariance;
+        this.encoderRateVariance = encoderRateVariance;
+        resetFusionTimes();
+    }   //enableHeadingFusion
+
+    /**
+     * This method disables heading fusion. The heading and turn speed of the drive base then come from the gyro
+     * again.
+     */
+    public void disableHeadingFusion()
+    {
+        final String funcName = "disableHeadingFusion";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        headingFilter = null;
+    }   //disableHeadingFusion
+
     /**
      * This method returns the number of motors in the drive train.
      *
@@ -426,6 +503,12 @@ public class TrcDriveBase implements TrcTaskMgr.Task
         ySpeed = 0.0;
         turnSpeed = 0.0;
 
+        if (headingFilter != null)
+        {
+            headingFilter.reset(0.0, 0.0);
+            resetFusionTimes();
+        }
+
         if (debugEnabled)
         {
             dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
@@ -797,7 +880,7 @@ public class TrcDriveBase implements TrcTaskMgr.Task
         {
             double diffPower = (leftPower - rightPower)/2.0;
             double assistPower =
-                    TrcUtil.clipRange(gyroAssistKp*(diffPower - gyroRateScale*gyro.getZRotationRate().value));
+                    TrcUtil.clipRange(gyroAssistKp*(diffPower - gyroRateScale*gyro.getZRotationRateValue()));
             leftPower += assistPower;
             rightPower -= assistPower;
             double maxMag = Math.max(Math.abs(leftPower), Math.abs(rightPower));
@@ -932,7 +1015,7 @@ public class TrcDriveBase implements TrcTaskMgr.Task
 
         if (gyroAssistEnabled)
         {
-            rotation += TrcUtil.clipRange(gyroAssistKp*(rotation - gyroRateScale*gyro.getZRotationRate().value));
+            rotation += TrcUtil.clipRange(gyroAssistKp*(rotation - gyroRateScale*gyro.getZRotationRateValue()));
         }
 
         double wheelSpeeds[] = new double[4];
@@ -1024,7 +1107,7 @@ public class TrcDriveBase implements TrcTaskMgr.Task
 
         if (gyroAssistEnabled)
         {
-            rotation += TrcUtil.clipRange(gyroAssistKp*(rotation - gyroRateScale*gyro.getZRotationRate().value));
+            rotation += TrcUtil.clipRange(gyroAssistKp*(rotation - gyroRateScale*gyro.getZRotationRateValue()));
         }
 
         double wheelSpeeds[] = new double[4];
@@ -1168,6 +1251,10 @@ public class TrcDriveBase implements TrcTaskMgr.Task
         //
         double lfEnc = 0.0, lrEnc = 0.0, rfEnc = 0.0, rrEnc = 0.0;
         double lfSpeed = 0.0, lrSpeed = 0.0, rfSpeed = 0.0, rrSpeed = 0.0;
+        //
+        // The motors don't timestamp their encoder readings, so the time they are read is used as the sample time.
+        //
+        encoderTime = TrcUtil.getCurrentTime();
         if (leftFrontMotor != null)
         {
             try
@@ -1256,10 +1343,14 @@ public class TrcDriveBase implements TrcTaskMgr.Task
             ySpeed = (lrSpeed + rrSpeed)*yScale/2.0;
         }
 
-        if (gyro != null)
+        if (headingFilter != null)
         {
-            heading = gyro.getZHeading().value;
-            turnSpeed = gyro.getZRotationRate().value;
+            fuseHeading();
+        }
+        else if (gyro != null)
+        {
+            heading = gyro.getZHeadingValue();
+            turnSpeed = gyro.getZRotationRateValue();
         }
         else
         {
@@ -1287,6 +1378,78 @@ public class TrcDriveBase implements TrcTaskMgr.Task
         }
     }   //preContinuousTask
 
+    /**
+     * This method clears the sample times of heading fusion so that it restarts from the next samples.
+     */
+    private void resetFusionTimes()
+    {
+        fusionTime = 0.0;
+        prevGyroTime = 0.0;
+        prevEncoderTime = 0.0;
+    }   //resetFusionTimes
+
+    /**
+     * This method advances the heading filter to the given sample time. A sample that is not newer than the filter
+     * time (e.g. a delayed sample) is fused at the filter time since the filter cannot go back in time.
+     *
+     * @param sampleTime specifies the timestamp of the sample about to be fused.
+     */
+    private void advanceHeadingFilter(double sampleTime)
+    {
+        if (sampleTime > fusionTime)
+        {
+            if (fusionTime > 0.0)
+            {
+                headingFilter.predict(sampleTime - fusionTime);
+            }
+            fusionTime = sampleTime;
+        }
+    }   //advanceHeadingFilter
+
+    /**
+     * This method fuses the new gyro and encoder samples into the heading filter. The filter is advanced using the
+     * sample timestamps rather than the loop time so that loop jitter and delayed samples don't turn into prediction
+     * error. New samples are fused in timestamp order and a sample that has already been fused is skipped.
+     */
+    private void fuseHeading()
+    {
+        double gyroRate = gyro.getZRotationRateValue();
+        double gyroTime = gyro.getZTimestamp();
+        double gyroHeading = gyroHeadingVariance > 0.0? gyro.getZHeadingValue(): 0.0;
+        boolean newGyroSample = gyroTime > prevGyroTime;
+        boolean newEncoderSample = prevEncoderTime > 0.0 && encoderTime > prevEncoderTime;
+        double encoderRate = newEncoderSample? (rotPos - prevFusionRotPos)/(encoderTime - prevEncoderTime): 0.0;
+
+        if (newEncoderSample && (!newGyroSample || encoderTime <= gyroTime))
+        {
+            advanceHeadingFilter(encoderTime);
+            headingFilter.updateVelocity(encoderRate, encoderRateVariance);
+            newEncoderSample = false;
+        }
+
+        if (newGyroSample)
+        {
+            advanceHeadingFilter(gyroTime);
+            headingFilter.updateVelocity(gyroRate, gyroRateVariance);
+            if (gyroHeadingVariance > 0.0)
+            {
+                headingFilter.updatePosition(gyroHeading, gyroHeadingVariance);
+            }
+            prevGyroTime = gyroTime;
+        }
+
+        if (newEncoderSample)
+        {
+            advanceHeadingFilter(encoderTime);
+            headingFilter.updateVelocity(encoderRate, encoderRateVariance);
+        }
+
+        prevEncoderTime = encoderTime;
+        prevFusionRotPos = rotPos;
+        heading = headingFilter.getPosition();
+        turnSpeed = headingFilter.getVelocity();
+    }   //fuseHeading
+
     @Override
     public void postContinuousTask(TrcRobot.RunMode runMode)
     {
@@ -69,4 +69,20 @@ public abstract class TrcFilter
         return instanceName;
     }   //toString
 
+    /**
+     * This method filters an array of data in place, in chronological order. It is equivalent to calling
+     * filterData on each element. A filter may override this method with a tighter loop.
+     *
+     * @param data specifies the array of data values to be filtered, receives the filtered values.
+     * @param offset specifies the index of the first value to filter.
+     * @param length specifies the number of values to filter.
+     */
+    public void filterData(double[] data, int offset, int length)
+    {
+        for (int i = offset; i < offset + length; i++)
+        {
+            data[i] = filterData(data[i]);
+        }
+    }   //filterData
+
 }   //class TrcFilter
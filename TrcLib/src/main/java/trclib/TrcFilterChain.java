@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2017 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package trclib;
+
+/**
+ * This class implements a chain of filters applied in order. The output of each filter is the input of the next.
+ * Since the chain is itself a filter, it can be given to a sensor as the filter of an axis. When filtering an array
+ * of data, the chain runs each filter over the whole array before moving on to the next filter, so the virtual call
+ * overhead is paid per filter instead of per sample.
+ */
+public class TrcFilterChain extends TrcFilter
+{
+    private static final String moduleName = "TrcFilterChain";
+    private static final boolean debugEnabled = false;
+    private static final boolean tracingEnabled = false;
+    private static final TrcDbgTrace.TraceLevel traceLevel = TrcDbgTrace.TraceLevel.API;
+    private static final TrcDbgTrace.MsgLevel msgLevel = TrcDbgTrace.MsgLevel.INFO;
+    private TrcDbgTrace dbgTrace = null;
+
+    private final String instanceName;
+    private final TrcFilter[] filters;
+
+    /**
+     * Constructor: Create an instance of the object.
+     *
+     * @param instanceName specifies the instance name.
+     * @param filters specifies the filters in the order they are applied.
+     */
+    public TrcFilterChain(final String instanceName, TrcFilter... filters)
+    {
+        super(instanceName);
+
+        if (debugEnabled)
+        {
+            dbgTrace = new TrcDbgTrace(moduleName + "." + instanceName, tracingEnabled, traceLevel, msgLevel);
+        }
+
+        if (filters == null || filters.length == 0)
+        {
+            throw new IllegalArgumentException("Filter chain must have at least one filter.");
+        }
+
+        for (int i = 0; i < filters.length; i++)
+        {
+            if (filters[i] == null)
+            {
+                throw new NullPointerException("Filters cannot be null.");
+            }
+        }
+
+        this.instanceName = instanceName;
+        this.filters = filters.clone();
+    }   //TrcFilterChain
+
+    /**
+     * This method returns the instance name.
+     *
+     * @return instance name.
+     */
+    public String toString()
+    {
+        return instanceName;
+    }   //toString
+
+    /**
+     * This method returns the number of filters in the chain.
+     *
+     * @return number of filters.
+     */
+    public int getNumFilters()
+    {
+        return filters.length;
+    }   //getNumFilters
+
+    /**
+     * This method returns the filter at the specified position of the chain.
+     *
+     * @param index specifies the position of the filter in the chain.
+     * @return filter at the position.
+     */
+    public TrcFilter getFilter(int index)
+    {
+        return filters[index];
+    }   //getFilter
+
+    //
+    // Implements TrcFilter abstract methods.
+    //
+
+    /**
+     * This method returns the filtered data.
+     *
+     * @param data specifies the data value to be filtered.
+     * @return filtered data.
+     */
+    @Override
+    public double filterData(double data)
+    {
+        final String funcName = "filterData";
+        double filteredData = data;
+
+        for (int i = 0; i < filters.length; i++)
+        {
+            filteredData = filters[i].filterData(filteredData);
+        }
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "data=%f", data);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API, "=%f", filteredData);
+        }
+
+        return filteredData;
+    }   //filterData
+
+    /**
+     * This method filters an array of data in place by running each filter of the chain over the whole array in
+     * turn.
+     *
+     * @param data specifies the array of data values to be filtered, receives the filtered values.
+     * @param offset specifies the index of the first value to filter.
+     * @param length specifies the number of values to filter.
+     */
+    @Override
+    public void filterData(double[] data, int offset, int length)
+    {
+        for (int i = 0; i < filters.length; i++)
+        {
+            filters[i].filterData(data, offset, length);
+        }
+    }   //filterData
+
+}   //class TrcFilterChain
@@ -178,6 +178,11 @@ public abstract class TrcGyro extends TrcSensor<TrcGyro.DataType>
     private int xIndex = -1;
     private int yIndex = -1;
     private int zIndex = -1;
+    private final SensorSample headingSample = new SensorSample();
+    private TrcKinematicKalmanFilter zKalmanFilter = null;
+    private double zHeadingVariance = 0.0;
+    private double zRateVariance = 0.0;
+    private double zKalmanTimestamp = 0.0;
 
     /**
      * Constructor: Creates an instance of the object.
@@ -504,6 +509,29 @@ public abstract class TrcGyro extends TrcSensor<TrcGyro.DataType>
         }
     }   //setZValueRange
 
+    /**
+     * This method enables/disables lazy mode of the CardinalConverter. In lazy mode (the default), the heading is
+     * converted when read. Disable it if the heading may not be read often enough to catch the gyro turning half
+     * the value range. It must be called while the gyro is disabled.
+     *
+     * @param enabled specifies true to enable lazy mode, false to convert in a periodic task.
+     */
+    public void setCardinalConverterLazyMode(boolean enabled)
+    {
+        final String funcName = "setCardinalConverterLazyMode";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "enabled=%s", Boolean.toString(enabled));
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        if (cardinalConverter != null)
+        {
+            cardinalConverter.setLazyModeEnabled(enabled);
+        }
+    }   //setCardinalConverterLazyMode
+
     /**
      * This method resets the CardinalConverter on the x-axis.
      */
@@ -726,6 +754,193 @@ public abstract class TrcGyro extends TrcSensor<TrcGyro.DataType>
         return data;
     }   //getZHeading
 
+    /**
+     * This method returns the rotation rate value on the x-axis. Unlike getXRotationRate, it doesn't allocate any
+     * object. The timestamp of the value can be retrieved by calling getTimestamp.
+     *
+     * @return X rotation rate value.
+     */
+    public double getXRotationRateValue()
+    {
+        return getProcessedValue(xIndex, DataType.ROTATION_RATE);
+    }   //getXRotationRateValue
+
+    /**
+     * This method returns the rotation rate value on the y-axis. Unlike getYRotationRate, it doesn't allocate any
+     * object. The timestamp of the value can be retrieved by calling getTimestamp.
+     *
+     * @return Y rotation rate value.
+     */
+    public double getYRotationRateValue()
+    {
+        return getProcessedValue(yIndex, DataType.ROTATION_RATE);
+    }   //getYRotationRateValue
+
+    /**
+     * This method returns the rotation rate value on the z-axis. Unlike getZRotationRate, it doesn't allocate any
+     * object. The timestamp of the value can be retrieved by calling getTimestamp.
+     *
+     * @return Z rotation rate value.
+     */
+    public double getZRotationRateValue()
+    {
+        return getProcessedValue(zIndex, DataType.ROTATION_RATE);
+    }   //getZRotationRateValue
+
+    /**
+     * This method returns the heading value of the x-axis. Unlike getXHeading, it doesn't allocate any object.
+     *
+     * @return X heading value.
+     */
+    public double getXHeadingValue()
+    {
+        return getHeadingValue(xIndex);
+    }   //getXHeadingValue
+
+    /**
+     * This method returns the heading value of the y-axis. Unlike getYHeading, it doesn't allocate any object.
+     *
+     * @return Y heading value.
+     */
+    public double getYHeadingValue()
+    {
+        return getHeadingValue(yIndex);
+    }   //getYHeadingValue
+
+    /**
+     * This method returns the heading value of the z-axis. Unlike getZHeading, it doesn't allocate any object.
+     *
+     * @return Z heading value.
+     */
+    public double getZHeadingValue()
+    {
+        return getHeadingValue(zIndex);
+    }   //getZHeadingValue
+
+    /**
+     * This method returns the timestamp of the z-axis value last returned by getZRotationRateValue or
+     * getZHeadingValue.
+     *
+     * @return timestamp of the last z-axis value.
+     */
+    public double getZTimestamp()
+    {
+        return getTimestamp(zIndex);
+    }   //getZTimestamp
+
+    /**
+     * This method returns the heading value of the specified axis. If there is an integrator, we call the integrator
+     * to get the heading. Else if we have a CardinalConverter, we call it to get the heading else we call the
+     * platform dependent gyro to get the raw heading value.
+     *
+     * @param index specifies the axis index.
+     * @return heading value of the axis.
+     */
+    private double getHeadingValue(int index)
+    {
+        double value;
+
+        if (integrator != null)
+        {
+            value = integrator.getIntegratedValue(index);
+        }
+        else if (cardinalConverter != null)
+        {
+            value = cardinalConverter.getCartesianValue(index);
+        }
+        else
+        {
+            getLatestRawSample(index, DataType.HEADING, headingSample);
+            value = headingSample.value;
+        }
+
+        return value;
+    }   //getHeadingValue
+
+    /**
+     * This method sets a Kalman filter to estimate the heading and the rotation rate of the z-axis jointly. When
+     * set, each new rotation rate sample advances the filter to the timestamp of the sample and fuses the rotation
+     * rate and optionally the heading. The estimates are read by getZEstimatedHeadingValue and
+     * getZEstimatedRotationRateValue while the other methods keep returning the unfiltered data.
+     *
+     * @param filter specifies the Kalman filter, null to remove the filter.
+     * @param headingVariance specifies the variance of the heading, zero to not fuse the heading.
+     * @param rateVariance specifies the variance of the rotation rate.
+     */
+    public void setZKalmanFilter(TrcKinematicKalmanFilter filter, double headingVariance, double rateVariance)
+    {
+        final String funcName = "setZKalmanFilter";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "filter=%s,headingVar=%f,rateVar=%f",
+                                filter, headingVariance, rateVariance);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        if (filter != null && rateVariance <= 0.0)
+        {
+            throw new IllegalArgumentException("Rotation rate variance must be positive.");
+        }
+
+        zKalmanFilter = filter;
+        zHeadingVariance = headingVariance;
+        zRateVariance = rateVariance;
+        zKalmanTimestamp = 0.0;
+    }   //setZKalmanFilter
+
+    /**
+     * This method returns the heading of the z-axis estimated by the Kalman filter.
+     *
+     * @return estimated Z heading value.
+     */
+    public double getZEstimatedHeadingValue()
+    {
+        updateZKalmanFilter();
+        return zKalmanFilter.getPosition();
+    }   //getZEstimatedHeadingValue
+
+    /**
+     * This method returns the rotation rate of the z-axis estimated by the Kalman filter.
+     *
+     * @return estimated Z rotation rate value.
+     */
+    public double getZEstimatedRotationRateValue()
+    {
+        updateZKalmanFilter();
+        return zKalmanFilter.getVelocity();
+    }   //getZEstimatedRotationRateValue
+
+    /**
+     * This method advances the Kalman filter of the z-axis if there is a new rotation rate sample. A sample is
+     * fused only once no matter how many times the estimates are read.
+     */
+    private void updateZKalmanFilter()
+    {
+        if (zKalmanFilter == null)
+        {
+            throw new IllegalStateException("Z-axis Kalman filter is not set.");
+        }
+
+        double rate = getZRotationRateValue();
+        double timestamp = getTimestamp(zIndex);
+
+        if (timestamp > zKalmanTimestamp)
+        {
+            if (zKalmanTimestamp > 0.0)
+            {
+                zKalmanFilter.predict(timestamp - zKalmanTimestamp);
+            }
+            zKalmanFilter.updateVelocity(rate, zRateVariance);
+
+            if (zHeadingVariance > 0.0)
+            {
+                zKalmanFilter.updatePosition(getZHeadingValue(), zHeadingVariance);
+            }
+            zKalmanTimestamp = timestamp;
+        }
+    }   //updateZKalmanFilter
+
     //
     // The following methods can be overridden by a platform dependent gyro class.
     //
@@ -780,6 +995,12 @@ public abstract class TrcGyro extends TrcSensor<TrcGyro.DataType>
             integrator.reset(zIndex);
         }
 
+        if (zKalmanFilter != null)
+        {
+            zKalmanFilter.reset(0.0, 0.0);
+            zKalmanTimestamp = 0.0;
+        }
+
         if (debugEnabled)
         {
             dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API);
@@ -0,0 +1,442 @@
+/*
+ * Copyright (c) 2017 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package trclib;
+
+import java.util.ArrayList;
+
+/**
+ * This class implements a platform independent I2C bus arbiter. Devices sharing one physical I2C bus (e.g. the same
+ * controller port) are added to the arbiter, which then runs their port command state machines from a single task
+ * instead of each device running its own. Only one device holds the bus at a time. When the bus is free, the next
+ * device is picked either round-robin or by the urgency of its most urgent ready request. The arbiter also keeps
+ * track of bus utilization while the devices keep their own request latency statistics.
+ */
+public class TrcI2cBusArbiter implements TrcTaskMgr.Task
+{
+    private static final String moduleName = "TrcI2cBusArbiter";
+    private static final boolean debugEnabled = false;
+    private static final boolean tracingEnabled = false;
+    private static final TrcDbgTrace.TraceLevel traceLevel = TrcDbgTrace.TraceLevel.API;
+    private static final TrcDbgTrace.MsgLevel msgLevel = TrcDbgTrace.MsgLevel.INFO;
+    private TrcDbgTrace dbgTrace = null;
+
+    public static final long DEF_BUS_BUDGET_USEC = 1000;
+
+    /**
+     * Specifies how the next device is picked when the bus becomes free.
+     */
+    public enum SchedulingPolicy
+    {
+        //
+        // Take turns among the devices with ready requests.
+        //
+        ROUND_ROBIN,
+        //
+        // Pick the device with the most urgent ready request: the highest priority level (promoted by aging), then the
+        // earliest deadline within that level.
+        //
+        PRIORITY
+    }   //enum SchedulingPolicy
+
+    private final String instanceName;
+    private final ArrayList<TrcI2cDevice> devices = new ArrayList<>();
+    private final ArrayList<TrcI2cDevice> yieldedDevices = new ArrayList<>();
+    private SchedulingPolicy policy;
+    private long busBudgetUsec = DEF_BUS_BUDGET_USEC;
+    private TrcI2cDevice busOwner = null;
+    private int lastDeviceIndex = -1;
+    private double statsStartTime;
+
+    /**
+     * Constructor: Create an instance of the object.
+     *
+     * @param instanceName specifies the instance name.
+     * @param policy specifies the scheduling policy.
+     */
+    public TrcI2cBusArbiter(String instanceName, SchedulingPolicy policy)
+    {
+        if (debugEnabled)
+        {
+            dbgTrace = new TrcDbgTrace(moduleName + "." + instanceName, tracingEnabled, traceLevel, msgLevel);
+        }
+
+        if (policy == null)
+        {
+            throw new NullPointerException("Scheduling policy cannot be null.");
+        }
+
+        this.instanceName = instanceName;
+        this.policy = policy;
+        statsStartTime = TrcUtil.getCurrentTime();
+    }   //TrcI2cBusArbiter
+
+    /**
+     * Constructor: Create an instance of the object.
+     *
+     * @param instanceName specifies the instance name.
+     */
+    public TrcI2cBusArbiter(String instanceName)
+    {
+        this(instanceName, SchedulingPolicy.ROUND_ROBIN);
+    }   //TrcI2cBusArbiter
+
+    /**
+     * This method returns the instance name.
+     *
+     * @return instance name.
+     */
+    public String toString()
+    {
+        return instanceName;
+    }   //toString
+
+    /**
+     * This method adds a device to the bus. From then on, the arbiter runs the device's state machine.
+     *
+     * @param device specifies the device to be added.
+     */
+    public void addDevice(TrcI2cDevice device)
+    {
+        final String funcName = "addDevice";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "device=%s", device);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        if (!devices.contains(device))
+        {
+            device.setArbiter(this);
+            devices.add(device);
+            if (devices.size() == 1)
+            {
+                TrcTaskMgr.getInstance().registerTask(instanceName, this, TrcTaskMgr.TaskType.PRECONTINUOUS_TASK);
+            }
+        }
+    }   //addDevice
+
+    /**
+     * This method removes a device from the bus. The device goes back to running its state machine on its own task.
+     *
+     * @param device specifies the device to be removed.
+     */
+    public void removeDevice(TrcI2cDevice device)
+    {
+        final String funcName = "removeDevice";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "device=%s", device);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        if (devices.remove(device))
+        {
+            device.setArbiter(null);
+            if (busOwner == device)
+            {
+                busOwner = null;
+            }
+            lastDeviceIndex = -1;
+            if (devices.isEmpty())
+            {
+                TrcTaskMgr.getInstance().unregisterTask(this, TrcTaskMgr.TaskType.PRECONTINUOUS_TASK);
+            }
+        }
+    }   //removeDevice
+
+    /**
+     * This method sets the scheduling policy.
+     *
+     * @param policy specifies the scheduling policy.
+     */
+    public void setSchedulingPolicy(SchedulingPolicy policy)
+    {
+        final String funcName = "setSchedulingPolicy";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "policy=%s", policy);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        if (policy == null)
+        {
+            throw new NullPointerException("Scheduling policy cannot be null.");
+        }
+
+        this.policy = policy;
+    }   //setSchedulingPolicy
+
+    /**
+     * This method sets the time budget the arbiter may spend running the bus in each robot loop. At least one state
+     * machine step is always run per loop.
+     *
+     * @param budgetUsec specifies the per-loop budget in microseconds.
+     */
+    public void setBusBudget(long budgetUsec)
+    {
+        final String funcName = "setBusBudget";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "budget=%dus", budgetUsec);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        if (budgetUsec < 0)
+        {
+            throw new IllegalArgumentException("Bus budget must not be negative.");
+        }
+
+        busBudgetUsec = budgetUsec;
+    }   //setBusBudget
+
+    /**
+     * This method returns the fraction of time the bus had a transaction in flight since the statistics were last
+     * reset.
+     *
+     * @return bus utilization in the range of 0.0 to 1.0.
+     */
+    public double getBusUtilization()
+    {
+        final String funcName = "getBusUtilization";
+        double elapsedTime = TrcUtil.getCurrentTime() - statsStartTime;
+        double busyTime = 0.0;
+        double utilization;
+
+        for (int i = 0; i < devices.size(); i++)
+        {
+            busyTime += devices.get(i).getBusyTime();
+        }
+        utilization = elapsedTime > 0.0? Math.min(busyTime/elapsedTime, 1.0): 0.0;
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API, "=%.3f", utilization);
+        }
+
+        return utilization;
+    }   //getBusUtilization
+
+    /**
+     * This method resets the bus utilization statistics and the latency statistics of all devices on the bus.
+     */
+    public void resetStatistics()
+    {
+        final String funcName = "resetStatistics";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        for (int i = 0; i < devices.size(); i++)
+        {
+            devices.get(i).resetStatistics();
+        }
+        statsStartTime = TrcUtil.getCurrentTime();
+    }   //resetStatistics
+
+    /**
+     * This method picks the next device to be granted the bus according to the scheduling policy. Devices that have
+     * yielded in this loop are skipped. A device still in the middle of a request (e.g. one that was added to the
+     * bus while busy) is always granted the bus first so that its transaction is completed.
+     *
+     * @param currTime specifies the current time.
+     * @return device to be granted the bus, null if no device has a ready request.
+     */
+    private TrcI2cDevice selectDevice(double currTime)
+    {
+        int numDevices = devices.size();
+        int bestIndex = -1;
+        int bestLevel = Integer.MIN_VALUE;
+        int bestPriority = Integer.MIN_VALUE;
+        double bestDeadline = Double.POSITIVE_INFINITY;
+
+        for (int i = 0; bestIndex == -1 && i < numDevices; i++)
+        {
+            if (devices.get(i).isBusy())
+            {
+                bestIndex = i;
+            }
+        }
+        boolean busyFound = bestIndex != -1;
+        //
+        // Scan starting right after the last granted device so that ties are broken round-robin.
+        //
+        for (int i = 1; !busyFound && i <= numDevices; i++)
+        {
+            int index = (lastDeviceIndex + i + numDevices)%numDevices;
+            TrcI2cDevice device = devices.get(index);
+            int level = yieldedDevices.contains(device)? Integer.MIN_VALUE: device.getReadyPriority(currTime);
+
+            if (level != Integer.MIN_VALUE)
+            {
+                if (policy == SchedulingPolicy.ROUND_ROBIN)
+                {
+                    bestIndex = index;
+                    break;
+                }
+
+                int priority = device.getReadyBasePriority(currTime);
+                if (bestIndex == -1 || level > bestLevel || level == bestLevel && priority > bestPriority)
+                {
+                    bestIndex = index;
+                    bestLevel = level;
+                    bestPriority = priority;
+                }
+            }
+        }
+        //
+        // With the priority policy, the scan above only picked the priority level. Among the devices whose most
+        // urgent request is of that level, pick the earliest deadline, again breaking ties round-robin.
+        //
+        if (!busyFound && policy == SchedulingPolicy.PRIORITY && bestIndex != -1)
+        {
+            bestIndex = -1;
+            for (int i = 1; i <= numDevices; i++)
+            {
+                int index = (lastDeviceIndex + i + numDevices)%numDevices;
+                TrcI2cDevice device = devices.get(index);
+
+                if (!yieldedDevices.contains(device) && device.getReadyBasePriority(currTime) == bestPriority)
+                {
+                    double deadline = device.getReadyDeadline(currTime);
+                    if (bestIndex == -1 || deadline < bestDeadline)
+                    {
+                        bestIndex = index;
+                        bestDeadline = deadline;
+                    }
+                }
+            }
+        }
+
+        if (bestIndex != -1)
+        {
+            lastDeviceIndex = bestIndex;
+        }
+
+        return bestIndex != -1? devices.get(bestIndex): null;
+    }   //selectDevice
+
+    //
+    // Implements TrcTaskMgr.Task
+    //
+
+    @Override
+    public void startTask(TrcRobot.RunMode runMode)
+    {
+    }   //startTask
+
+    @Override
+    public void stopTask(TrcRobot.RunMode runMode)
+    {
+    }   //stopTask
+
+    @Override
+    public void prePeriodicTask(TrcRobot.RunMode runMode)
+    {
+    }   //prePeriodicTask
+
+    @Override
+    public void postPeriodicTask(TrcRobot.RunMode runMode)
+    {
+    }   //postPeriodicTask
+
+    /**
+     * This method is called periodically to run the bus. The device holding the bus keeps stepping its state
+     * machine until its transaction completes, then the bus is granted to the next device. This goes on until the
+     * bus is waiting on the port, no device has a ready request or the budget runs out. A device that completes a
+     * repeated read or has nothing ready yields for the rest of the loop.
+     *
+     * @param runMode specifies the competition mode that is running.
+     */
+    @Override
+    public void preContinuousTask(TrcRobot.RunMode runMode)
+    {
+        final String funcName = "preContinuousTask";
+        long deadline = TrcUtil.getCurrentTimeNanos() + busBudgetUsec*1000L;
+        boolean done = false;
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.TASK, "runMode=%s", runMode.toString());
+        }
+
+        yieldedDevices.clear();
+        while (!done)
+        {
+            if (busOwner == null)
+            {
+                busOwner = selectDevice(TrcUtil.getCurrentTime());
+            }
+
+            if (busOwner == null)
+            {
+                done = true;
+            }
+            else
+            {
+                boolean progressed = busOwner.runPortCommandStep();
+
+                if (!busOwner.isBusy())
+                {
+                    //
+                    // The transaction is done, release the bus.
+                    //
+                    if (!progressed)
+                    {
+                        yieldedDevices.add(busOwner);
+                    }
+                    busOwner = null;
+                }
+                else if (!progressed)
+                {
+                    //
+                    // The owner is waiting on the port, nobody else can use the bus until it is done.
+                    //
+                    done = true;
+                }
+
+                if (TrcUtil.getCurrentTimeNanos() >= deadline)
+                {
+                    done = true;
+                }
+            }
+        }
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.TASK);
+        }
+    }   //preContinuousTask
+
+    @Override
+    public void postContinuousTask(TrcRobot.RunMode runMode)
+    {
+    }   //postContinuousTask
+
+}   //class TrcI2cBusArbiter
@@ -0,0 +1,1269 @@
+/*
+ * Copyright (c) 2015 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package trclib;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * This class implements a platform independent I2C device. Typically, this class is extended by a platform dependent
+ * I2C device class. The platform dependent I2C device class must implement the abstract methods required by this
+ * class. The abstract methods allow this class to perform platform independent operations on the I2C device.
+ */
+public abstract class TrcI2cDevice implements TrcTaskMgr.Task
+{
+    private static final String moduleName = "TrcI2cDevice";
+    private static final boolean debugEnabled = false;
+    private static final boolean tracingEnabled = false;
+    private static final TrcDbgTrace.TraceLevel traceLevel = TrcDbgTrace.TraceLevel.API;
+    private static final TrcDbgTrace.MsgLevel msgLevel = TrcDbgTrace.MsgLevel.INFO;
+    private TrcDbgTrace dbgTrace = null;
+
+    //
+    // The platform I2C port caches on FTC can transfer at most 26 data bytes in a single transaction.
+    //
+    public static final int DEF_MAX_TRANSACTION_LENGTH = 26;
+    public static final long DEF_STEP_BUDGET_USEC = 500;
+    public static final int DEF_PRIORITY = 0;
+    //
+    // Aging is on by default: every 100 msec a priority level has been waiting on its oldest ready request, the whole
+    // level is promoted by one over the other levels so that low priority requests are not starved.
+    //
+    public static final double DEF_AGING_INTERVAL = 0.1;
+    public static final int MAX_POOLED_REQUESTS = 16;
+
+    /**
+     * This method checks if the I2C port is ready for bus transaction.
+     *
+     * @return true if port is ready, false otherwise.
+     */
+    public abstract boolean isPortReady();
+
+    /**
+     * This method checks if the I2C port is in write mode.
+     *
+     * @return true if port is in write mode, false otherwise.
+     */
+    public abstract boolean isPortInWriteMode();
+
+    /**
+     * This method sends a read command to the device.
+     *
+     * @param regAddress specifies the register address.
+     * @param length specifies the number of bytes to read.
+     */
+    public abstract void sendReadCommand(int regAddress, int length);
+
+    /**
+     * This method sends a write command to the device.
+     *
+     * @param regAddress specifies the register address.
+     * @param length specifies the number of bytes to write.
+     * @param data specifies the data buffer containing the data to write to the device. The buffer is pooled and
+     *             may be longer than length, only the first length bytes are to be written.
+     */
+    public abstract void sendWriteCommand(int regAddress, int length, byte[] data);
+
+    /**
+     * This method retrieves the data read from the device.
+     *
+     * @return byte array containing the data read.
+     */
+    public abstract byte[] getData();
+
+    /**
+     * This method retrieves the data read from the device into the given buffer. The default implementation calls
+     * getData() and copies the result. Platform dependent classes that can access their read cache directly should
+     * override this so that no array is allocated per transaction.
+     *
+     * @param buffer specifies the buffer to receive the data.
+     * @return number of bytes of data available, which may be more than what fits in the buffer.
+     */
+    public int getData(byte[] buffer)
+    {
+        byte[] data = getData();
+        int length = data != null? data.length: 0;
+
+        if (length > 0)
+        {
+            System.arraycopy(data, 0, buffer, 0, Math.min(length, buffer.length));
+        }
+
+        return length;
+    }   //getData
+
+    /**
+     * The client of this class provides this interface if it wants to be notified when a read or write operation
+     * has been completed.
+     */
+    public interface CompletionHandler
+    {
+        /**
+         * This method is called when the read operation has been completed.
+         *
+         * @param regAddress specifies the starting register address.
+         * @param length specifies the number of bytes read, which is 0 if the operation was timed out.
+         * @param timestamp specified the timestamp of the data retrieved.
+         * @param data specifies the data byte array, only the first length bytes are valid. The array is pooled and
+         *             reused after this call returns, so the data must be decoded or copied here. If the operation
+         *             was timed out, the requested number of bytes of the array are zeroed.
+         * @param timedout specifies true if the operation was timed out, false otherwise.
+         * @return true if the request should be repeated, false otherwise.
+         */
+        boolean readCompletion(int regAddress, int length, double timestamp, byte[] data, boolean timedout);
+
+        /**
+         * This method is called when the write operation has been completed.
+         *
+         * @param regAddress specifies the starting register address.
+         * @param length specifies the number of bytes read.
+         * @param timedout specifies true if the operation was timed out, false otherwise.
+         */
+        void writeCompletion(int regAddress, int length, boolean timedout);
+
+    }   //interface CompletionHandler
+
+    /**
+     * Specifies the Port Command state machine states.
+     */
+    private enum PortCommandState
+    {
+        //
+        // Check the queue for next request.
+        //
+        START,
+        //
+        // Send the port command to the device.
+        //
+        SEND_PORT_COMMAND,
+        //
+        // Wait for port command to complete.
+        //
+        WAIT_PORT_COMMAND_COMPLETE,
+        //
+        // The request has been completed or we timed out.
+        //
+        PORT_COMMAND_COMPLETED,
+        //
+        // No more request in the queue, stop the state machine.
+        //
+        DONE
+    }   //enum PortCommandState
+
+    /**
+     * This class implements an I2C device request. It can be a read or write request. Requests are pooled and
+     * recycled once completed. Each request owns a data buffer that only grows, which holds the data to be written
+     * or receives the data read. The scheduling fields are filled in when the request is queued.
+     */
+    private class Request
+    {
+        private int regAddress;
+        private int length;
+        private boolean isWrite;
+        private byte[] buffer = null;
+        private CompletionHandler handler;
+        private double timeout;
+        private boolean expired;
+        private int priority = DEF_PRIORITY;
+        private double relativeDeadline = 0.0;
+        private double repeatInterval = 0.0;
+        private double releaseTime = 0.0;
+        private double queuedTime = 0.0;
+        private double deadline = 0.0;
+        private long sequence = 0;
+
+        /**
+         * This method initializes the request for a new operation, making sure the buffer is big enough.
+         *
+         * @param regAddress specifies the register address.
+         * @param length specifies the number of bytes to read or write.
+         * @param isWrite specifies true for a write request, false for a read request.
+         * @param handler specifies the completion handler to call when done. Can be null if none needed.
+         * @param timeout specifies the timeout time. It can be set to 0 if there is no timeout.
+         */
+        public void init(int regAddress, int length, boolean isWrite, CompletionHandler handler, double timeout)
+        {
+            this.regAddress = regAddress;
+            this.length = length;
+            this.isWrite = isWrite;
+            this.handler = handler;
+            this.timeout = timeout;
+            this.expired = false;
+            this.priority = DEF_PRIORITY;
+            this.relativeDeadline = 0.0;
+            this.repeatInterval = 0.0;
+            if (buffer == null || buffer.length < length)
+            {
+                buffer = new byte[Math.max(length, DEF_MAX_TRANSACTION_LENGTH)];
+            }
+        }   //init
+
+    }   //class Request
+
+    private String instanceName;
+    private TrcStateMachine<PortCommandState> portCommandSM;
+    private final ArrayList<Request> requestQueue = new ArrayList<>();
+    private long nextSequence = 0;
+    private double agingInterval = DEF_AGING_INTERVAL;
+    private int readyLevel = 0;
+    private Request currRequest = null;
+    private double expiredTime = 0.0;
+    private int dataLength = 0;
+    private final ArrayList<Request> requestPool = new ArrayList<>();
+    private final byte[] commandBuffer = new byte[2];
+    private final ArrayList<Request> batchedRequests = new ArrayList<>();
+    private boolean coalescingEnabled = true;
+    private int maxTransactionLength = DEF_MAX_TRANSACTION_LENGTH;
+    private long stepBudgetUsec = DEF_STEP_BUDGET_USEC;
+    private TrcI2cBusArbiter arbiter = null;
+    private double transactionStartTime = 0.0;
+    private double busyTime = 0.0;
+    private double totalLatency = 0.0;
+    private double maxLatency = 0.0;
+    private long requestCount = 0;
+
+    /**
+     * Constructor: Creates an instance of the object.
+     *
+     * @param instanceName specifies the instance name.
+     */
+    public TrcI2cDevice(String instanceName)
+    {
+        if (debugEnabled)
+        {
+            dbgTrace = new TrcDbgTrace(moduleName + "." + instanceName, tracingEnabled, traceLevel, msgLevel);
+        }
+
+        this.instanceName = instanceName;
+        portCommandSM = new TrcStateMachine<>(instanceName);
+    }   //TrcI2cDevice
+
+    /**
+     * This method returns the instance name of the device.
+     *
+     * @return instance name.
+     */
+    public String toString()
+    {
+        return instanceName;
+    }   //toString
+
+    /**
+     * This method enables/disables request coalescing. When enabled, contiguous or overlapping read requests at the
+     * head of the queue are merged into a single bus transaction and the data is fanned back out to each request's
+     * completion handler. Consecutive write requests to contiguous registers are merged the same way. Coalescing
+     * should be disabled for devices with registers that have side effects on access (e.g. read-to-clear FIFOs or
+     * command registers).
+     *
+     * @param enabled specifies true to enable request coalescing, false to disable.
+     */
+    public void setRequestCoalescingEnabled(boolean enabled)
+    {
+        final String funcName = "setRequestCoalescingEnabled";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "enabled=%s", Boolean.toString(enabled));
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        coalescingEnabled = enabled;
+    }   //setRequestCoalescingEnabled
+
+    /**
+     * This method sets the maximum number of bytes a coalesced transaction may span. Requests longer than this are
+     * still sent as is, they are just never merged with other requests.
+     *
+     * @param maxLength specifies the maximum transaction length in bytes.
+     */
+    public void setMaxTransactionLength(int maxLength)
+    {
+        final String funcName = "setMaxTransactionLength";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "maxLength=%d", maxLength);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        if (maxLength <= 0)
+        {
+            throw new IllegalArgumentException("Max transaction length must be positive.");
+        }
+
+        maxTransactionLength = maxLength;
+    }   //setMaxTransactionLength
+
+    /**
+     * This method sets the time budget the PortCommand state machine may spend in each robot loop. Within the
+     * budget, the state machine keeps advancing through states that are ready (e.g. dequeue, send, complete and
+     * dequeue the next request) instead of taking one state per loop. At least one step is always run per loop.
+     * When the device is owned by a TrcI2cBusArbiter, the arbiter's budget applies instead.
+     *
+     * @param budgetUsec specifies the per-loop budget in microseconds, 0 to run only one step per loop.
+     */
+    public void setStepBudget(long budgetUsec)
+    {
+        final String funcName = "setStepBudget";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "budget=%dus", budgetUsec);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        if (budgetUsec < 0)
+        {
+            throw new IllegalArgumentException("Step budget must not be negative.");
+        }
+
+        stepBudgetUsec = budgetUsec;
+    }   //setStepBudget
+
+    /**
+     * This method enables/disables the internal port command state machine and its task.
+     *
+     * @param enabled specifies true to enable the state machine and task, false otherwise.
+     */
+    private void setTaskEnabled(boolean enabled)
+    {
+        final String funcName = "setTaskEnabled";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "enabled=%s", Boolean.toString(enabled));
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        //
+        // When the device is owned by a bus arbiter, the arbiter runs the state machine instead of our own task.
+        //
+        if (enabled)
+        {
+            if (arbiter == null)
+            {
+                TrcTaskMgr.getInstance().registerTask(instanceName, this, TrcTaskMgr.TaskType.PRECONTINUOUS_TASK);
+            }
+            portCommandSM.start(PortCommandState.START);
+        }
+        else
+        {
+            portCommandSM.stop();
+            if (arbiter == null)
+            {
+                TrcTaskMgr.getInstance().unregisterTask(this, TrcTaskMgr.TaskType.PRECONTINUOUS_TASK);
+            }
+        }
+    }   //setTaskEnabled
+
+    /**
+     * This method is called by TrcI2cBusArbiter to take over or give back the running of the state machine. If the
+     * state machine is active, its task is moved accordingly.
+     *
+     * @param arbiter specifies the arbiter that owns this device, null to run on its own task again.
+     */
+    void setArbiter(TrcI2cBusArbiter arbiter)
+    {
+        if (arbiter != this.arbiter)
+        {
+            if (portCommandSM.isEnabled())
+            {
+                if (arbiter != null)
+                {
+                    TrcTaskMgr.getInstance().unregisterTask(this, TrcTaskMgr.TaskType.PRECONTINUOUS_TASK);
+                }
+                else
+                {
+                    TrcTaskMgr.getInstance().registerTask(
+                        instanceName, this, TrcTaskMgr.TaskType.PRECONTINUOUS_TASK);
+                }
+            }
+            this.arbiter = arbiter;
+        }
+    }   //setArbiter
+
+    /**
+     * This method checks if the device holds the bus, i.e. a transaction has been dequeued and not yet completed.
+     *
+     * @return true if the device holds the bus, false otherwise.
+     */
+    boolean isBusy()
+    {
+        return currRequest != null;
+    }   //isBusy
+
+    /**
+     * This method returns the effective priority of the priority level of the most urgent request ready to be
+     * serviced, i.e. the level's priority promoted by the aging of its oldest ready request.
+     *
+     * @param currTime specifies the current time.
+     * @return effective priority of the most urgent ready request, Integer.MIN_VALUE if none is ready.
+     */
+    int getReadyPriority(double currTime)
+    {
+        int index = portCommandSM.isEnabled()? getNextRequestIndex(currTime): -1;
+
+        return index != -1? readyLevel: Integer.MIN_VALUE;
+    }   //getReadyPriority
+
+    /**
+     * This method returns the priority of the most urgent request ready to be serviced, without aging.
+     *
+     * @param currTime specifies the current time.
+     * @return priority of the most urgent ready request, Integer.MIN_VALUE if none is ready.
+     */
+    int getReadyBasePriority(double currTime)
+    {
+        int index = portCommandSM.isEnabled()? getNextRequestIndex(currTime): -1;
+
+        return index != -1? requestQueue.get(index).priority: Integer.MIN_VALUE;
+    }   //getReadyBasePriority
+
+    /**
+     * This method returns the deadline of the most urgent request ready to be serviced.
+     *
+     * @param currTime specifies the current time.
+     * @return deadline of the most urgent ready request, Double.POSITIVE_INFINITY if it has none or none is ready.
+     */
+    double getReadyDeadline(double currTime)
+    {
+        int index = portCommandSM.isEnabled()? getNextRequestIndex(currTime): -1;
+        double deadline = index != -1? requestQueue.get(index).deadline: 0.0;
+
+        return deadline > 0.0? deadline: Double.POSITIVE_INFINITY;
+    }   //getReadyDeadline
+
+    /**
+     * This method returns the total time the device has held the bus with a transaction in flight since the
+     * statistics were last reset.
+     *
+     * @return bus busy time in seconds.
+     */
+    public double getBusyTime()
+    {
+        return busyTime;
+    }   //getBusyTime
+
+    /**
+     * This method returns the average latency of completed requests since the statistics were last reset. Latency
+     * is measured from the time the request became ready to the time its completion handler is called.
+     *
+     * @return average request latency in seconds.
+     */
+    public double getAverageLatency()
+    {
+        return requestCount > 0? totalLatency/requestCount: 0.0;
+    }   //getAverageLatency
+
+    /**
+     * This method returns the maximum latency of completed requests since the statistics were last reset.
+     *
+     * @return maximum request latency in seconds.
+     */
+    public double getMaxLatency()
+    {
+        return maxLatency;
+    }   //getMaxLatency
+
+    /**
+     * This method returns the number of requests completed since the statistics were last reset.
+     *
+     * @return number of completed requests.
+     */
+    public long getRequestCount()
+    {
+        return requestCount;
+    }   //getRequestCount
+
+    /**
+     * This method resets the bus time and latency statistics.
+     */
+    public void resetStatistics()
+    {
+        busyTime = 0.0;
+        totalLatency = 0.0;
+        maxLatency = 0.0;
+        requestCount = 0;
+    }   //resetStatistics
+
+    /**
+     * This method queues the read request with scheduling parameters. Requests of higher priority are serviced first,
+     * requests of equal priority are serviced earliest deadline first and then in the order they were queued. A
+     * priority level that has been waiting is promoted over the other levels by aging (see setAgingInterval). If the
+     * handler asks for the read to be repeated, it is rescheduled at the given repeat interval.
+     *
+     * @param regAddress specifies the register address to read from.
+     * @param length specifies the number of bytes to read.
+     * @param handler specifies the completion handler to call when done. Can be null if none needed.
+     * @param timeout specifies the timeout for the operation in seconds.
+     * @param priority specifies the priority of the request, higher value is more urgent.
+     * @param deadline specifies the deadline in seconds relative to when the request becomes ready, 0 if none.
+     * @param repeatInterval specifies the interval in seconds for repeating the read, 0 to repeat right away.
+     */
+    public void read(int regAddress, int length, CompletionHandler handler, double timeout, int priority,
+                     double deadline, double repeatInterval)
+    {
+        final String funcName = "read";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "addr=%x,len=%d,pri=%d,deadline=%.3f,period=%.3f",
+                                regAddress, length, priority, deadline, repeatInterval);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        Request request = obtainRequest(regAddress, length, false, handler, timeout);
+        request.priority = priority;
+        request.relativeDeadline = deadline;
+        request.repeatInterval = repeatInterval;
+        enqueueRequest(request, TrcUtil.getCurrentTime());
+    }   //read
+
+    /**
+     * This method queues the read request.
+     *
+     * @param regAddress specifies the register address to read from.
+     * @param length specifies the number of bytes to read.
+     * @param handler specifies the completion handler to call when done. Can be null if none needed.
+     * @param timeout specifies the timeout for the operation in seconds.
+     */
+    public void read(int regAddress, int length, CompletionHandler handler, double timeout)
+    {
+        read(regAddress, length, handler, timeout, DEF_PRIORITY, 0.0, 0.0);
+    }   //read
+
+    /**
+     * This method queues the read request.
+     *
+     * @param regAddress specifies the register address to read from.
+     * @param length specifies the number of bytes to read.
+     * @param handler specifies the completion handler to call when done. Can be null if none needed.
+     */
+    public void read(int regAddress, int length, CompletionHandler handler)
+    {
+        read(regAddress, length, handler, 0.0);
+    }   //read
+
+    /**
+     * This method queues the read request.
+     *
+     * @param regAddress specifies the register address to read from.
+     * @param length specifies the number of bytes to read.
+     */
+    public void read(int regAddress, int length)
+    {
+        read(regAddress, length, null, 0.0);
+    }   //read
+
+    /**
+     * This method queues the write request with scheduling parameters. Requests of higher priority are serviced
+     * first, requests of equal priority are serviced earliest deadline first and then in the order they were queued.
+     * A priority level that has been waiting is promoted over the other levels by aging (see setAgingInterval).
+     *
+     * @param regAddress specifies the register address to write to.
+     * @param length specifies the number of bytes to read.
+     * @param writeBuffer specifies the buffer containing the data to be written to the device. The data is copied
+     *                    so the buffer can be reused by the caller as soon as this returns.
+     * @param handler specifies the completion handler to call when done. Can be null if none needed.
+     * @param timeout specifies the timeout for the operation in seconds.
+     * @param priority specifies the priority of the request, higher value is more urgent.
+     * @param deadline specifies the deadline in seconds relative to now, 0 if none.
+     */
+    public void write(int regAddress, int length, byte[] writeBuffer, CompletionHandler handler, double timeout,
+                      int priority, double deadline)
+    {
+        final String funcName = "write";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "addr=%x,len=%d,pri=%d,deadline=%.3f",
+                                regAddress, length, priority, deadline);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        Request request = obtainRequest(regAddress, length, true, handler, timeout);
+        System.arraycopy(writeBuffer, 0, request.buffer, 0, length);
+        request.priority = priority;
+        request.relativeDeadline = deadline;
+        enqueueRequest(request, TrcUtil.getCurrentTime());
+    }   //write
+
+    /**
+     * This method queues the write request.
+     *
+     * @param regAddress specifies the register address to write to.
+     * @param length specifies the number of bytes to read.
+     * @param writeBuffer specifies the buffer containing the data to be written to the device.
+     * @param handler specifies the completion handler to call when done. Can be null if none needed.
+     * @param timeout specifies the timeout for the operation in seconds.
+     */
+    public void write(int regAddress, int length, byte[] writeBuffer, CompletionHandler handler, double timeout)
+    {
+        write(regAddress, length, writeBuffer, handler, timeout, DEF_PRIORITY, 0.0);
+    }   //write
+
+    /**
+     * This method queues the write request.
+     *
+     * @param regAddress specifies the register address to write to.
+     * @param length specifies the number of bytes to read.
+     * @param writeBuffer specifies the buffer containing the data to be written to the device.
+     * @param handler specifies the completion handler to call when done.
+     *                Can be null if none needed.
+     */
+    public void write(int regAddress, int length, byte[] writeBuffer, CompletionHandler handler)
+    {
+        write(regAddress, length, writeBuffer, handler, 0.0);
+    }   //write
+
+    /**
+     * This method queues the write request.
+     *
+     * @param regAddress specifies the register address to write to.
+     * @param length specifies the number of bytes to read.
+     * @param writeBuffer specifies the buffer containing the data to be written to the device.
+     */
+    public void write(int regAddress, int length, byte[] writeBuffer)
+    {
+        write(regAddress, length, writeBuffer, null, 0.0);
+    }   //write
+
+    /**
+     * This method sends a byte command to the device.
+     *
+     * @param regAddress specifies the register address to write to.
+     * @param command specifies the command byte.
+     */
+    public void sendByteCommand(int regAddress, byte command)
+    {
+        final String funcName = "sendByteCommand";
+
+        commandBuffer[0] = command;
+        write(regAddress, 1, commandBuffer);
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "command=%x", command);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+    }   //sendByteCommand
+
+    /**
+     * This method sends a 16-bit command to the device.
+     *
+     * @param regAddress specifies the register address to write to.
+     * @param command specifies the 16-bit command.
+     */
+    public void sendWordCommand(int regAddress, short command)
+    {
+        final String funcName = "sendWordCommand";
+
+        commandBuffer[0] = (byte)(command & 0xff);
+        commandBuffer[1] = (byte)(command >> 8);
+        write(regAddress, 2, commandBuffer);
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "command=%x", command);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+    }   //sendWordCommand
+
+    /**
+     * This method sets the starvation protection interval. For every full interval the oldest ready request of a
+     * priority level has been waiting in the queue, that level is raised by one when picking which priority level to
+     * service, so that low priority requests are eventually serviced. Aging never reorders requests of the same
+     * priority, those are always serviced earliest deadline first. The default is DEF_AGING_INTERVAL (100 msec).
+     *
+     * @param interval specifies the aging interval in seconds, 0 to disable aging.
+     */
+    public void setAgingInterval(double interval)
+    {
+        final String funcName = "setAgingInterval";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "interval=%.3f", interval);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        if (interval < 0.0)
+        {
+            throw new IllegalArgumentException("Aging interval must not be negative.");
+        }
+
+        agingInterval = interval;
+    }   //setAgingInterval
+
+    /**
+     * This method takes a request from the pool, or creates one if the pool is empty, and initializes it.
+     *
+     * @param regAddress specifies the register address.
+     * @param length specifies the number of bytes to read or write.
+     * @param isWrite specifies true for a write request, false for a read request.
+     * @param handler specifies the completion handler to call when done. Can be null if none needed.
+     * @param timeout specifies the timeout time. It can be set to 0 if there is no timeout.
+     * @return initialized request.
+     */
+    private Request obtainRequest(int regAddress, int length, boolean isWrite, CompletionHandler handler,
+                                  double timeout)
+    {
+        Request request = requestPool.isEmpty()? new Request(): requestPool.remove(requestPool.size() - 1);
+
+        request.init(regAddress, length, isWrite, handler, timeout);
+
+        return request;
+    }   //obtainRequest
+
+    /**
+     * This method returns a completed request to the pool. The pool is capped so that a burst of requests does not
+     * pin memory forever.
+     *
+     * @param request specifies the request to be recycled.
+     */
+    private void recycleRequest(Request request)
+    {
+        request.handler = null;
+        if (requestPool.size() < MAX_POOLED_REQUESTS)
+        {
+            requestPool.add(request);
+        }
+    }   //recycleRequest
+
+    /**
+     * This method adds a request to the queue and starts the PortCommand state machine if it is not already
+     * active.
+     *
+     * @param request specifies the request to be queued.
+     * @param releaseTime specifies the time the request becomes ready to be serviced.
+     */
+    private void enqueueRequest(Request request, double releaseTime)
+    {
+        request.releaseTime = releaseTime;
+        request.queuedTime = TrcUtil.getCurrentTime();
+        request.deadline = request.relativeDeadline > 0.0? releaseTime + request.relativeDeadline: 0.0;
+        request.sequence = nextSequence++;
+        requestQueue.add(request);
+        //
+        // If the PortCommand state machine is not already active, start it. If it found the queue empty and is about
+        // to stop, restart it so this request is not left behind.
+        //
+        if (!portCommandSM.isEnabled() || portCommandSM.getState() == PortCommandState.DONE)
+        {
+            setTaskEnabled(true);
+        }
+    }   //enqueueRequest
+
+    /**
+     * This method returns the effective priority of a ready request, which is its priority raised by one for every
+     * full aging interval it has been waiting.
+     *
+     * @param request specifies the request.
+     * @param currTime specifies the current time.
+     * @return effective priority of the request.
+     */
+    private int getEffectivePriority(Request request, double currTime)
+    {
+        int priority = request.priority;
+
+        if (agingInterval > 0.0)
+        {
+            priority += (int)((currTime - Math.max(request.queuedTime, request.releaseTime))/agingInterval);
+        }
+
+        return priority;
+    }   //getEffectivePriority
+
+    /**
+     * This method finds the most urgent request that is ready to be serviced. First, the priority level to service
+     * is picked: it is the level with the highest effective priority of its ready requests (i.e. promoted by the
+     * aging of its oldest request), ties going to the higher priority. Then, among the ready requests of that level,
+     * requests are ranked by earliest deadline (requests without a deadline come last) and then by queuing order.
+     * The effective priority of the picked level is left in readyLevel.
+     *
+     * @param currTime specifies the current time.
+     * @return index of the most urgent ready request in the queue, -1 if none is ready.
+     */
+    private int getNextRequestIndex(double currTime)
+    {
+        int numRequests = requestQueue.size();
+        int bestIndex = -1;
+        int bestLevel = 0;
+        int bestPriority = 0;
+        double bestDeadline = 0.0;
+
+        for (int i = 0; i < numRequests; i++)
+        {
+            Request request = requestQueue.get(i);
+
+            if (request.releaseTime <= currTime)
+            {
+                int level = getEffectivePriority(request, currTime);
+
+                if (bestIndex == -1 || level > bestLevel || level == bestLevel && request.priority > bestPriority)
+                {
+                    bestIndex = i;
+                    bestLevel = level;
+                    bestPriority = request.priority;
+                }
+            }
+        }
+
+        if (bestIndex != -1)
+        {
+            readyLevel = bestLevel;
+            bestIndex = -1;
+            for (int i = 0; i < numRequests; i++)
+            {
+                Request request = requestQueue.get(i);
+
+                if (request.releaseTime <= currTime && request.priority == bestPriority)
+                {
+                    double deadline = request.deadline > 0.0? request.deadline: Double.POSITIVE_INFINITY;
+
+                    if (bestIndex == -1 ||
+                        deadline < bestDeadline ||
+                        deadline == bestDeadline && request.sequence < requestQueue.get(bestIndex).sequence)
+                    {
+                        bestIndex = i;
+                        bestDeadline = deadline;
+                    }
+                }
+            }
+        }
+
+        return bestIndex;
+    }   //getNextRequestIndex
+
+    /**
+     * This method dequeues the most urgent ready request from the queue. If request coalescing is enabled, the
+     * requests ranked right after it are merged into the same transaction for as long as they are of the same kind,
+     * touch contiguous or (for reads only) overlapping registers and the merged span fits in the maximum transaction
+     * length. The merged requests are recorded in batchedRequests so their completion handlers can be called
+     * individually.
+     *
+     * @return request to be sent as a single transaction, null if no request is ready.
+     */
+    private Request dequeueTransaction()
+    {
+        double currTime = TrcUtil.getCurrentTime();
+        int index = getNextRequestIndex(currTime);
+        Request transaction = index != -1? requestQueue.remove(index): null;
+
+        batchedRequests.clear();
+        if (transaction != null)
+        {
+            batchedRequests.add(transaction);
+            if (coalescingEnabled)
+            {
+                boolean isRead = !transaction.isWrite;
+                int startAddr = transaction.regAddress;
+                int endAddr = startAddr + transaction.length;
+                double timeout = transaction.timeout;
+                Request next;
+
+                while ((index = getNextRequestIndex(currTime)) != -1 &&
+                       (next = requestQueue.get(index)).isWrite != isRead)
+                {
+                    int nextEndAddr = next.regAddress + next.length;
+                    int newStartAddr = Math.min(startAddr, next.regAddress);
+                    int newEndAddr = Math.max(endAddr, nextEndAddr);
+                    //
+                    // Reads may overlap in either direction. Writes must append exactly to the end so that every
+                    // register is written once and in the original order.
+                    //
+                    boolean mergeable = isRead?
+                        next.regAddress <= endAddr && nextEndAddr >= startAddr: next.regAddress == endAddr;
+
+                    if (!mergeable || newEndAddr - newStartAddr > maxTransactionLength)
+                    {
+                        break;
+                    }
+
+                    requestQueue.remove(index);
+                    batchedRequests.add(next);
+                    startAddr = newStartAddr;
+                    endAddr = newEndAddr;
+                    if (next.timeout != 0.0 && (timeout == 0.0 || next.timeout < timeout))
+                    {
+                        timeout = next.timeout;
+                    }
+                }
+
+                if (batchedRequests.size() > 1)
+                {
+                    transaction = obtainRequest(startAddr, endAddr - startAddr, !isRead, null, timeout);
+                    if (!isRead)
+                    {
+                        for (int i = 0; i < batchedRequests.size(); i++)
+                        {
+                            Request request = batchedRequests.get(i);
+                            System.arraycopy(request.buffer, 0, transaction.buffer, request.regAddress - startAddr,
+                                             request.length);
+                        }
+                    }
+
+                    if (debugEnabled)
+                    {
+                        dbgTrace.traceInfo("dequeueTransaction", "Coalesced %d requests (addr=%x,len=%d,%s)",
+                                           batchedRequests.size(), startAddr, endAddr - startAddr,
+                                           isRead? "read": "write");
+                    }
+                }
+            }
+        }
+
+        return transaction;
+    }   //dequeueTransaction
+
+    /**
+     * This method runs one step of the PortCommand state machine.
+     *
+     * @return true if the state machine moved to a different state and may be able to make further progress,
+     *         false if it is waiting on the port or has stopped.
+     */
+    boolean runPortCommandStep()
+    {
+        final String funcName = "runPortCommandStep";
+        boolean progressed = false;
+        boolean repeated = false;
+
+        if (portCommandSM.isReady())
+        {
+            PortCommandState state = portCommandSM.getState();
+            PortCommandState prevState = state;
+
+            switch (state)
+            {
+                case START:
+                    //
+                    // Dequeue a request from the beginning of the queue.
+                    //
+                    currRequest = dequeueTransaction();
+                    if (currRequest == null)
+                    {
+                        if (requestQueue.isEmpty())
+                        {
+                            //
+                            // There is no request in the queue, we are done.
+                            //
+                            portCommandSM.setState(PortCommandState.DONE);
+                        }
+                        //
+                        // Otherwise, the remaining requests are repeating reads waiting for their next interval.
+                        //
+                        break;
+                    }
+                    else
+                    {
+                        if (debugEnabled)
+                        {
+                            dbgTrace.traceInfo(funcName, "%s", state.toString());
+                        }
+                        expiredTime = currRequest.timeout;
+                        if (expiredTime != 0.0)
+                        {
+                            expiredTime += TrcUtil.getCurrentTime();
+                        }
+                        currRequest.expired = false;
+                        portCommandSM.setState(PortCommandState.SEND_PORT_COMMAND);
+                        state = portCommandSM.getState();
+                    }
+                    //
+                    // Intentionally falling through to next case.
+                    //
+                case SEND_PORT_COMMAND:
+                    //
+                    // Wait for the port to become ready before sending the command.
+                    //
+                    if (isPortReady())
+                    {
+                        if (debugEnabled)
+                        {
+                            dbgTrace.traceInfo(funcName, "%s: Request(addr=%x,len=%d,%s)",
+                                               state.toString(), currRequest.regAddress,
+                                               currRequest.length, currRequest.isWrite? "write": "read");
+                        }
+
+                        dataLength = 0;
+                        transactionStartTime = TrcUtil.getCurrentTime();
+                        if (!currRequest.isWrite)
+                        {
+                            //
+                            // It's a read request, setup a read command.
+                            //
+                            sendReadCommand(currRequest.regAddress, currRequest.length);
+                        }
+                        else
+                        {
+                            //
+                            // It's a write request, setup a write command.
+                            //
+                            sendWriteCommand(currRequest.regAddress, currRequest.length, currRequest.buffer);
+                        }
+                        portCommandSM.setState(PortCommandState.WAIT_PORT_COMMAND_COMPLETE);
+                    }
+                    else if (expiredTime != 0.0 && TrcUtil.getCurrentTime() > expiredTime)
+                    {
+                        currRequest.expired = true;
+                        portCommandSM.setState(PortCommandState.PORT_COMMAND_COMPLETED);
+                        if (debugEnabled)
+                        {
+                            dbgTrace.traceInfo(funcName, "%s: Port timed out, busy with another request.",
+                                               state.toString());
+                        }
+                    }
+                    break;
+
+                case WAIT_PORT_COMMAND_COMPLETE:
+                    //
+                    // Wait for the port command to complete or timed out.
+                    //
+                    if (isPortReady())
+                    {
+                        if (currRequest.isWrite)
+                        {
+                            //
+                            // It is a write request, the request is completed.
+                            //
+                            portCommandSM.setState(PortCommandState.PORT_COMMAND_COMPLETED);
+                            if (debugEnabled)
+                            {
+                                dbgTrace.traceInfo(funcName, "%s: write command completed.", state.toString());
+                            }
+                        }
+                        else
+                        {
+                            dataLength = getData(currRequest.buffer);
+                            //
+                            // It is a read request. For some reason, even when isPortReady() returns true, the data
+                            // may not be ready. So we need to check the buffer length against the requested length.
+                            // If it's not ready, remain in this state until we have valid data or timed out.
+                            //
+                            if (dataLength == currRequest.length)
+                            {
+                                //
+                                // We have valid data, the request is completed.
+                                //
+                                portCommandSM.setState(PortCommandState.PORT_COMMAND_COMPLETED);
+                                if (debugEnabled)
+                                {
+                                    dbgTrace.traceInfo(
+                                        funcName, "%s: read command completed. %s", state.toString(),
+                                        Arrays.toString(Arrays.copyOf(currRequest.buffer, dataLength)));
+                                }
+                            }
+                            else if (expiredTime != 0.0 && TrcUtil.getCurrentTime() > expiredTime)
+                            {
+                                currRequest.expired = true;
+                                portCommandSM.setState(PortCommandState.PORT_COMMAND_COMPLETED);
+                                if (debugEnabled)
+                                {
+                                    dbgTrace.traceInfo(funcName, "%s: Port command timed out.", state.toString());
+                                }
+                            }
+                        }
+                    }
+                    else if (expiredTime != 0.0 && TrcUtil.getCurrentTime() > expiredTime)
+                    {
+                        currRequest.expired = true;
+                        portCommandSM.setState(PortCommandState.PORT_COMMAND_COMPLETED);
+                        if (debugEnabled)
+                        {
+                            dbgTrace.traceInfo(funcName, "%s: Port command timed out.", state.toString());
+                        }
+                    }
+                    break;
+
+                case PORT_COMMAND_COMPLETED:
+                    //
+                    // The port command is complete, call completion handler if any.
+                    //
+                    if (debugEnabled)
+                    {
+                        dbgTrace.traceInfo(funcName, "%s: Command completed (timeout=%s).",
+                                           state.toString(), Boolean.toString(currRequest.expired));
+                    }
+
+                    //
+                    // Fan the result out to every request batched into this transaction. Each request gets its
+                    // slice of the transaction data copied into its own pooled buffer. If there is no valid data,
+                    // the buffers are zeroed so that a handler never sees the leftover of an earlier request.
+                    //
+                    double timestamp = TrcUtil.getCurrentTime();
+                    boolean dataValid = !currRequest.expired && dataLength == currRequest.length;
+                    if (transactionStartTime > 0.0)
+                    {
+                        busyTime += timestamp - transactionStartTime;
+                        transactionStartTime = 0.0;
+                    }
+
+                    for (int i = 0; i < batchedRequests.size(); i++)
+                    {
+                        Request request = batchedRequests.get(i);
+                        boolean recycle = true;
+                        double latency = timestamp - Math.max(request.queuedTime, request.releaseTime);
+
+                        totalLatency += latency;
+                        maxLatency = Math.max(maxLatency, latency);
+                        requestCount++;
+
+                        if (request.handler != null)
+                        {
+                            if (!request.isWrite)
+                            {
+                                if (!dataValid)
+                                {
+                                    Arrays.fill(request.buffer, 0, request.length, (byte)0);
+                                }
+                                else if (request != currRequest)
+                                {
+                                    System.arraycopy(currRequest.buffer, request.regAddress - currRequest.regAddress,
+                                                     request.buffer, 0, request.length);
+                                }
+
+                                if (request.handler.readCompletion(request.regAddress,
+                                                                   dataValid? request.length: 0, timestamp,
+                                                                   request.buffer, currRequest.expired))
+                                {
+                                    //
+                                    // Repeat this read request at its requested rate. If we have fallen behind,
+                                    // schedule it right away instead of bursting to catch up.
+                                    //
+                                    enqueueRequest(request, request.repeatInterval > 0.0?
+                                        Math.max(request.releaseTime + request.repeatInterval, timestamp):
+                                        timestamp);
+                                    repeated = true;
+                                    recycle = false;
+                                }
+                            }
+                            else
+                            {
+                                request.handler.writeCompletion(request.regAddress, request.length,
+                                                                currRequest.expired);
+                            }
+                        }
+
+                        if (recycle)
+                        {
+                            recycleRequest(request);
+                        }
+                    }
+
+                    if (batchedRequests.size() > 1)
+                    {
+                        //
+                        // The merged transaction request is not in the batch, recycle it separately.
+                        //
+                        recycleRequest(currRequest);
+                    }
+                    currRequest = null;
+                    batchedRequests.clear();
+                    portCommandSM.setState(PortCommandState.START);
+                    break;
+
+                case DONE:
+                default:
+                    //
+                    // There is no more request in the queue, stop the state machine.
+                    //
+                    if (debugEnabled)
+                    {
+                        dbgTrace.traceInfo(funcName, "%s", state.toString());
+                    }
+                    setTaskEnabled(false);
+                    break;
+            }
+
+            //
+            // A repeated read is re-issued on the next loop, otherwise it would just poll the same registers until
+            // the budget runs out.
+            //
+            progressed = !repeated && portCommandSM.isEnabled() && portCommandSM.getState() != prevState;
+        }
+
+        return progressed;
+    }   //runPortCommandStep
+
+    //
+    // Implements TrcTaskMgr.Task
+    //
+
+    @Override
+    public void startTask(TrcRobot.RunMode runMode)
+    {
+    }   //startTask
+
+    @Override
+    public void stopTask(TrcRobot.RunMode runMode)
+    {
+    }   //stopTask
+
+    @Override
+    public void prePeriodicTask(TrcRobot.RunMode runMode)
+    {
+    }   //prePeriodicTask
+
+    @Override
+    public void postPeriodicTask(TrcRobot.RunMode runMode)
+    {
+    }   //postPeriodicTask
+
+    /**
+     * This method is called periodically to run the PortCommand state machines.
+     *
+     * @param runMode specifies the competition mode that is running.
+     */
+    @Override
+    public void preContinuousTask(TrcRobot.RunMode runMode)
+    {
+        final String funcName = "preContinuousTask";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.TASK, "runMode=%s", runMode.toString());
+        }
+
+        //
+        // Keep advancing the state machine for as long as it makes progress and there is time left in the budget.
+        // A step that leaves the state unchanged means we are waiting on the port, so there is no point spinning.
+        //
+        long deadline = TrcUtil.getCurrentTimeNanos() + stepBudgetUsec*1000L;
+        boolean progressed;
+        do
+        {
+            progressed = runPortCommandStep();
+        } while (progressed && TrcUtil.getCurrentTimeNanos() < deadline);
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.TASK);
+        }
+    }   //preContinuousTask
+
+    @Override
+    public void postContinuousTask(TrcRobot.RunMode runMode)
+    {
+    }   //postContinuousTask
+
+}   //class TrcI2cDevice
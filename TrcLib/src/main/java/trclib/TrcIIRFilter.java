@@ -111,4 +111,24 @@ public class TrcIIRFilter extends TrcFilter
         return filteredData;
     }   //filterData
 
+    /**
+     * This method filters an array of data in place with the filter state kept in a local variable.
+     *
+     * @param data specifies the array of data values to be filtered, receives the filtered values.
+     * @param offset specifies the index of the first value to filter.
+     * @param length specifies the number of values to filter.
+     */
+    @Override
+    public void filterData(double[] data, int offset, int length)
+    {
+        double value = filteredData;
+
+        for (int i = offset; i < offset + length; i++)
+        {
+            value = value*(1.0 - weight) + data[i]*weight;
+            data[i] = value;
+        }
+        filteredData = value;
+    }   //filterData
+
 }   //class TrcIIRFilter
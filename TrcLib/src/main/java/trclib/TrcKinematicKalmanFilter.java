@@ -0,0 +1,418 @@
+/*
+ * Copyright (c) 2017 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package trclib;
+
+/**
+ * This class implements a multi-state Kalman filter for a kinematic quantity (e.g. the heading of the robot). The
+ * state is position and velocity with the constant velocity model, or position, velocity and acceleration with the
+ * constant acceleration model. The process noise is the spectral density of the white noise driving the highest
+ * derivative of the model. Measurements of position or velocity, each with its own variance, can be fused in any
+ * order after a prediction step. Each measurement is a scalar update, so no matrix inversion is needed. All matrices
+ * are preallocated and nothing is allocated after construction. Unlike TrcKalmanFilter, which smooths a single value
+ * with fixed gains, this filter estimates the rate jointly with the value and accounts for the actual time step.
+ */
+public class TrcKinematicKalmanFilter
+{
+    private static final String moduleName = "TrcKinematicKalmanFilter";
+    private static final boolean debugEnabled = false;
+    private static final boolean tracingEnabled = false;
+    private static final TrcDbgTrace.TraceLevel traceLevel = TrcDbgTrace.TraceLevel.API;
+    private static final TrcDbgTrace.MsgLevel msgLevel = TrcDbgTrace.MsgLevel.INFO;
+    private TrcDbgTrace dbgTrace = null;
+
+    public enum Model
+    {
+        CONSTANT_VELOCITY(2),
+        CONSTANT_ACCELERATION(3);
+
+        public final int numStates;
+
+        Model(int numStates)
+        {
+            this.numStates = numStates;
+        }
+
+    }   //enum Model
+
+    private static final int POSITION = 0;
+    private static final int VELOCITY = 1;
+    private static final int ACCELERATION = 2;
+    private static final double DEF_INITIAL_VARIANCE = 1.0e6;
+
+    private final String instanceName;
+    private final Model model;
+    private final int n;
+    private double processNoise;
+    private final double[] x;
+    private final double[] p;
+    private final double[] f;
+    private final double[] fp;
+    private final double[] gain;
+
+    /**
+     * Constructor: Create an instance of the object.
+     *
+     * @param instanceName specifies the instance name.
+     * @param model specifies the kinematic model.
+     * @param processNoise specifies the spectral density of the process noise.
+     */
+    public TrcKinematicKalmanFilter(final String instanceName, Model model, double processNoise)
+    {
+        if (debugEnabled)
+        {
+            dbgTrace = new TrcDbgTrace(moduleName + "." + instanceName, tracingEnabled, traceLevel, msgLevel);
+        }
+
+        if (model == null)
+        {
+            throw new NullPointerException("model cannot be null.");
+        }
+
+        if (processNoise < 0.0)
+        {
+            throw new IllegalArgumentException("Process noise cannot be negative.");
+        }
+
+        this.instanceName = instanceName;
+        this.model = model;
+        this.processNoise = processNoise;
+        n = model.numStates;
+        x = new double[n];
+        p = new double[n*n];
+        f = new double[n*n];
+        fp = new double[n*n];
+        gain = new double[n];
+        reset(0.0, 0.0);
+    }   //TrcKinematicKalmanFilter
+
+    /**
+     * This method returns the instance name.
+     *
+     * @return instance name.
+     */
+    public String toString()
+    {
+        return instanceName;
+    }   //toString
+
+    /**
+     * This method returns the kinematic model of the filter.
+     *
+     * @return kinematic model.
+     */
+    public Model getModel()
+    {
+        return model;
+    }   //getModel
+
+    /**
+     * This method sets the spectral density of the process noise.
+     *
+     * @param processNoise specifies the process noise.
+     */
+    public void setProcessNoise(double processNoise)
+    {
+        if (processNoise < 0.0)
+        {
+            throw new IllegalArgumentException("Process noise cannot be negative.");
+        }
+
+        this.processNoise = processNoise;
+    }   //setProcessNoise
+
+    /**
+     * This method resets the state to the given position and velocity with zero acceleration. The position is
+     * assumed to be known exactly while the rest of the state is left uncertain.
+     *
+     * @param position specifies the position.
+     * @param velocity specifies the velocity.
+     */
+    public void reset(double position, double velocity)
+    {
+        final String funcName = "reset";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "pos=%f,vel=%f", position, velocity);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        for (int i = 0; i < n; i++)
+        {
+            x[i] = 0.0;
+        }
+        x[POSITION] = position;
+        x[VELOCITY] = velocity;
+
+        for (int i = 0; i < n*n; i++)
+        {
+            p[i] = 0.0;
+        }
+        for (int i = 1; i < n; i++)
+        {
+            p[i*n + i] = DEF_INITIAL_VARIANCE;
+        }
+    }   //reset
+
+    /**
+     * This method advances the state by the given time step using the kinematic model.
+     *
+     * @param dt specifies the time step in seconds.
+     */
+    public void predict(double dt)
+    {
+        final String funcName = "predict";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "dt=%f", dt);
+        }
+
+        if (dt > 0.0)
+        {
+            double dt2 = dt*dt;
+            double dt3 = dt2*dt;
+            //
+            // F is upper triangular with 1, dt, dt^2/2 on its diagonals.
+            //
+            for (int i = 0; i < n*n; i++)
+            {
+                f[i] = 0.0;
+            }
+            for (int i = 0; i < n; i++)
+            {
+                f[i*n + i] = 1.0;
+                if (i + 1 < n)
+                {
+                    f[i*n + i + 1] = dt;
+                }
+
+                if (i + 2 < n)
+                {
+                    f[i*n + i + 2] = dt2/2.0;
+                }
+            }
+            //
+            // x = F*x
+            //
+            if (n == 3)
+            {
+                x[POSITION] += x[VELOCITY]*dt + x[ACCELERATION]*dt2/2.0;
+                x[VELOCITY] += x[ACCELERATION]*dt;
+            }
+            else
+            {
+                x[POSITION] += x[VELOCITY]*dt;
+            }
+            //
+            // P = F*P*F' + Q
+            //
+            for (int i = 0; i < n; i++)
+            {
+                for (int j = 0; j < n; j++)
+                {
+                    double sum = 0.0;
+                    for (int k = i; k < n; k++)
+                    {
+                        sum += f[i*n + k]*p[k*n + j];
+                    }
+                    fp[i*n + j] = sum;
+                }
+            }
+
+            for (int i = 0; i < n; i++)
+            {
+                for (int j = 0; j < n; j++)
+                {
+                    double sum = 0.0;
+                    for (int k = j; k < n; k++)
+                    {
+                        sum += fp[i*n + k]*f[j*n + k];
+                    }
+                    p[i*n + j] = sum;
+                }
+            }
+
+            double q = processNoise;
+            if (n == 3)
+            {
+                double dt4 = dt3*dt;
+                double dt5 = dt4*dt;
+                p[0] += q*dt5/20.0;
+                p[1] += q*dt4/8.0;
+                p[2] += q*dt3/6.0;
+                p[3] += q*dt4/8.0;
+                p[4] += q*dt3/3.0;
+                p[5] += q*dt2/2.0;
+                p[6] += q*dt3/6.0;
+                p[7] += q*dt2/2.0;
+                p[8] += q*dt;
+            }
+            else
+            {
+                p[0] += q*dt3/3.0;
+                p[1] += q*dt2/2.0;
+                p[2] += q*dt2/2.0;
+                p[3] += q*dt;
+            }
+        }
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API, "=(pos=%f,vel=%f)", x[POSITION], x[VELOCITY]);
+        }
+    }   //predict
+
+    /**
+     * This method fuses a position measurement into the state.
+     *
+     * @param measurement specifies the measured position.
+     * @param variance specifies the variance of the measurement.
+     */
+    public void updatePosition(double measurement, double variance)
+    {
+        update(POSITION, measurement, variance);
+    }   //updatePosition
+
+    /**
+     * This method fuses a velocity measurement into the state.
+     *
+     * @param measurement specifies the measured velocity.
+     * @param variance specifies the variance of the measurement.
+     */
+    public void updateVelocity(double measurement, double variance)
+    {
+        update(VELOCITY, measurement, variance);
+    }   //updateVelocity
+
+    /**
+     * This method returns the estimated position.
+     *
+     * @return estimated position.
+     */
+    public double getPosition()
+    {
+        return x[POSITION];
+    }   //getPosition
+
+    /**
+     * This method returns the estimated velocity.
+     *
+     * @return estimated velocity.
+     */
+    public double getVelocity()
+    {
+        return x[VELOCITY];
+    }   //getVelocity
+
+    /**
+     * This method returns the estimated acceleration.
+     *
+     * @return estimated acceleration, always zero with the constant velocity model.
+     */
+    public double getAcceleration()
+    {
+        return n == 3? x[ACCELERATION]: 0.0;
+    }   //getAcceleration
+
+    /**
+     * This method returns the variance of the estimated position.
+     *
+     * @return position variance.
+     */
+    public double getPositionVariance()
+    {
+        return p[0];
+    }   //getPositionVariance
+
+    /**
+     * This method returns the variance of the estimated velocity.
+     *
+     * @return velocity variance.
+     */
+    public double getVelocityVariance()
+    {
+        return p[n + 1];
+    }   //getVelocityVariance
+
+    /**
+     * This method fuses a measurement of a single state into the state.
+     *
+     * @param index specifies the index of the measured state.
+     * @param measurement specifies the measurement.
+     * @param variance specifies the variance of the measurement.
+     */
+    private void update(int index, double measurement, double variance)
+    {
+        final String funcName = "update";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.FUNC,
+                                "index=%d,z=%f,var=%f", index, measurement, variance);
+        }
+
+        if (variance <= 0.0)
+        {
+            throw new IllegalArgumentException("Measurement variance must be positive.");
+        }
+        //
+        // K = P*H'/(H*P*H' + R) where H selects the measured state.
+        //
+        double innovationVariance = p[index*n + index] + variance;
+        double innovation = measurement - x[index];
+
+        for (int i = 0; i < n; i++)
+        {
+            gain[i] = p[i*n + index]/innovationVariance;
+            x[i] += gain[i]*innovation;
+        }
+        //
+        // P = P - K*H*P, H*P being the measured row of P.
+        //
+        for (int i = 0; i < n; i++)
+        {
+            for (int j = 0; j < n; j++)
+            {
+                fp[i*n + j] = p[i*n + j] - gain[i]*p[index*n + j];
+            }
+        }
+        //
+        // Keep P symmetric against rounding errors.
+        //
+        for (int i = 0; i < n; i++)
+        {
+            for (int j = i; j < n; j++)
+            {
+                double value = (fp[i*n + j] + fp[j*n + i])/2.0;
+                p[i*n + j] = value;
+                p[j*n + i] = value;
+            }
+        }
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.FUNC, "=(pos=%f,vel=%f)", x[POSITION], x[VELOCITY]);
+        }
+    }   //update
+
+}   //class TrcKinematicKalmanFilter
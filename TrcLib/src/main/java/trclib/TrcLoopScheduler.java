@@ -0,0 +1,358 @@
+/*
+ * Copyright (c) 2017 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package trclib;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This class implements the loop timing policy of the cooperative multi-tasking scheduler. The scheduler runs the
+ * continuous phase on every loop and asks this class whether the periodic phase is due. The periodic phase can be
+ * scheduled at a fixed rate (aligned to a fixed time grid that never drifts) or with a fixed delay (the period is
+ * measured from the end of the previous periodic phase). For fixed rate, the overrun policy determines what happens
+ * when the loop stalls for more than one period. The class can also park the scheduler thread between loops instead
+ * of spinning so it doesn't burn a CPU core. It keeps statistics of the periodic phase lateness (jitter) and the
+ * continuous loop interval. It can be extended to provide a different scheduling policy.
+ */
+public class TrcLoopScheduler
+{
+    private static final String moduleName = "TrcLoopScheduler";
+    private static final boolean debugEnabled = false;
+    private static final boolean tracingEnabled = false;
+    private static final TrcDbgTrace.TraceLevel traceLevel = TrcDbgTrace.TraceLevel.API;
+    private static final TrcDbgTrace.MsgLevel msgLevel = TrcDbgTrace.MsgLevel.INFO;
+    private TrcDbgTrace dbgTrace = null;
+
+    /**
+     * This enum specifies how the periodic phase is scheduled.
+     */
+    public enum PeriodPolicy
+    {
+        /**
+         * The periodic phase is scheduled on a fixed time grid (start + n*period).
+         */
+        FIXED_RATE,
+
+        /**
+         * The periodic phase is scheduled one period after the previous periodic phase has completed.
+         */
+        FIXED_DELAY
+
+    }   //enum PeriodPolicy
+
+    /**
+     * This enum specifies what happens when a fixed rate periodic phase is late by more than one period.
+     */
+    public enum OverrunPolicy
+    {
+        /**
+         * The late periodic phase is dropped and the next one runs at the next grid slot.
+         */
+        SKIP,
+
+        /**
+         * Every missed periodic phase is run back-to-back until the schedule catches up.
+         */
+        CATCH_UP,
+
+        /**
+         * All missed periodic phases are coalesced into one that runs immediately, the next one runs at the next
+         * grid slot.
+         */
+        COALESCE
+
+    }   //enum OverrunPolicy
+
+    private final String instanceName;
+    private long period;
+    private PeriodPolicy periodPolicy;
+    private OverrunPolicy overrunPolicy;
+    private long continuousInterval = 0;
+    private boolean parkingEnabled = false;
+    private long nextPeriodTime = 0;
+    private long loopStartTime = 0;
+    private long prevLoopStartTime = 0;
+    private long overrunCount = 0;
+    private final TrcTimingHistogram periodJitter;
+    private final TrcTimingHistogram loopIntervals;
+
+    /**
+     * Constructor: Create an instance of the object.
+     *
+     * @param instanceName specifies the instance name.
+     * @param period specifies the period of the periodic phase in nanoseconds.
+     * @param periodPolicy specifies how the periodic phase is scheduled.
+     * @param overrunPolicy specifies what to do when a fixed rate periodic phase is more than one period late.
+     */
+    public TrcLoopScheduler(
+            final String instanceName, long period, PeriodPolicy periodPolicy, OverrunPolicy overrunPolicy)
+    {
+        if (debugEnabled)
+        {
+            dbgTrace = new TrcDbgTrace(moduleName + "." + instanceName, tracingEnabled, traceLevel, msgLevel);
+        }
+
+        if (period <= 0)
+        {
+            throw new IllegalArgumentException("period must be positive.");
+        }
+
+        this.instanceName = instanceName;
+        this.period = period;
+        this.periodPolicy = periodPolicy;
+        this.overrunPolicy = overrunPolicy;
+        periodJitter = new TrcTimingHistogram(instanceName + ".periodJitter", period);
+        loopIntervals = new TrcTimingHistogram(instanceName + ".loopInterval");
+    }   //TrcLoopScheduler
+
+    /**
+     * This method returns the instance name.
+     *
+     * @return instance name.
+     */
+    public String toString()
+    {
+        return instanceName;
+    }   //toString
+
+    /**
+     * This method sets the period of the periodic phase.
+     *
+     * @param period specifies the period in nanoseconds.
+     */
+    public void setPeriod(long period)
+    {
+        if (period <= 0)
+        {
+            throw new IllegalArgumentException("period must be positive.");
+        }
+
+        this.period = period;
+        periodJitter.setOverrunThreshold(period);
+    }   //setPeriod
+
+    /**
+     * This method returns the period of the periodic phase.
+     *
+     * @return period in nanoseconds.
+     */
+    public long getPeriod()
+    {
+        return period;
+    }   //getPeriod
+
+    /**
+     * This method sets the scheduling policies.
+     *
+     * @param periodPolicy specifies how the periodic phase is scheduled.
+     * @param overrunPolicy specifies what to do when a fixed rate periodic phase is more than one period late.
+     */
+    public void setPolicies(PeriodPolicy periodPolicy, OverrunPolicy overrunPolicy)
+    {
+        this.periodPolicy = periodPolicy;
+        this.overrunPolicy = overrunPolicy;
+    }   //setPolicies
+
+    /**
+     * This method sets the minimum interval between the starts of two consecutive continuous loops. If parking is
+     * enabled, the scheduler thread is parked for the remainder of the interval instead of spinning.
+     *
+     * @param interval specifies the minimum loop interval in nanoseconds, 0 to loop as fast as possible.
+     * @param parkingEnabled specifies true to park the thread between loops, false to spin.
+     */
+    public void setContinuousInterval(long interval, boolean parkingEnabled)
+    {
+        this.continuousInterval = interval;
+        this.parkingEnabled = parkingEnabled;
+    }   //setContinuousInterval
+
+    /**
+     * This method is called when the scheduler loop is about to start. It aligns the time grid of the periodic
+     * phase to the current time and clears the statistics.
+     */
+    public void start()
+    {
+        long currTime = TrcUtil.getCurrentTimeNanos();
+
+        nextPeriodTime = currTime;
+        loopStartTime = currTime;
+        prevLoopStartTime = 0;
+        overrunCount = 0;
+        periodJitter.reset();
+        loopIntervals.reset();
+    }   //start
+
+    /**
+     * This method is called at the start of each continuous loop. It records the loop interval statistics.
+     *
+     * @return the loop start time in nanoseconds.
+     */
+    public long loopStarted()
+    {
+        loopStartTime = TrcUtil.getCurrentTimeNanos();
+
+        if (prevLoopStartTime != 0)
+        {
+            loopIntervals.record(loopStartTime - prevLoopStartTime);
+        }
+        prevLoopStartTime = loopStartTime;
+
+        return loopStartTime;
+    }   //loopStarted
+
+    /**
+     * This method is called after the continuous phase to determine if the periodic phase should run in this loop.
+     * It advances the periodic time grid according to the scheduling policies.
+     *
+     * @return true if the periodic phase should run, false otherwise.
+     */
+    public boolean isPeriodDue()
+    {
+        final String funcName = "isPeriodDue";
+        long currTime = TrcUtil.getCurrentTimeNanos();
+        boolean due = false;
+
+        if (currTime >= nextPeriodTime)
+        {
+            long lateness = currTime - nextPeriodTime;
+            long missedPeriods = lateness/period;
+
+            if (missedPeriods > 0)
+            {
+                overrunCount++;
+                if (debugEnabled)
+                {
+                    dbgTrace.traceWarn(funcName, "Periodic phase is %d period(s) late.", missedPeriods);
+                }
+            }
+
+            if (periodPolicy == PeriodPolicy.FIXED_DELAY)
+            {
+                //
+                // The next period time will be set by periodDone.
+                //
+                due = true;
+            }
+            else
+            {
+                switch (overrunPolicy)
+                {
+                    case CATCH_UP:
+                        nextPeriodTime += period;
+                        due = true;
+                        break;
+
+                    case SKIP:
+                        nextPeriodTime += (missedPeriods + 1)*period;
+                        due = missedPeriods == 0;
+                        break;
+
+                    case COALESCE:
+                        nextPeriodTime += (missedPeriods + 1)*period;
+                        due = true;
+                        break;
+                }
+            }
+
+            if (due)
+            {
+                periodJitter.record(lateness);
+            }
+        }
+
+        return due;
+    }   //isPeriodDue
+
+    /**
+     * This method is called after the periodic phase has completed. For fixed delay scheduling, it sets the time of
+     * the next periodic phase.
+     */
+    public void periodDone()
+    {
+        if (periodPolicy == PeriodPolicy.FIXED_DELAY)
+        {
+            nextPeriodTime = TrcUtil.getCurrentTimeNanos() + period;
+        }
+    }   //periodDone
+
+    /**
+     * This method is called at the end of each continuous loop. If a minimum loop interval is set, it waits until
+     * the next loop is due or the periodic phase is due whichever comes first, either by parking the thread or
+     * by spinning.
+     */
+    public void waitForNextLoop()
+    {
+        if (continuousInterval > 0)
+        {
+            long wakeupTime = Math.min(loopStartTime + continuousInterval, nextPeriodTime);
+
+            for (;;)
+            {
+                long waitTime = wakeupTime - TrcUtil.getCurrentTimeNanos();
+
+                if (waitTime <= 0 || Thread.currentThread().isInterrupted())
+                {
+                    break;
+                }
+                else if (parkingEnabled)
+                {
+                    LockSupport.parkNanos(waitTime);
+                }
+                else
+                {
+                    Thread.yield();
+                }
+            }
+        }
+    }   //waitForNextLoop
+
+    /**
+     * This method returns the number of times the periodic phase was late by more than one period.
+     *
+     * @return number of overruns.
+     */
+    public long getOverrunCount()
+    {
+        return overrunCount;
+    }   //getOverrunCount
+
+    /**
+     * This method returns the statistics of how late the periodic phase ran relative to its scheduled time.
+     *
+     * @return periodic phase jitter histogram in nanoseconds.
+     */
+    public TrcTimingHistogram getPeriodJitter()
+    {
+        return periodJitter;
+    }   //getPeriodJitter
+
+    /**
+     * This method returns the statistics of the interval between the starts of two consecutive continuous loops.
+     *
+     * @return continuous loop interval histogram in nanoseconds.
+     */
+    public TrcTimingHistogram getLoopIntervals()
+    {
+        return loopIntervals;
+    }   //getLoopIntervals
+
+}   //class TrcLoopScheduler
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2017 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package trclib;
+
+/**
+ * This class implements a median filter. It is useful for rejecting spikes from the sensor data (e.g. bogus readings
+ * of an ultrasonic sensor). It keeps the last N data points in a ring buffer as well as in a sorted array. Each new
+ * data point replaces the oldest one in the sorted array by shifting elements, so filtering takes O(N) time without
+ * allocating.
+ */
+public class TrcMedianFilter extends TrcFilter
+{
+    private static final String moduleName = "TrcMedianFilter";
+    private static final boolean debugEnabled = false;
+    private static final boolean tracingEnabled = false;
+    private static final TrcDbgTrace.TraceLevel traceLevel = TrcDbgTrace.TraceLevel.API;
+    private static final TrcDbgTrace.MsgLevel msgLevel = TrcDbgTrace.MsgLevel.INFO;
+    private TrcDbgTrace dbgTrace = null;
+
+    private final String instanceName;
+    private final double[] buffer;
+    private final double[] sorted;
+    private int nextIndex;
+    private int count;
+
+    /**
+     * Constructor: Create an instance of the object.
+     *
+     * @param instanceName specifies the instance name.
+     * @param windowSize specifies the number of data points to take the median of.
+     */
+    public TrcMedianFilter(final String instanceName, int windowSize)
+    {
+        super(instanceName);
+
+        if (debugEnabled)
+        {
+            dbgTrace = new TrcDbgTrace(moduleName + "." + instanceName, tracingEnabled, traceLevel, msgLevel);
+        }
+
+        if (windowSize <= 0)
+        {
+            throw new IllegalArgumentException("Window size must be positive.");
+        }
+
+        this.instanceName = instanceName;
+        buffer = new double[windowSize];
+        sorted = new double[windowSize];
+        nextIndex = 0;
+        count = 0;
+    }   //TrcMedianFilter
+
+    /**
+     * This method returns the instance name.
+     *
+     * @return instance name.
+     */
+    public String toString()
+    {
+        return instanceName;
+    }   //toString
+
+    //
+    // Implements TrcFilter abstract methods.
+    //
+
+    /**
+     * This method returns the filtered data.
+     *
+     * @param data specifies the data value to be filtered.
+     * @return filtered data.
+     */
+    @Override
+    public double filterData(double data)
+    {
+        final String funcName = "filterData";
+        int pos;
+
+        if (count < buffer.length)
+        {
+            pos = count;
+            count++;
+        }
+        else
+        {
+            //
+            // Remove the oldest data point from the sorted array, leaving a hole at the end.
+            //
+            double oldest = buffer[nextIndex];
+            pos = 0;
+            while (Double.compare(sorted[pos], oldest) != 0)
+            {
+                pos++;
+            }
+            System.arraycopy(sorted, pos + 1, sorted, pos, count - pos - 1);
+            pos = count - 1;
+        }
+        //
+        // Insert the new data point into the sorted array.
+        //
+        while (pos > 0 && Double.compare(sorted[pos - 1], data) > 0)
+        {
+            sorted[pos] = sorted[pos - 1];
+            pos--;
+        }
+        sorted[pos] = data;
+
+        buffer[nextIndex] = data;
+        nextIndex = (nextIndex + 1)%buffer.length;
+
+        int mid = count/2;
+        double filteredData = (count & 1) != 0? sorted[mid]: (sorted[mid - 1] + sorted[mid])/2.0;
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "data=%f", data);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API, "=%f", filteredData);
+        }
+
+        return filteredData;
+    }   //filterData
+
+}   //class TrcMedianFilter
@@ -93,6 +93,12 @@ public abstract class TrcMotor implements TrcMotorController, TrcTaskMgr.Task
         {
             prevTime = TrcUtil.getCurrentTime();
             prevPos = getPosition();
+            //
+            // The speed task produces sensor data for other tasks such as the drive base odometry, so run it first.
+            // It only touches the state of this motor, so it can also run in parallel with other motors.
+            //
+            taskMgr.setTaskPriority(instanceName, this, TrcTaskMgr.SENSOR_TASK_PRIORITY);
+            taskMgr.setTaskParallelSafe(instanceName, this, true);
             taskMgr.registerTask(instanceName, this, TrcTaskMgr.TaskType.STOP_TASK);
             taskMgr.registerTask(instanceName, this, TrcTaskMgr.TaskType.PRECONTINUOUS_TASK);
         }
@@ -100,6 +106,8 @@ public abstract class TrcMotor implements TrcMotorController, TrcTaskMgr.Task
         {
             taskMgr.unregisterTask(this, TrcTaskMgr.TaskType.STOP_TASK);
             taskMgr.unregisterTask(this, TrcTaskMgr.TaskType.PRECONTINUOUS_TASK);
+            taskMgr.setTaskParallelSafe(instanceName, this, false);
+            taskMgr.setTaskPriority(instanceName, this, TrcTaskMgr.DEFAULT_TASK_PRIORITY);
         }
 
         if (debugEnabled)
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2017 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package trclib;
+
+/**
+ * This class implements a moving average filter. It keeps the last N data points in a ring buffer together with
+ * their running sum, so each new data point is filtered in constant time regardless of the window size. The sum is
+ * recomputed from the buffer every time the buffer wraps around to keep floating point errors from accumulating.
+ */
+public class TrcMovingAverageFilter extends TrcFilter
+{
+    private static final String moduleName = "TrcMovingAverageFilter";
+    private static final boolean debugEnabled = false;
+    private static final boolean tracingEnabled = false;
+    private static final TrcDbgTrace.TraceLevel traceLevel = TrcDbgTrace.TraceLevel.API;
+    private static final TrcDbgTrace.MsgLevel msgLevel = TrcDbgTrace.MsgLevel.INFO;
+    private TrcDbgTrace dbgTrace = null;
+
+    private final String instanceName;
+    private final double[] buffer;
+    private int nextIndex;
+    private int count;
+    private double sum;
+
+    /**
+     * Constructor: Create an instance of the object.
+     *
+     * @param instanceName specifies the instance name.
+     * @param windowSize specifies the number of data points to average.
+     */
+    public TrcMovingAverageFilter(final String instanceName, int windowSize)
+    {
+        super(instanceName);
+
+        if (debugEnabled)
+        {
+            dbgTrace = new TrcDbgTrace(moduleName + "." + instanceName, tracingEnabled, traceLevel, msgLevel);
+        }
+
+        if (windowSize <= 0)
+        {
+            throw new IllegalArgumentException("Window size must be positive.");
+        }
+
+        this.instanceName = instanceName;
+        buffer = new double[windowSize];
+        nextIndex = 0;
+        count = 0;
+        sum = 0.0;
+    }   //TrcMovingAverageFilter
+
+    /**
+     * This method returns the instance name.
+     *
+     * @return instance name.
+     */
+    public String toString()
+    {
+        return instanceName;
+    }   //toString
+
+    //
+    // Implements TrcFilter abstract methods.
+    //
+
+    /**
+     * This method returns the filtered data.
+     *
+     * @param data specifies the data value to be filtered.
+     * @return filtered data.
+     */
+    @Override
+    public double filterData(double data)
+    {
+        final String funcName = "filterData";
+
+        if (count < buffer.length)
+        {
+            count++;
+        }
+        else
+        {
+            sum -= buffer[nextIndex];
+        }
+        buffer[nextIndex] = data;
+        sum += data;
+
+        nextIndex++;
+        if (nextIndex == buffer.length)
+        {
+            nextIndex = 0;
+            sum = 0.0;
+            for (int i = 0; i < buffer.length; i++)
+            {
+                sum += buffer[i];
+            }
+        }
+
+        double filteredData = sum/count;
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "data=%f", data);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API, "=%f", filteredData);
+        }
+
+        return filteredData;
+    }   //filterData
+
+}   //class TrcMovingAverageFilter
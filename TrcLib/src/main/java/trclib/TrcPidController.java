@@ -22,8 +22,6 @@
 
 package trclib;
 
-import hallib.HalDashboard;
-
 /**
  * This class implements a PID controller. A PID controller takes a target set point and an input from a feedback
  * device to calculate the output power of an effector usually a motor or a set of motors.
@@ -55,7 +53,7 @@ public class TrcPidController
 
     }   //interface PidInput
 
-    private HalDashboard dashboard;
+    private TrcDashboard dashboard;
     private final String instanceName;
     private double kP;
     private double kI;
@@ -115,7 +113,7 @@ public class TrcPidController
             dbgTrace = new TrcDbgTrace(moduleName + "." + instanceName, tracingEnabled, traceLevel, msgLevel);
         }
 
-        dashboard = HalDashboard.getInstance();
+        dashboard = TrcPlatform.getDashboard();
         this.instanceName = instanceName;
         this.kP = Math.abs(kP);
         this.kI = Math.abs(kI);
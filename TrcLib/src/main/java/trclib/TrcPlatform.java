@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2017 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package trclib;
+
+/**
+ * This class holds the platform dependent services used by the library. The platform code (e.g. FtcOpMode) installs
+ * its implementations at startup. Until then, desktop stand-ins are used: debug messages go to the standard output
+ * and the dashboard keeps its lines in memory. This allows the library to run on a desktop JVM for testing and
+ * benchmarking.
+ */
+public class TrcPlatform
+{
+    /**
+     * This class implements the desktop debug logging. It prints all messages to the standard output.
+     */
+    public static class ConsoleDbgLog implements TrcDbgLog
+    {
+        /**
+         * This method is called to print a message with the specified message level to the debug console.
+         *
+         * @param level specifies the message level.
+         * @param msg specifies the message.
+         */
+        @Override
+        public void msg(TrcDbgTrace.MsgLevel level, String msg)
+        {
+            System.out.print(level + ": " + msg);
+        }   //msg
+
+        /**
+         * This method is called to print a message to the debug console.
+         *
+         * @param msg specifies the message.
+         */
+        @Override
+        public void traceMsg(String msg)
+        {
+            System.out.print(msg);
+        }   //traceMsg
+
+    }   //class ConsoleDbgLog
+
+    /**
+     * This class implements the desktop dashboard. It keeps the display lines in memory so that they can be
+     * inspected by tests.
+     */
+    public static class MemoryDashboard implements TrcDashboard
+    {
+        public static final int MAX_NUM_TEXTLINES = 16;
+
+        private final String[] display = new String[MAX_NUM_TEXTLINES];
+
+        /**
+         * Constructor: Create an instance of the object.
+         */
+        public MemoryDashboard()
+        {
+            clearDisplay();
+        }   //MemoryDashboard
+
+        /**
+         * This method returns the text in the specified display line.
+         *
+         * @param lineNum specifies the line number on the display.
+         * @return text in the display line.
+         */
+        public synchronized String getText(int lineNum)
+        {
+            return display[lineNum];
+        }   //getText
+
+        /**
+         * This method displays a text message in the specified display line.
+         *
+         * @param lineNum specifies the line number on the display.
+         * @param text specifies the text message.
+         */
+        @Override
+        public synchronized void displayText(int lineNum, String text)
+        {
+            if (lineNum >= 0 && lineNum < MAX_NUM_TEXTLINES)
+            {
+                display[lineNum] = text;
+            }
+        }   //displayText
+
+        /**
+         * This method displays a formatted message in the specified display line.
+         *
+         * @param lineNum specifies the line number on the display.
+         * @param format specifies the format string.
+         * @param args specifies variable number of substitution arguments.
+         */
+        @Override
+        public void displayPrintf(int lineNum, String format, Object... args)
+        {
+            displayText(lineNum, String.format(format, args));
+        }   //displayPrintf
+
+        /**
+         * This method clears all the display lines.
+         */
+        @Override
+        public synchronized void clearDisplay()
+        {
+            for (int i = 0; i < MAX_NUM_TEXTLINES; i++)
+            {
+                display[i] = "";
+            }
+        }   //clearDisplay
+
+        /**
+         * This method refresh the display lines. The lines are kept in memory, so there is nothing to refresh.
+         */
+        @Override
+        public void refreshDisplay()
+        {
+        }   //refreshDisplay
+
+    }   //class MemoryDashboard
+
+    private static volatile TrcDbgLog dbgLog = new ConsoleDbgLog();
+    private static volatile TrcDashboard dashboard = new MemoryDashboard();
+
+    /**
+     * This method installs the platform debug logging.
+     *
+     * @param dbgLog specifies the debug logging implementation.
+     */
+    public static void setDbgLog(TrcDbgLog dbgLog)
+    {
+        if (dbgLog == null)
+        {
+            throw new NullPointerException("dbgLog cannot be null.");
+        }
+
+        TrcPlatform.dbgLog = dbgLog;
+    }   //setDbgLog
+
+    /**
+     * This method returns the platform debug logging.
+     *
+     * @return debug logging implementation.
+     */
+    public static TrcDbgLog getDbgLog()
+    {
+        return dbgLog;
+    }   //getDbgLog
+
+    /**
+     * This method installs the platform dashboard.
+     *
+     * @param dashboard specifies the dashboard implementation.
+     */
+    public static void setDashboard(TrcDashboard dashboard)
+    {
+        if (dashboard == null)
+        {
+            throw new NullPointerException("dashboard cannot be null.");
+        }
+
+        TrcPlatform.dashboard = dashboard;
+    }   //setDashboard
+
+    /**
+     * This method returns the platform dashboard.
+     *
+     * @return dashboard implementation.
+     */
+    public static TrcDashboard getDashboard()
+    {
+        return dashboard;
+    }   //getDashboard
+
+}   //class TrcPlatform
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2017 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package trclib;
+
+/**
+ * This class implements a rate limiter. It limits how fast the filtered data can change from one sample to the
+ * next. It is useful for smoothing out step changes (e.g. joystick input to a drive base) or rejecting implausible
+ * jumps of the sensor data. It assumes the data is sampled at the given period, i.e. filterData is called once per
+ * sample period.
+ */
+public class TrcRateLimiter extends TrcFilter
+{
+    private static final String moduleName = "TrcRateLimiter";
+    private static final boolean debugEnabled = false;
+    private static final boolean tracingEnabled = false;
+    private static final TrcDbgTrace.TraceLevel traceLevel = TrcDbgTrace.TraceLevel.API;
+    private static final TrcDbgTrace.MsgLevel msgLevel = TrcDbgTrace.MsgLevel.INFO;
+    private TrcDbgTrace dbgTrace = null;
+
+    private final String instanceName;
+    private final double maxDelta;
+    private double filteredData;
+    private boolean initialized;
+
+    /**
+     * Constructor: Create an instance of the object.
+     *
+     * @param instanceName specifies the instance name.
+     * @param maxRate specifies the maximum rate of change in data units per second.
+     * @param samplePeriod specifies the sample period in seconds.
+     */
+    public TrcRateLimiter(final String instanceName, double maxRate, double samplePeriod)
+    {
+        super(instanceName);
+
+        if (debugEnabled)
+        {
+            dbgTrace = new TrcDbgTrace(moduleName + "." + instanceName, tracingEnabled, traceLevel, msgLevel);
+        }
+
+        if (maxRate <= 0.0 || samplePeriod <= 0.0)
+        {
+            throw new IllegalArgumentException("Max rate and sample period must be positive.");
+        }
+
+        this.instanceName = instanceName;
+        maxDelta = maxRate*samplePeriod;
+        initialized = false;
+    }   //TrcRateLimiter
+
+    /**
+     * This method returns the instance name.
+     *
+     * @return instance name.
+     */
+    public String toString()
+    {
+        return instanceName;
+    }   //toString
+
+    //
+    // Implements TrcFilter abstract methods.
+    //
+
+    /**
+     * This method returns the filtered data.
+     *
+     * @param data specifies the data value to be filtered.
+     * @return filtered data.
+     */
+    @Override
+    public double filterData(double data)
+    {
+        final String funcName = "filterData";
+
+        if (initialized)
+        {
+            filteredData += TrcUtil.clipRange(data - filteredData, -maxDelta, maxDelta);
+        }
+        else
+        {
+            filteredData = data;
+            initialized = true;
+        }
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "data=%f", data);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API, "=%f", filteredData);
+        }
+
+        return filteredData;
+    }   //filterData
+
+}   //class TrcRateLimiter
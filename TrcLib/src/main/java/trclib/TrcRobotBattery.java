@@ -34,6 +34,10 @@ public abstract class TrcRobotBattery implements TrcTaskMgr.Task
     private static final TrcDbgTrace.TraceLevel traceLevel = TrcDbgTrace.TraceLevel.API;
     private static final TrcDbgTrace.MsgLevel msgLevel = TrcDbgTrace.MsgLevel.INFO;
     private TrcDbgTrace dbgTrace = null;
+    //
+    // Battery voltage, current and power change slowly, there is no need to monitor them at loop rate.
+    //
+    private static final double TASK_INTERVAL = 0.5;
 
     /**
      * This method returns the robot battery voltage.
@@ -131,7 +135,8 @@ public abstract class TrcRobotBattery implements TrcTaskMgr.Task
                 }
             }
 
-            TrcTaskMgr.getInstance().registerTask(moduleName, this, TrcTaskMgr.TaskType.PRECONTINUOUS_TASK);
+            TrcTaskMgr.getInstance().registerTask(
+                    moduleName, this, TrcTaskMgr.TaskType.PRECONTINUOUS_TASK, TASK_INTERVAL);
         }
         else
         {
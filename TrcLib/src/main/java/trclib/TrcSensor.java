@@ -0,0 +1,686 @@
+/*
+ * Copyright (c) 2015 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package trclib;
+
+import java.util.Locale;
+
+/**
+ * This class implements a platform independent value sensor that has one or more axes or data type. Typically,
+ * this class is extended by a platform dependent value sensor class. The platform dependent sensor class must
+ * implement the abstract methods required by this class. The abstract methods allow this class to get raw data
+ * for each axis. This class also allows the caller to register an array of DataProcessors. The data processors
+ * will be called one at a time in the array order to filter/process the sensor data.
+ */
+public abstract class TrcSensor<D>
+{
+    private static final String moduleName = "TrcSensor";
+    private static final boolean debugEnabled = false;
+    private static final boolean tracingEnabled = false;
+    private static final TrcDbgTrace.TraceLevel traceLevel = TrcDbgTrace.TraceLevel.API;
+    private static final TrcDbgTrace.MsgLevel msgLevel = TrcDbgTrace.MsgLevel.INFO;
+    private TrcDbgTrace dbgTrace = null;
+
+    /**
+     * This class implements the SensorData object that consists of the sensor value as well as a timestamp when the
+     * data sample is taken.
+     *
+     * @param <T> specifies the sensor value type. It could be integer, double, enum or any type.
+     */
+    public static class SensorData<T>
+    {
+        public double timestamp;
+        public T value;
+
+        /**
+         * Constructor: Creates an instance of the object with the given timestamp and data value.
+         *
+         * @param timestamp specifies the timestamp.
+         * @param value specifies the data value.
+         */
+        public SensorData(double timestamp, T value)
+        {
+            this.timestamp = timestamp;
+            this.value = value;
+        }   //SensorData
+
+    }   //class SensorData
+
+    /**
+     * This class implements a mutable sensor sample with a primitive value. It is supplied by the callers of the
+     * primitive data methods so that reading sensor data doesn't allocate any object.
+     */
+    public static class SensorSample
+    {
+        public double timestamp;
+        public double value;
+
+        /**
+         * This method sets the timestamp and value of the sample.
+         *
+         * @param timestamp specifies the timestamp.
+         * @param value specifies the data value.
+         */
+        public void set(double timestamp, double value)
+        {
+            this.timestamp = timestamp;
+            this.value = value;
+        }   //set
+
+    }   //class SensorSample
+
+    /**
+     * This interface will be implemented by sensor classes that provide multiple data types. For example, a 3-axis
+     * gyro may provide "rotation rate" as well as "integrated heading" on each of its axes.
+     * Normally, sensor classes should extend this class and implement its abstract method which is the same thing.
+     * However, since Java supports only single inheritance and if the sensor class already extended another class,
+     * it cannot extend this class. In this case, it may just implement the DataSource interface instead.
+     *
+     * @param <D> specifies the data type enum.
+     */
+    public interface DataSource<D>
+    {
+        /**
+         * This method returns the selected raw sensor data.
+         *
+         * @param index specifies the index if the sensor provides some sort of array data (e.g. the axis index of a
+         *              3-axis gyro).
+         * @param dataType specifies the data type to return (e.g. rotation rate or heading of a gyro axis).
+         * @return selected sensor data.
+         */
+        SensorData<?> getRawData(int index, D dataType);
+
+    }   //interface DataSource
+
+    /**
+     * This method returns the selected raw sensor data.
+     *
+     * @param index specifies the index if the sensor provides some sort of array data (e.g. the axis index of a
+     *              3-axis gyro).
+     * @param dataType specifies the data type to return (e.g. rotation rate or heading of a gyro axis).
+     * @return selected sensor data.
+     */
+    public abstract SensorData<?> getRawData(int index, D dataType);
+
+    private static final int NUM_CAL_SAMPLES    = 100;
+    private static final long CAL_INTERVAL      = 10;   //in msec.
+
+    private final String instanceName;
+    private int numAxes;
+    private TrcFilter[] filters;
+    private int[] signs;
+    private double[] scales;
+    private TrcSensorCalibrator<D> calibrator = null;
+    private final SensorSample sample = new SensorSample();
+    private double[] timestamps;
+    //
+    // Per loop cache of the processed sample of each axis and data type. A stateful filter must only see each sample
+    // once, so the processed sample is reused by all consumers reading the same axis and data type in the same loop.
+    // The cache has one slot per data type, indexed by the enum ordinal, so consumers reading different data types
+    // of the same axis (e.g. heading and rotation rate) don't evict each other. The slots are allocated on first
+    // use since the number of data types is only known then.
+    //
+    private boolean cacheEnabled = true;
+    private long[][] cacheSequences = null;
+    private Object[][] cacheDataTypes = null;
+    private SensorSample[][] cacheSamples = null;
+    //
+    // Latest samples published by a background sampler, null if the sensor is read directly.
+    //
+    private volatile Object latestDataType = null;
+    private volatile TrcSensorSampler.LatestSample[] latestSamples = null;
+    //
+    // Optional history of the processed samples of each axis.
+    //
+    private Object historyDataType = null;
+    private TrcSensorHistory[] histories = null;
+
+    /**
+     * Constructor: Creates an instance of the object.
+     *
+     * @param instanceName specifies the instance name.
+     * @param numAxes specifies the number of axes.
+     * @param filters specifies an array of filter objects, one for each axis, to filter sensor data.
+     *                If no filter is used, this can be set to null.
+     */
+    public TrcSensor(final String instanceName, int numAxes, TrcFilter[] filters)
+    {
+        if (debugEnabled)
+        {
+            dbgTrace = new TrcDbgTrace(moduleName + "." + instanceName, tracingEnabled, traceLevel, msgLevel);
+        }
+        //
+        // Make sure we have at least one axis.
+        //
+        if (numAxes <= 0)
+        {
+            throw new IllegalArgumentException("Sensor must have at least one axis.");
+        }
+        //
+        // If no filters are provided, create an array of null filters.
+        //
+        if (filters == null)
+        {
+            filters = new TrcFilter[numAxes];
+        }
+        //
+        // Make sure the filter array must have numAxes elements. Even if we don't filter on some axes, we still
+        // must have numAxes elements but the elements of those axes can be null.
+        //
+        if (filters.length != numAxes)
+        {
+            throw new IllegalArgumentException(
+                    String.format(Locale.US, "filters must be an array of %d elements.", numAxes));
+        }
+
+        this.instanceName = instanceName;
+        this.numAxes = numAxes;
+        this.filters = filters;
+        signs = new int[numAxes];
+        scales = new double[numAxes];
+        timestamps = new double[numAxes];
+        for (int i = 0; i < numAxes; i++)
+        {
+            signs[i] = 1;
+            scales[i] = 1.0;
+        }
+    }   //TrcSensor
+
+    /**
+     * Constructor: Creates an instance of the object.
+     *
+     * @param instanceName specifies the instance name.
+     * @param numAxes specifies the number of axes.
+     */
+    public TrcSensor(final String instanceName, int numAxes)
+    {
+        this(instanceName, numAxes, null);
+    }   //TrcSensor
+
+    /**
+     * This method returns the instance name.
+     *
+     * @return instance name.
+     */
+    public String toString()
+    {
+        return instanceName;
+    }   //toString
+
+    /**
+     * This method returns the number of axes of the sensor.
+     *
+     * @return number of axes.
+     */
+    public int getNumAxes()
+    {
+        final String funcName = "getNumAxes";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API, "=%d", numAxes);
+        }
+
+        return numAxes;
+    }   //getNumAxes
+
+    /**
+     * This method inverts the specified axis of the sensor. This is useful if the orientation of the sensor axis
+     * is such that the data goes the wrong direction, if the sensor is mounted up-side-down, for example.
+     *
+     * @param index specifies the axis index.
+     * @param inverted specifies true to invert the axis, false otherwise.
+     */
+    public void setInverted(int index, boolean inverted)
+    {
+        final String funcName = "setInverted";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API,
+                                "index=%d,inverted=%s", index, Boolean.toString(inverted));
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        signs[index] = inverted? -1: 1;
+    }   //setInverted
+
+    /**
+     * This method sets the scale factor for the data of the specified axis.
+     *
+     * @param index specifies the axis index.
+     * @param scale specifies the scale factor for the axis.
+     */
+    public void setScale(int index, double scale)
+    {
+        final String funcName = "setScale";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "index=%d,scale=%f", index, scale);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        scales[index] = scale;
+    }   //setScale
+
+    /**
+     * This method returns the scale factor for the data of the specified axis.
+     *
+     * @param index specifies the axis index.
+     * @return scale factor for the axis.
+     */
+    public double getScale(int index)
+    {
+        return scales[index];
+    }   //getScale
+
+    /**
+     * This method sets the filter of the specified axis. To apply several filters in order, use a TrcFilterChain.
+     *
+     * @param index specifies the axis index.
+     * @param filter specifies the filter, null to remove the filter.
+     */
+    public void setFilter(int index, TrcFilter filter)
+    {
+        final String funcName = "setFilter";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "index=%d,filter=%s", index, filter);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        filters[index] = filter;
+    }   //setFilter
+
+    /**
+     * This method enables/disables the per loop cache of processed data. When enabled (the default), the processed
+     * data of an axis is computed at most once per loop of the task manager. Disable it if the sensor must be read
+     * more than once in a loop (e.g. in a busy wait).
+     *
+     * @param enabled specifies true to enable the cache, false to disable.
+     */
+    public void setCacheEnabled(boolean enabled)
+    {
+        final String funcName = "setCacheEnabled";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "enabled=%s", Boolean.toString(enabled));
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        cacheEnabled = enabled;
+    }   //setCacheEnabled
+
+    /**
+     * This method enables/disables the history of processed samples. When enabled, every processed sample of the
+     * given data type is recorded in a ring buffer per axis, which can be looked up by time.
+     *
+     * @param dataType specifies the data type to record.
+     * @param capacity specifies the number of samples kept per axis, zero to disable the history.
+     */
+    public void setHistory(D dataType, int capacity)
+    {
+        final String funcName = "setHistory";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API,
+                                "dataType=%s,capacity=%d", dataType, capacity);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        if (capacity > 0)
+        {
+            TrcSensorHistory[] newHistories = new TrcSensorHistory[numAxes];
+            for (int i = 0; i < numAxes; i++)
+            {
+                newHistories[i] = new TrcSensorHistory(instanceName + ".history" + i, capacity);
+            }
+            historyDataType = dataType;
+            histories = newHistories;
+        }
+        else
+        {
+            historyDataType = null;
+            histories = null;
+        }
+    }   //setHistory
+
+    /**
+     * This method returns the history of processed samples of the specified axis.
+     *
+     * @param index specifies the axis index.
+     * @return history of the axis, null if the history is not enabled.
+     */
+    public TrcSensorHistory getHistory(int index)
+    {
+        return histories != null? histories[index]: null;
+    }   //getHistory
+
+    /**
+     * This method calibrates the sensor by creating a calibrator if none exist yet. It then calls the calibrator
+     * to do the calibration.
+     *
+     * @param numCalSamples specifies the number of calibration sample to take.
+     * @param calInterval specifies the interval between each calibration sample in msec.
+     * @param dataType specifies the data type needed calibration.
+     */
+    protected void calibrate(int numCalSamples, long calInterval, D dataType)
+    {
+        if (calibrator == null)
+        {
+            calibrator = new TrcSensorCalibrator<>(instanceName, this, numAxes, dataType);
+        }
+
+        calibrator.calibrate(numCalSamples, calInterval);
+    }   //calibrate
+
+    /**
+     * This method calibrates the sensor by creating a calibrator if none exist yet. It then calls the calibrator
+     * to do the calibration.
+     *
+     * @param dataType specifies the data type needed calibration.
+     */
+    protected void calibrate(D dataType)
+    {
+        calibrate(NUM_CAL_SAMPLES, CAL_INTERVAL, dataType);
+    }   //calibrate
+
+    /**
+     * This method starts calibrating the sensor in the background by creating a calibrator if none exist yet. It
+     * returns immediately and the event is signaled when the calibration is done.
+     *
+     * @param numCalSamples specifies the number of calibration sample to take.
+     * @param calInterval specifies the interval between each calibration sample in msec.
+     * @param dataType specifies the data type needed calibration.
+     * @param event specifies the event to signal when the calibration is done, can be null.
+     */
+    protected void startCalibration(int numCalSamples, long calInterval, D dataType, TrcEvent event)
+    {
+        if (calibrator == null)
+        {
+            calibrator = new TrcSensorCalibrator<>(instanceName, this, numAxes, dataType);
+        }
+
+        calibrator.startCalibration(numCalSamples, calInterval, event);
+    }   //startCalibration
+
+    /**
+     * This method starts calibrating the sensor in the background by creating a calibrator if none exist yet. It
+     * returns immediately and the event is signaled when the calibration is done.
+     *
+     * @param dataType specifies the data type needed calibration.
+     * @param event specifies the event to signal when the calibration is done, can be null.
+     */
+    protected void startCalibration(D dataType, TrcEvent event)
+    {
+        startCalibration(NUM_CAL_SAMPLES, CAL_INTERVAL, dataType, event);
+    }   //startCalibration
+
+    /**
+     * This method restores the calibration from the calibration cache if the sensor is in it, so the sensor is
+     * usable immediately. It then starts calibrating the sensor in the background to re-validate the cached
+     * calibration. When done, the new calibration replaces the restored one and is saved in the cache only if the
+     * sensor was stationary during the calibration, and the event is signaled.
+     *
+     * @param dataType specifies the data type needed calibration.
+     * @param cache specifies the calibration cache.
+     * @param event specifies the event to signal when the background calibration is done, can be null.
+     * @return true if the calibration is restored from the cache, false otherwise.
+     */
+    protected boolean startCalibration(D dataType, TrcCalibrationCache cache, TrcEvent event)
+    {
+        if (calibrator == null)
+        {
+            calibrator = new TrcSensorCalibrator<>(instanceName, this, numAxes, dataType);
+        }
+
+        calibrator.setCalibrationCache(cache);
+        boolean restored = calibrator.restoreCalibration();
+        calibrator.startCalibration(NUM_CAL_SAMPLES, CAL_INTERVAL, event);
+
+        return restored;
+    }   //startCalibration
+
+    /**
+     * This method returns the built-in calibrator. It can be used to check the calibration progress or to enable
+     * continuous bias re-estimation.
+     *
+     * @return built-in calibrator, null if the sensor has never been calibrated by it.
+     */
+    public TrcSensorCalibrator<D> getCalibrator()
+    {
+        return calibrator;
+    }   //getCalibrator
+
+    /**
+     * This method checks if the built-in calibrator is doing a background calibration and no calibration is in
+     * effect yet. A sensor re-validating a restored calibration in the background is not considered calibrating.
+     *
+     * @return true if calibrating, false otherwise.
+     */
+    public boolean isCalibrating()
+    {
+        final String funcName = "isCalibrating";
+        boolean calibrating = calibrator != null && calibrator.isCalibrating() && !calibrator.isCalibrated();
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API, "=%s", Boolean.toString(calibrating));
+        }
+
+        return calibrating;
+    }   //isCalibrating
+
+    /**
+     * This method reads the selected raw sensor data into the given sample. The default implementation calls
+     * getRawData and copies the data into the sample. A platform dependent sensor that can read its data without
+     * allocating should override this method.
+     *
+     * @param index specifies the index if the sensor provides some sort of array data (e.g. the axis index of a
+     *              3-axis gyro).
+     * @param dataType specifies the data type to return (e.g. rotation rate or heading of a gyro axis).
+     * @param sample specifies the sample to receive the raw sensor data.
+     */
+    public void getRawSample(int index, D dataType, SensorSample sample)
+    {
+        SensorData<?> data = getRawData(index, dataType);
+
+        sample.timestamp = data.timestamp;
+        sample.value = (Double)data.value;
+    }   //getRawSample
+
+    /**
+     * This method reads the latest raw sensor data into the given sample. If the sensor is sampled in the background
+     * by a TrcSensorSampler for the given data type and a sample has been published, the published sample is
+     * returned. Otherwise, the hardware is read by calling getRawSample.
+     *
+     * @param index specifies the axis index.
+     * @param dataType specifies the data type.
+     * @param sample specifies the sample to receive the raw sensor data.
+     */
+    protected void getLatestRawSample(int index, D dataType, SensorSample sample)
+    {
+        TrcSensorSampler.LatestSample[] samples = latestSamples;
+
+        if (samples == null || latestDataType != dataType || !samples[index].read(sample))
+        {
+            getRawSample(index, dataType, sample);
+        }
+    }   //getLatestRawSample
+
+    /**
+     * This method is called by TrcSensorSampler to install or remove the latest samples it publishes for this
+     * sensor.
+     *
+     * @param dataType specifies the data type being sampled, null if removing.
+     * @param samples specifies the published samples, one for each axis, null if removing.
+     */
+    void setLatestSamples(Object dataType, TrcSensorSampler.LatestSample[] samples)
+    {
+        latestSamples = null;
+        latestDataType = dataType;
+        latestSamples = samples;
+    }   //setLatestSamples
+
+    /**
+     * This method returns the cache slot of the given data type, allocating the cache on first use. Enum data types
+     * get one slot per enum constant. Any other data type shares a single slot, which is still checked against the
+     * data type on lookup.
+     *
+     * @param dataType specifies the data type object.
+     * @return cache slot of the data type.
+     */
+    private int getCacheSlot(D dataType)
+    {
+        int slot = dataType instanceof Enum? ((Enum<?>)dataType).ordinal(): 0;
+
+        if (cacheSamples == null)
+        {
+            int numSlots = dataType instanceof Enum?
+                ((Enum<?>)dataType).getDeclaringClass().getEnumConstants().length: 1;
+
+            cacheSequences = new long[numAxes][numSlots];
+            cacheDataTypes = new Object[numAxes][numSlots];
+            cacheSamples = new SensorSample[numAxes][numSlots];
+            for (int i = 0; i < numAxes; i++)
+            {
+                for (int j = 0; j < numSlots; j++)
+                {
+                    cacheSamples[i][j] = new SensorSample();
+                }
+            }
+        }
+
+        return slot;
+    }   //getCacheSlot
+
+    /**
+     * This method reads the processed data for the specified axis and type into the given sample. The data will go
+     * through a filter if a filter is supplied for the axis. The calibration data will be applied to the sensor data
+     * if applicable. The sign and scale will also be applied. If the cache is enabled, the data is processed only
+     * once per loop and subsequent calls in the same loop return the same sample.
+     *
+     * @param index specifies the axis index.
+     * @param dataType specifies the data type object.
+     * @param sample specifies the sample to receive the processed sensor data.
+     */
+    public void getProcessedSample(int index, D dataType, SensorSample sample)
+    {
+        final String funcName = "getProcessedSample";
+        TrcTaskMgr taskMgr = TrcTaskMgr.getInstance();
+        long loopSequence = cacheEnabled && taskMgr != null? taskMgr.getLoopSequence(): 0;
+        int slot = loopSequence != 0? getCacheSlot(dataType): 0;
+
+        if (loopSequence != 0 &&
+            cacheSequences[index][slot] == loopSequence && cacheDataTypes[index][slot] == dataType)
+        {
+            sample.set(cacheSamples[index][slot].timestamp, cacheSamples[index][slot].value);
+        }
+        else
+        {
+            getLatestRawSample(index, dataType, sample);
+            double value = sample.value;
+
+            if (filters[index] != null)
+            {
+                value = filters[index].filterData(value);
+            }
+
+            if (calibrator != null)
+            {
+                value = calibrator.getCalibratedData(index, value);
+            }
+
+            value *= signs[index]*scales[index];
+            sample.value = value;
+
+            if (histories != null && historyDataType == dataType)
+            {
+                histories[index].addSample(sample.timestamp, value);
+            }
+
+            if (loopSequence != 0)
+            {
+                cacheSequences[index][slot] = loopSequence;
+                cacheDataTypes[index][slot] = dataType;
+                cacheSamples[index][slot].set(sample.timestamp, value);
+            }
+        }
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "index=%d", index);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API,
+                               "=(timestamp=%.3f,value=%f", sample.timestamp, sample.value);
+        }
+    }   //getProcessedSample
+
+    /**
+     * This method returns the processed value for the specified axis and type. The timestamp of the value can be
+     * retrieved by calling getTimestamp. This method must only be called from the scheduler thread.
+     *
+     * @param index specifies the axis index.
+     * @param dataType specifies the data type object.
+     * @return processed sensor value for the axis.
+     */
+    public double getProcessedValue(int index, D dataType)
+    {
+        getProcessedSample(index, dataType, sample);
+        timestamps[index] = sample.timestamp;
+
+        return sample.value;
+    }   //getProcessedValue
+
+    /**
+     * This method returns the timestamp of the value last returned by getProcessedValue for the specified axis.
+     *
+     * @param index specifies the axis index.
+     * @return timestamp of the last processed value.
+     */
+    public double getTimestamp(int index)
+    {
+        return timestamps[index];
+    }   //getTimestamp
+
+    /**
+     * This method returns the processed data for the specified axis and type. The data will go through a filter
+     * if a filter is supplied for the axis. The calibration data will be applied to the sensor data if applicable.
+     * The sign and scale will also be applied.
+     *
+     * @param index specifies the axis index.
+     * @param dataType specifies the data type object.
+     * @return processed sensor data for the axis.
+     */
+    public SensorData<Double> getProcessedData(int index, D dataType)
+    {
+        double value = getProcessedValue(index, dataType);
+
+        return new SensorData<>(timestamps[index], value);
+    }   //getProcessedData
+
+}   //class TrcSensor
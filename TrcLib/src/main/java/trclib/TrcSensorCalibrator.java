@@ -0,0 +1,697 @@
+/*
+ * Copyright (c) 2015 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package trclib;
+
+/**
+ * This class implements a generic sensor calibrator on a given sensor with the specified data type. It determines
+ * the zero offset and the deadband of each axis from running statistics (Welford's algorithm) of the raw sensor
+ * data. Calibration can be done synchronously, or in the background on a TrcThread so that several sensors can
+ * calibrate concurrently without blocking the caller. Optionally, the zero offset can be re-estimated continuously
+ * whenever the sensor is detected stationary. If a calibration cache is set, every completed calibration is stored
+ * in the cache and a cached calibration can be restored instantly. A background calibration started while a
+ * calibration is already in effect only replaces it if the sensor was stationary during the calibration.
+ *
+ * @param <D> specifies the sensor data type to be calibrated.
+ */
+public class TrcSensorCalibrator<D> implements TrcThread.PeriodicTask
+{
+    private static final String moduleName = "TrcSensorCalibrator";
+    private static final boolean debugEnabled = false;
+    private static final boolean tracingEnabled = false;
+    private static final TrcDbgTrace.TraceLevel traceLevel = TrcDbgTrace.TraceLevel.API;
+    private static final TrcDbgTrace.MsgLevel msgLevel = TrcDbgTrace.MsgLevel.INFO;
+    private TrcDbgTrace dbgTrace = null;
+
+    private static final int DEF_BIAS_PUBLISH_INTERVAL = 10;
+
+    /**
+     * This class holds a calibration in effect. A new calibration is always published as a new object so that
+     * readers on other threads see the zero offsets, deadbands and variances of the same calibration. The only
+     * exception is bias tracking, which alternates between two preallocated objects and only rewrites the zero
+     * offsets of the one that was published two publications ago.
+     */
+    private static class CalibrationData
+    {
+        final double[] zeroOffsets;
+        final double[] deadbands;
+        final double[] variances;
+
+        /**
+         * Constructor: Creates an instance of the object.
+         *
+         * @param zeroOffsets specifies the zero offsets of all axes.
+         * @param deadbands specifies the deadbands of all axes.
+         * @param variances specifies the noise variances of all axes.
+         */
+        CalibrationData(double[] zeroOffsets, double[] deadbands, double[] variances)
+        {
+            this.zeroOffsets = zeroOffsets;
+            this.deadbands = deadbands;
+            this.variances = variances;
+        }   //CalibrationData
+
+    }   //class CalibrationData
+
+    private final String instanceName;
+    private TrcSensor<D> sensor;
+    private int numAxes;
+    private D dataType;
+    private volatile CalibrationData calData;
+    private TrcCalibrationCache cache = null;
+    private volatile boolean calibrated = false;
+    //
+    // Running statistics of the calibration in progress.
+    //
+    private final TrcSensor.SensorSample sample = new TrcSensor.SensorSample();
+    private int numSamples = 0;
+    private double[] means;
+    private double[] sumSquares;
+    private double[] minValues;
+    private double[] maxValues;
+    //
+    // Background calibration.
+    //
+    private TrcThread<Object> calThread = null;
+    private TrcEvent calEvent = null;
+    private volatile int numCalSamples = 0;
+    private volatile boolean calibrating = false;
+    private CalibrationData prevCalData = null;
+    private double maxNoiseVariance = Double.POSITIVE_INFINITY;
+    //
+    // Continuous bias re-estimation.
+    //
+    private boolean biasTrackingEnabled = false;
+    private double stationaryThreshold = 0.0;
+    private int minStationarySamples = 0;
+    private double biasWeight = 0.0;
+    private int biasPublishInterval = DEF_BIAS_PUBLISH_INTERVAL;
+    private int[] stationaryCounts;
+    private final double[] trackedOffsets;
+    private final CalibrationData[] biasBuffers = new CalibrationData[2];
+    private CalibrationData trackedCalData = null;
+    private int nextBiasBuffer = 0;
+    private int numBiasUpdates = 0;
+
+    /**
+     * Constructor: Creates an instance of the object.
+     *
+     * @param instanceName specifies the instance name.
+     * @param sensor specifies the sensor to perform the calibration on.
+     * @param numAxes specifies the number of axes needs to be calibrated.
+     * @param dataType specifies the sensor data type to be calibrated.
+     */
+    public TrcSensorCalibrator(final String instanceName, TrcSensor<D> sensor, int numAxes, D dataType)
+    {
+        if (debugEnabled)
+        {
+            dbgTrace = new TrcDbgTrace(moduleName + "." + instanceName, tracingEnabled, traceLevel, msgLevel);
+        }
+
+        this.instanceName = instanceName;
+        this.sensor = sensor;
+        this.numAxes = numAxes;
+        this.dataType = dataType;
+        calData = new CalibrationData(new double[numAxes], new double[numAxes], new double[numAxes]);
+        means = new double[numAxes];
+        sumSquares = new double[numAxes];
+        minValues = new double[numAxes];
+        maxValues = new double[numAxes];
+        stationaryCounts = new int[numAxes];
+        trackedOffsets = new double[numAxes];
+    }   //TrcSensorCalibrator
+
+    /**
+     * This method returns the instance name.
+     *
+     * @return instance name.
+     */
+    public String toString()
+    {
+        return instanceName;
+    }   //toString
+
+    /**
+     * This method calibrates the sensor by reading a number of sensor data samples, averaging the data to determine
+     * the zero offset. It also determines the min and max values of the data samples to form the deadband. This
+     * method blocks until the calibration is done.
+     *
+     * @param numCalSamples specifies the number of calibration sample to take.
+     * @param calInterval specifies the interval between each calibration sample in msec.
+     */
+    public void calibrate(int numCalSamples, long calInterval)
+    {
+        final String funcName = "calibrate";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API,
+                                "numSamples=%d,calInterval=%d", numCalSamples, calInterval);
+        }
+
+        resetStatistics();
+        for (int n = 0; n < numCalSamples; n++)
+        {
+            addSamples();
+            TrcUtil.sleep(calInterval);
+        }
+        commitStatistics();
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+    }   //calibrate
+
+    /**
+     * This method starts calibrating the sensor in the background and returns immediately. The sensor is sampled on
+     * a TrcThread at the given interval. When all samples are taken, the new zero offsets and deadbands take effect
+     * and the event is signaled. Until then, the previous calibration stays in effect. If a calibration is already
+     * in effect (e.g. restored from the cache), the new calibration is only accepted if the sensor was stationary
+     * while sampling, otherwise the previous calibration is kept. The platform dependent sensor must be safe to
+     * read from another thread.
+     *
+     * @param numCalSamples specifies the number of calibration sample to take.
+     * @param calInterval specifies the interval between each calibration sample in msec.
+     * @param event specifies the event to signal when the calibration is done, can be null.
+     */
+    public synchronized void startCalibration(int numCalSamples, long calInterval, TrcEvent event)
+    {
+        final String funcName = "startCalibration";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API,
+                                "numSamples=%d,calInterval=%d,event=%s", numCalSamples, calInterval, event);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        if (numCalSamples <= 0)
+        {
+            throw new IllegalArgumentException("Number of calibration samples must be positive.");
+        }
+
+        cancelCalibration();
+        resetStatistics();
+        prevCalData = calibrated? calData: null;
+        this.numCalSamples = numCalSamples;
+        calEvent = event;
+        if (calEvent != null)
+        {
+            calEvent.clear();
+        }
+        calibrating = true;
+
+        calThread = new TrcThread<>(instanceName + ".calibrator", this);
+        calThread.setProcessingInterval(calInterval);
+        calThread.setTaskEnabled(true);
+    }   //startCalibration
+
+    /**
+     * This method cancels the background calibration if one is in progress. The previous calibration stays in
+     * effect and the event is canceled.
+     */
+    public synchronized void cancelCalibration()
+    {
+        final String funcName = "cancelCalibration";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        if (calibrating)
+        {
+            stopCalibration();
+            if (calEvent != null)
+            {
+                calEvent.cancel();
+            }
+        }
+    }   //cancelCalibration
+
+    /**
+     * This method checks if a background calibration is in progress.
+     *
+     * @return true if calibrating, false otherwise.
+     */
+    public boolean isCalibrating()
+    {
+        return calibrating;
+    }   //isCalibrating
+
+    /**
+     * This method checks if a calibration is in effect, either completed or restored from the cache.
+     *
+     * @return true if calibrated, false otherwise.
+     */
+    public boolean isCalibrated()
+    {
+        return calibrated;
+    }   //isCalibrated
+
+    /**
+     * This method sets the max noise variance of a stationary sensor. A background calibration re-validating a
+     * calibration in effect is rejected if the variance of any axis exceeds it.
+     *
+     * @param maxVariance specifies the max noise variance, Double.POSITIVE_INFINITY to not check the variance.
+     */
+    public synchronized void setMaxNoiseVariance(double maxVariance)
+    {
+        final String funcName = "setMaxNoiseVariance";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "maxVariance=%f", maxVariance);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        if (maxVariance <= 0.0)
+        {
+            throw new IllegalArgumentException("Max noise variance must be positive.");
+        }
+
+        this.maxNoiseVariance = maxVariance;
+    }   //setMaxNoiseVariance
+
+    /**
+     * This method sets the calibration cache. When set, every completed calibration is stored in the cache under
+     * the instance name of the calibrator and the cache file is saved.
+     *
+     * @param cache specifies the calibration cache, null to not use a cache.
+     */
+    public synchronized void setCalibrationCache(TrcCalibrationCache cache)
+    {
+        final String funcName = "setCalibrationCache";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "cache=%s", cache);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        this.cache = cache;
+    }   //setCalibrationCache
+
+    /**
+     * This method restores the zero offsets, deadbands and scales from the calibration cache. The cached calibration
+     * is ignored if it has a different number of axes.
+     *
+     * @return true if the calibration is restored, false if there is no usable cached calibration.
+     */
+    public synchronized boolean restoreCalibration()
+    {
+        final String funcName = "restoreCalibration";
+        TrcCalibrationCache.Calibration calibration = cache != null? cache.getCalibration(instanceName): null;
+        boolean restored = calibration != null && calibration.getNumAxes() == numAxes;
+
+        if (restored)
+        {
+            for (int i = 0; i < numAxes; i++)
+            {
+                sensor.setScale(i, calibration.scales[i]);
+                stationaryCounts[i] = 0;
+            }
+            calData = new CalibrationData(
+                calibration.zeroOffsets.clone(), calibration.deadbands.clone(), calData.variances);
+            calibrated = true;
+        }
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API, "=%s", Boolean.toString(restored));
+        }
+
+        return restored;
+    }   //restoreCalibration
+
+    /**
+     * This method returns the progress of the background calibration.
+     *
+     * @return fraction of the calibration samples taken so far, 1.0 if not calibrating.
+     */
+    public synchronized double getProgress()
+    {
+        return calibrating? (double)numSamples/numCalSamples: 1.0;
+    }   //getProgress
+
+    /**
+     * This method returns the zero offset of the specified axis.
+     *
+     * @param index specifies the axis index.
+     * @return zero offset.
+     */
+    public double getZeroOffset(int index)
+    {
+        return calData.zeroOffsets[index];
+    }   //getZeroOffset
+
+    /**
+     * This method returns the deadband of the specified axis.
+     *
+     * @param index specifies the axis index.
+     * @return deadband.
+     */
+    public double getDeadband(int index)
+    {
+        return calData.deadbands[index];
+    }   //getDeadband
+
+    /**
+     * This method returns the variance of the calibration samples of the specified axis, i.e. the noise of the
+     * sensor at rest.
+     *
+     * @param index specifies the axis index.
+     * @return noise variance.
+     */
+    public double getNoiseVariance(int index)
+    {
+        return calData.variances[index];
+    }   //getNoiseVariance
+
+    /**
+     * This method enables continuous bias re-estimation. When an axis has read within the stationary threshold of
+     * its zero offset for the given number of consecutive samples, the sensor is considered stationary and each
+     * further stationary sample moves the zero offset towards it by the given weight. This compensates for the
+     * bias drifting with temperature during a match. The adjusted zero offsets are published once every given
+     * number of stationary samples. Bias tracking is done on the thread calling getCalibratedData and does not
+     * allocate memory except when a new calibration has taken effect.
+     *
+     * @param stationaryThreshold specifies the max deviation from the zero offset considered stationary.
+     * @param minStationarySamples specifies the number of consecutive stationary samples before tracking starts.
+     * @param weight specifies the weight of each stationary sample, a small positive fraction (e.g. 0.01).
+     * @param publishInterval specifies the number of stationary samples between publishing the zero offsets.
+     */
+    public void enableBiasTracking(
+        double stationaryThreshold, int minStationarySamples, double weight, int publishInterval)
+    {
+        final String funcName = "enableBiasTracking";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API,
+                                "threshold=%f,minSamples=%d,weight=%f,publishInterval=%d",
+                                stationaryThreshold, minStationarySamples, weight, publishInterval);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        if (weight <= 0.0 || weight > 1.0)
+        {
+            throw new IllegalArgumentException("Weight must be a positive fraction within 1.0.");
+        }
+
+        if (publishInterval <= 0)
+        {
+            throw new IllegalArgumentException("Publish interval must be positive.");
+        }
+
+        this.stationaryThreshold = stationaryThreshold;
+        this.minStationarySamples = minStationarySamples;
+        this.biasWeight = weight;
+        this.biasPublishInterval = publishInterval;
+        for (int i = 0; i < numAxes; i++)
+        {
+            stationaryCounts[i] = 0;
+        }
+        trackedCalData = null;
+        biasTrackingEnabled = true;
+    }   //enableBiasTracking
+
+    /**
+     * This method enables continuous bias re-estimation. The adjusted zero offsets are published once every
+     * DEF_BIAS_PUBLISH_INTERVAL stationary samples.
+     *
+     * @param stationaryThreshold specifies the max deviation from the zero offset considered stationary.
+     * @param minStationarySamples specifies the number of consecutive stationary samples before tracking starts.
+     * @param weight specifies the weight of each stationary sample, a small positive fraction (e.g. 0.01).
+     */
+    public void enableBiasTracking(double stationaryThreshold, int minStationarySamples, double weight)
+    {
+        enableBiasTracking(stationaryThreshold, minStationarySamples, weight, DEF_BIAS_PUBLISH_INTERVAL);
+    }   //enableBiasTracking
+
+    /**
+     * This method disables continuous bias re-estimation.
+     */
+    public void disableBiasTracking()
+    {
+        final String funcName = "disableBiasTracking";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        biasTrackingEnabled = false;
+    }   //disableBiasTracking
+
+    /**
+     * This method applies the calibrated result to the raw sensor data and returned the calibrated data.
+     *
+     * @param index specifies the axis of the sensor calibration to be applied to the data.
+     * @param data specifies the raw sensor data to be calibrated.
+     * @return calibrated sensor data.
+     */
+    public double getCalibratedData(int index, double data)
+    {
+        final String funcName = "getCalibratedData";
+        CalibrationData cal = calData;
+
+        if (biasTrackingEnabled && !calibrating)
+        {
+            trackBias(cal, index, data);
+        }
+
+        double calibratedData = TrcUtil.applyDeadband(data - cal.zeroOffsets[index], cal.deadbands[index]);
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "index=%d,data=%f", index, data);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API, "=%f", calibratedData);
+        }
+
+        return calibratedData;
+    }   //getCalibratedData
+
+    /**
+     * This method re-estimates the zero offset of an axis if the sensor is stationary. The zero offsets are adjusted
+     * in a working copy and, every biasPublishInterval stationary samples, copied into the bias buffer not published
+     * last and published unless another calibration has been published in the meantime. When a new calibration
+     * has taken effect, the working copy and the bias buffers are reseeded from it.
+     *
+     * @param cal specifies the calibration in effect.
+     * @param index specifies the axis index.
+     * @param data specifies the raw sensor data.
+     */
+    private void trackBias(CalibrationData cal, int index, double data)
+    {
+        if (cal != trackedCalData)
+        {
+            System.arraycopy(cal.zeroOffsets, 0, trackedOffsets, 0, numAxes);
+            biasBuffers[0] = new CalibrationData(new double[numAxes], cal.deadbands, cal.variances);
+            biasBuffers[1] = new CalibrationData(new double[numAxes], cal.deadbands, cal.variances);
+            trackedCalData = cal;
+            numBiasUpdates = 0;
+        }
+
+        double deviation = data - trackedOffsets[index];
+
+        if (Math.abs(deviation) <= stationaryThreshold)
+        {
+            if (stationaryCounts[index] < minStationarySamples)
+            {
+                stationaryCounts[index]++;
+            }
+            else
+            {
+                trackedOffsets[index] += biasWeight*deviation;
+                numBiasUpdates++;
+                if (numBiasUpdates >= biasPublishInterval)
+                {
+                    CalibrationData newCal = biasBuffers[nextBiasBuffer];
+
+                    System.arraycopy(trackedOffsets, 0, newCal.zeroOffsets, 0, numAxes);
+                    synchronized (this)
+                    {
+                        if (calData == cal)
+                        {
+                            calData = newCal;
+                            trackedCalData = newCal;
+                            nextBiasBuffer ^= 1;
+                        }
+                    }
+                    numBiasUpdates = 0;
+                }
+            }
+        }
+        else
+        {
+            stationaryCounts[index] = 0;
+        }
+    }   //trackBias
+
+    /**
+     * This method clears the running statistics.
+     */
+    private void resetStatistics()
+    {
+        numSamples = 0;
+        for (int i = 0; i < numAxes; i++)
+        {
+            means[i] = 0.0;
+            sumSquares[i] = 0.0;
+            minValues[i] = Double.POSITIVE_INFINITY;
+            maxValues[i] = Double.NEGATIVE_INFINITY;
+        }
+    }   //resetStatistics
+
+    /**
+     * This method reads a raw sample of each axis and adds it to the running statistics.
+     */
+    private void addSamples()
+    {
+        numSamples++;
+        for (int i = 0; i < numAxes; i++)
+        {
+            sensor.getRawSample(i, dataType, sample);
+            double value = sample.value;
+            double delta = value - means[i];
+
+            means[i] += delta/numSamples;
+            sumSquares[i] += delta*(value - means[i]);
+            minValues[i] = Math.min(minValues[i], value);
+            maxValues[i] = Math.max(maxValues[i], value);
+        }
+    }   //addSamples
+
+    /**
+     * This method makes the running statistics the new calibration.
+     */
+    private void commitStatistics()
+    {
+        if (numSamples > 0)
+        {
+            double[] zeroOffsets = new double[numAxes];
+            double[] deadbands = new double[numAxes];
+            double[] variances = new double[numAxes];
+
+            for (int i = 0; i < numAxes; i++)
+            {
+                zeroOffsets[i] = means[i];
+                deadbands[i] = maxValues[i] - minValues[i];
+                variances[i] = sumSquares[i]/numSamples;
+                stationaryCounts[i] = 0;
+            }
+            calData = new CalibrationData(zeroOffsets, deadbands, variances);
+            calibrated = true;
+
+            if (cache != null)
+            {
+                TrcCalibrationCache.Calibration calibration = new TrcCalibrationCache.Calibration(numAxes);
+                for (int i = 0; i < numAxes; i++)
+                {
+                    calibration.zeroOffsets[i] = zeroOffsets[i];
+                    calibration.deadbands[i] = deadbands[i];
+                    calibration.scales[i] = sensor.getScale(i);
+                }
+                cache.putCalibration(instanceName, calibration);
+                cache.save();
+            }
+        }
+    }   //commitStatistics
+
+    /**
+     * This method checks if the sensor was stationary while taking the calibration samples, so the running
+     * statistics can replace the given calibration. The sensor is considered stationary if the noise variance of
+     * every axis is within the max noise variance and the new zero offset of every axis is within the deadband of
+     * the given calibration.
+     *
+     * @param cal specifies the calibration to be replaced.
+     * @return true if the sensor was stationary, false otherwise.
+     */
+    private boolean isStationary(CalibrationData cal)
+    {
+        boolean stationary = numSamples > 0;
+
+        for (int i = 0; stationary && i < numAxes; i++)
+        {
+            stationary = sumSquares[i]/numSamples <= maxNoiseVariance &&
+                         Math.abs(means[i] - cal.zeroOffsets[i]) <= cal.deadbands[i];
+        }
+
+        return stationary;
+    }   //isStationary
+
+    /**
+     * This method stops the background calibration thread.
+     */
+    private void stopCalibration()
+    {
+        calibrating = false;
+        if (calThread != null)
+        {
+            calThread.terminateTask();
+            calThread = null;
+        }
+    }   //stopCalibration
+
+    //
+    // Implements TrcThread.PeriodicTask interface.
+    //
+
+    /**
+     * This method is called periodically on the calibration thread to take a calibration sample. When all samples
+     * are taken, it commits the calibration unless it is re-validating a calibration and the sensor was not
+     * stationary, and signals the event.
+     */
+    @Override
+    public synchronized void runPeriodic()
+    {
+        final String funcName = "runPeriodic";
+
+        if (calibrating)
+        {
+            addSamples();
+            if (numSamples >= numCalSamples)
+            {
+                if (prevCalData == null || isStationary(prevCalData))
+                {
+                    commitStatistics();
+                }
+                else if (debugEnabled)
+                {
+                    dbgTrace.traceInfo(funcName, "Sensor not stationary, keeping the previous calibration.");
+                }
+                prevCalData = null;
+                stopCalibration();
+                if (calEvent != null)
+                {
+                    calEvent.set(true);
+                }
+            }
+        }
+    }   //runPeriodic
+
+}   //class TrcSensorCalibrator
@@ -0,0 +1,349 @@
+/*
+ * Copyright (c) 2017 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package trclib;
+
+/**
+ * This class implements a fixed size ring buffer of sensor samples. Each sample is a timestamp and a value kept in
+ * preallocated primitive arrays, so adding a sample or querying the history never creates garbage. Samples must be
+ * added in chronological order. The history can be looked up by time with linear interpolation in O(log n) and
+ * provides windowed statistics (mean, variance and slope) over the most recent samples. It is typically used to
+ * find out what a sensor read at the time a delayed measurement (e.g. a vision frame) was taken. It is not
+ * thread-safe and is expected to be accessed by the scheduler thread only.
+ */
+public class TrcSensorHistory
+{
+    private final String instanceName;
+    private final double[] timestamps;
+    private final double[] values;
+    private int head;
+    private int size;
+
+    /**
+     * Constructor: Create an instance of the object.
+     *
+     * @param instanceName specifies the instance name.
+     * @param capacity specifies the maximum number of samples kept.
+     */
+    public TrcSensorHistory(final String instanceName, int capacity)
+    {
+        if (capacity <= 0)
+        {
+            throw new IllegalArgumentException("capacity must be positive.");
+        }
+
+        this.instanceName = instanceName;
+        timestamps = new double[capacity];
+        values = new double[capacity];
+        reset();
+    }   //TrcSensorHistory
+
+    /**
+     * This method returns the instance name.
+     *
+     * @return instance name.
+     */
+    public String toString()
+    {
+        return instanceName;
+    }   //toString
+
+    /**
+     * This method clears all samples.
+     */
+    public void reset()
+    {
+        head = 0;
+        size = 0;
+    }   //reset
+
+    /**
+     * This method returns the maximum number of samples kept.
+     *
+     * @return capacity of the history.
+     */
+    public int getCapacity()
+    {
+        return timestamps.length;
+    }   //getCapacity
+
+    /**
+     * This method returns the number of samples in the history.
+     *
+     * @return number of samples.
+     */
+    public int getSize()
+    {
+        return size;
+    }   //getSize
+
+    /**
+     * This method adds a sample to the history. If the history is full, the oldest sample is overwritten. A sample
+     * older than the newest sample in the history is ignored to keep the history in chronological order. A sample
+     * with the same timestamp as the newest sample is the same reading seen again (e.g. with the loop cache disabled
+     * or a re-published sampler value), so it replaces the newest sample instead of being stored twice.
+     *
+     * @param timestamp specifies the timestamp of the sample in seconds.
+     * @param value specifies the value of the sample.
+     */
+    public void addSample(double timestamp, double value)
+    {
+        double newestTimestamp = size > 0? timestamps[physicalIndex(size - 1)]: 0.0;
+
+        if (size > 0 && timestamp == newestTimestamp)
+        {
+            values[physicalIndex(size - 1)] = value;
+        }
+        else if (size == 0 || timestamp > newestTimestamp)
+        {
+            int index;
+
+            if (size < timestamps.length)
+            {
+                index = physicalIndex(size);
+                size++;
+            }
+            else
+            {
+                index = head;
+                head = (head + 1)%timestamps.length;
+            }
+
+            timestamps[index] = timestamp;
+            values[index] = value;
+        }
+    }   //addSample
+
+    /**
+     * This method returns the timestamp of the specified sample.
+     *
+     * @param index specifies the sample index, 0 being the oldest and getSize() - 1 the newest.
+     * @return timestamp of the sample.
+     */
+    public double getTimestamp(int index)
+    {
+        checkIndex(index);
+        return timestamps[physicalIndex(index)];
+    }   //getTimestamp
+
+    /**
+     * This method returns the value of the specified sample.
+     *
+     * @param index specifies the sample index, 0 being the oldest and getSize() - 1 the newest.
+     * @return value of the sample.
+     */
+    public double getValue(int index)
+    {
+        checkIndex(index);
+        return values[physicalIndex(index)];
+    }   //getValue
+
+    /**
+     * This method returns the value at the specified time. The value is linearly interpolated between the two
+     * samples around the time. If the time is outside of the history, the oldest or newest value is returned.
+     *
+     * @param time specifies the time in seconds.
+     * @return value at the specified time, NaN if the history is empty.
+     */
+    public double getValueAt(double time)
+    {
+        double value;
+
+        if (size == 0)
+        {
+            value = Double.NaN;
+        }
+        else
+        {
+            int index = findFirstIndex(time);
+
+            if (index == 0)
+            {
+                value = values[head];
+            }
+            else if (index == size)
+            {
+                value = values[physicalIndex(size - 1)];
+            }
+            else
+            {
+                int prev = physicalIndex(index - 1);
+                int next = physicalIndex(index);
+                double dt = timestamps[next] - timestamps[prev];
+
+                value = dt > 0.0?
+                        values[prev] + (values[next] - values[prev])*(time - timestamps[prev])/dt: values[next];
+            }
+        }
+
+        return value;
+    }   //getValueAt
+
+    /**
+     * This method returns the mean of the samples taken within the specified time window ending at the newest
+     * sample.
+     *
+     * @param window specifies the time window in seconds.
+     * @return mean of the samples, NaN if the history is empty.
+     */
+    public double getMean(double window)
+    {
+        int start = getWindowStart(window);
+        double sum = 0.0;
+
+        for (int i = start; i < size; i++)
+        {
+            sum += values[physicalIndex(i)];
+        }
+
+        return size > start? sum/(size - start): Double.NaN;
+    }   //getMean
+
+    /**
+     * This method returns the population variance of the samples taken within the specified time window ending at
+     * the newest sample.
+     *
+     * @param window specifies the time window in seconds.
+     * @return variance of the samples, NaN if the history is empty.
+     */
+    public double getVariance(double window)
+    {
+        int start = getWindowStart(window);
+        double mean = getMean(window);
+        double sum = 0.0;
+
+        for (int i = start; i < size; i++)
+        {
+            double delta = values[physicalIndex(i)] - mean;
+            sum += delta*delta;
+        }
+
+        return size > start? sum/(size - start): Double.NaN;
+    }   //getVariance
+
+    /**
+     * This method returns the least squares slope, in value units per second, of the samples taken within the
+     * specified time window ending at the newest sample.
+     *
+     * @param window specifies the time window in seconds.
+     * @return slope of the samples, NaN if there are fewer than two samples with distinct timestamps in the window.
+     */
+    public double getSlope(double window)
+    {
+        int start = getWindowStart(window);
+        int n = size - start;
+        double slope = Double.NaN;
+
+        if (n >= 2)
+        {
+            //
+            // Timestamps are taken relative to the first sample in the window to preserve precision.
+            //
+            double t0 = timestamps[physicalIndex(start)];
+            double sumT = 0.0, sumV = 0.0, sumTT = 0.0, sumTV = 0.0;
+
+            for (int i = start; i < size; i++)
+            {
+                int j = physicalIndex(i);
+                double t = timestamps[j] - t0;
+
+                sumT += t;
+                sumV += values[j];
+                sumTT += t*t;
+                sumTV += t*values[j];
+            }
+
+            double denominator = n*sumTT - sumT*sumT;
+            if (denominator > 0.0)
+            {
+                slope = (n*sumTV - sumT*sumV)/denominator;
+            }
+        }
+
+        return slope;
+    }   //getSlope
+
+    /**
+     * This method returns the index of the oldest sample within the specified time window ending at the newest
+     * sample.
+     *
+     * @param window specifies the time window in seconds.
+     * @return index of the oldest sample in the window, size if the history is empty.
+     */
+    private int getWindowStart(double window)
+    {
+        return size > 0? findFirstIndex(timestamps[physicalIndex(size - 1)] - window): 0;
+    }   //getWindowStart
+
+    /**
+     * This method does a binary search for the first sample with a timestamp not earlier than the specified time.
+     *
+     * @param time specifies the time in seconds.
+     * @return index of the first sample at or after the time, size if all samples are earlier.
+     */
+    private int findFirstIndex(double time)
+    {
+        int low = 0;
+        int high = size;
+
+        while (low < high)
+        {
+            int mid = (low + high) >>> 1;
+
+            if (timestamps[physicalIndex(mid)] < time)
+            {
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid;
+            }
+        }
+
+        return low;
+    }   //findFirstIndex
+
+    /**
+     * This method converts a sample index into an index of the underlying arrays.
+     *
+     * @param index specifies the sample index, 0 being the oldest.
+     * @return array index.
+     */
+    private int physicalIndex(int index)
+    {
+        int i = head + index;
+        return i < timestamps.length? i: i - timestamps.length;
+    }   //physicalIndex
+
+    /**
+     * This method checks if the sample index is valid.
+     *
+     * @param index specifies the sample index.
+     */
+    private void checkIndex(int index)
+    {
+        if (index < 0 || index >= size)
+        {
+            throw new IllegalArgumentException("Invalid sample index " + index + ".");
+        }
+    }   //checkIndex
+
+}   //class TrcSensorHistory
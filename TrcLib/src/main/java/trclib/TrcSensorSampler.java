@@ -0,0 +1,295 @@
+/*
+ * Copyright (c) 2017 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package trclib;
+
+/**
+ * This class implements a background sensor sampler. It uses a TrcThread to poll the raw data of selected sensors
+ * at their own rates so that the hardware I/O latency is taken out of the control loop. The latest sample of each
+ * sensor axis is published through a seqlock: the sampler thread is the only writer and any number of readers get
+ * a consistent (timestamp, value) pair without blocking. A sensor opts in by being added to the sampler. From then
+ * on, its processed data is computed from the latest published sample instead of reading the hardware.
+ */
+public class TrcSensorSampler implements TrcThread.PeriodicTask
+{
+    private static final String moduleName = "TrcSensorSampler";
+    private static final boolean debugEnabled = false;
+    private static final boolean tracingEnabled = false;
+    private static final TrcDbgTrace.TraceLevel traceLevel = TrcDbgTrace.TraceLevel.API;
+    private static final TrcDbgTrace.MsgLevel msgLevel = TrcDbgTrace.MsgLevel.INFO;
+    private TrcDbgTrace dbgTrace = null;
+
+    /**
+     * This class implements the latest sample of a sensor axis published with a seqlock. The sequence number is odd
+     * while the writer is updating the sample. A reader retries if the sequence number is odd or has changed while
+     * it was reading.
+     */
+    static class LatestSample
+    {
+        private volatile long sequence = 0;
+        private volatile double timestamp = 0.0;
+        private volatile double value = 0.0;
+
+        /**
+         * This method publishes a new sample. It must only be called by the sampler thread.
+         *
+         * @param timestamp specifies the timestamp of the sample.
+         * @param value specifies the value of the sample.
+         */
+        void publish(double timestamp, double value)
+        {
+            long seq = sequence;
+
+            sequence = seq + 1;
+            this.timestamp = timestamp;
+            this.value = value;
+            sequence = seq + 2;
+        }   //publish
+
+        /**
+         * This method reads the latest sample.
+         *
+         * @param sample specifies the sample to receive the data.
+         * @return true if a sample has been published, false otherwise.
+         */
+        boolean read(TrcSensor.SensorSample sample)
+        {
+            long seq;
+            double t;
+            double v;
+
+            do
+            {
+                seq = sequence;
+                t = timestamp;
+                v = value;
+            } while ((seq & 1) != 0 || seq != sequence);
+            sample.set(t, v);
+
+            return seq != 0;
+        }   //read
+
+    }   //class LatestSample
+
+    /**
+     * This class keeps track of a sensor being sampled.
+     */
+    private static class SampledSensor
+    {
+        final TrcSensor<?> sensor;
+        final Object dataType;
+        final long interval;
+        final LatestSample[] samples;
+        long nextSampleTime = 0;
+
+        /**
+         * Constructor: Create an instance of the object.
+         *
+         * @param sensor specifies the sensor.
+         * @param dataType specifies the data type to sample.
+         * @param interval specifies the sampling interval in msec.
+         */
+        SampledSensor(TrcSensor<?> sensor, Object dataType, long interval)
+        {
+            this.sensor = sensor;
+            this.dataType = dataType;
+            this.interval = interval;
+            samples = new LatestSample[sensor.getNumAxes()];
+            for (int i = 0; i < samples.length; i++)
+            {
+                samples[i] = new LatestSample();
+            }
+        }   //SampledSensor
+
+    }   //class SampledSensor
+
+    private final String instanceName;
+    private final TrcThread<Object> samplerThread;
+    private final TrcSensor.SensorSample sample = new TrcSensor.SensorSample();
+    private volatile SampledSensor[] sensors = new SampledSensor[0];
+
+    /**
+     * Constructor: Create an instance of the object. The sampler thread is created but not enabled.
+     *
+     * @param instanceName specifies the instance name.
+     * @param baseInterval specifies the interval of the sampler thread in msec. A sensor can't be sampled faster
+     *                     than this.
+     */
+    public TrcSensorSampler(final String instanceName, long baseInterval)
+    {
+        if (debugEnabled)
+        {
+            dbgTrace = new TrcDbgTrace(moduleName + "." + instanceName, tracingEnabled, traceLevel, msgLevel);
+        }
+
+        this.instanceName = instanceName;
+        samplerThread = new TrcThread<>(instanceName, this);
+        samplerThread.setProcessingInterval(baseInterval);
+    }   //TrcSensorSampler
+
+    /**
+     * This method returns the instance name.
+     *
+     * @return instance name.
+     */
+    public String toString()
+    {
+        return instanceName;
+    }   //toString
+
+    /**
+     * This method adds a sensor to be sampled in the background. All axes of the sensor are sampled for the given
+     * data type. The platform dependent sensor must be safe to read from the sampler thread.
+     *
+     * @param sensor specifies the sensor.
+     * @param dataType specifies the data type to sample.
+     * @param interval specifies the sampling interval in msec.
+     */
+    public synchronized <D> void addSensor(TrcSensor<D> sensor, D dataType, long interval)
+    {
+        final String funcName = "addSensor";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API,
+                                "sensor=%s,dataType=%s,interval=%d", sensor, dataType, interval);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        if (sensor == null)
+        {
+            throw new NullPointerException("sensor cannot be null.");
+        }
+
+        removeSensor(sensor);
+        SampledSensor sampledSensor = new SampledSensor(sensor, dataType, interval);
+        SampledSensor[] newSensors = new SampledSensor[sensors.length + 1];
+        System.arraycopy(sensors, 0, newSensors, 0, sensors.length);
+        newSensors[sensors.length] = sampledSensor;
+        sensors = newSensors;
+        sensor.setLatestSamples(dataType, sampledSensor.samples);
+    }   //addSensor
+
+    /**
+     * This method removes a sensor from the sampler. The sensor goes back to reading the hardware directly.
+     *
+     * @param sensor specifies the sensor.
+     */
+    public synchronized void removeSensor(TrcSensor<?> sensor)
+    {
+        final String funcName = "removeSensor";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "sensor=%s", sensor);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        for (int i = 0; i < sensors.length; i++)
+        {
+            if (sensors[i].sensor == sensor)
+            {
+                SampledSensor[] newSensors = new SampledSensor[sensors.length - 1];
+                System.arraycopy(sensors, 0, newSensors, 0, i);
+                System.arraycopy(sensors, i + 1, newSensors, i, sensors.length - i - 1);
+                sensors = newSensors;
+                sensor.setLatestSamples(null, null);
+                break;
+            }
+        }
+    }   //removeSensor
+
+    /**
+     * This method enables/disables the sampler thread.
+     *
+     * @param enabled specifies true to enable sampling, false to disable.
+     */
+    public void setEnabled(boolean enabled)
+    {
+        samplerThread.setTaskEnabled(enabled);
+    }   //setEnabled
+
+    /**
+     * This method checks if the sampler thread is enabled.
+     *
+     * @return true if enabled, false otherwise.
+     */
+    public boolean isEnabled()
+    {
+        return samplerThread.isTaskEnabled();
+    }   //isEnabled
+
+    /**
+     * This method terminates the sampler thread. All sensors are removed and go back to reading the hardware
+     * directly.
+     */
+    public synchronized void terminate()
+    {
+        samplerThread.terminateTask();
+        for (int i = 0; i < sensors.length; i++)
+        {
+            sensors[i].sensor.setLatestSamples(null, null);
+        }
+        sensors = new SampledSensor[0];
+    }   //terminate
+
+    //
+    // Implements TrcThread.PeriodicTask interface.
+    //
+
+    /**
+     * This method is called periodically on the sampler thread to sample the sensors that are due.
+     */
+    @Override
+    public void runPeriodic()
+    {
+        SampledSensor[] currSensors = sensors;
+        long currTime = TrcUtil.getCurrentTimeMillis();
+
+        for (int i = 0; i < currSensors.length; i++)
+        {
+            SampledSensor sampledSensor = currSensors[i];
+
+            if (currTime >= sampledSensor.nextSampleTime)
+            {
+                sampledSensor.nextSampleTime = currTime + sampledSensor.interval;
+                for (int axis = 0; axis < sampledSensor.samples.length; axis++)
+                {
+                    sampleAxis(sampledSensor, axis);
+                }
+            }
+        }
+    }   //runPeriodic
+
+    /**
+     * This method reads the raw data of a sensor axis and publishes it.
+     *
+     * @param sampledSensor specifies the sampled sensor.
+     * @param axis specifies the axis index.
+     */
+    @SuppressWarnings("unchecked")
+    private void sampleAxis(SampledSensor sampledSensor, int axis)
+    {
+        ((TrcSensor<Object>)sampledSensor.sensor).getRawSample(axis, sampledSensor.dataType, sample);
+        sampledSensor.samples[axis].publish(sample.timestamp, sample.value);
+    }   //sampleAxis
+
+}   //class TrcSensorSampler
@@ -34,6 +34,10 @@ public class TrcSongPlayer implements TrcTaskMgr.Task
     private static final TrcDbgTrace.TraceLevel traceLevel = TrcDbgTrace.TraceLevel.API;
     private static final TrcDbgTrace.MsgLevel msgLevel = TrcDbgTrace.MsgLevel.INFO;
     private TrcDbgTrace dbgTrace = null;
+    //
+    // Checking for the end of a note every 10 msec is accurate enough for any tempo, no need to poll every loop.
+    //
+    private static final double TASK_INTERVAL = 0.01;
 
     private final String instanceName;
     private TrcTone tone;
@@ -87,7 +91,7 @@ public class TrcSongPlayer implements TrcTaskMgr.Task
         if (enabled)
         {
             taskMgr.registerTask(instanceName, this, TrcTaskMgr.TaskType.STOP_TASK);
-            taskMgr.registerTask(instanceName, this, TrcTaskMgr.TaskType.POSTCONTINUOUS_TASK);
+            taskMgr.registerTask(instanceName, this, TrcTaskMgr.TaskType.POSTCONTINUOUS_TASK, TASK_INTERVAL);
         }
         else
         {
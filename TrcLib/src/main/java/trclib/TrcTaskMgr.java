@@ -0,0 +1,1652 @@
+/*
+ * Copyright (c) 2015 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package trclib;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * This class provides methods for the callers to register/unregister cooperative multi-tasking tasks. It manages
+ * these tasks and will work with the cooperative multi-tasking scheduler to run these tasks.
+ */
+public class TrcTaskMgr
+{
+    private static final String moduleName = "TrcTaskMgr";
+    private static final boolean debugEnabled = false;
+    private static final boolean tracingEnabled = false;
+    private static final TrcDbgTrace.TraceLevel traceLevel = TrcDbgTrace.TraceLevel.API;
+    private static final TrcDbgTrace.MsgLevel msgLevel = TrcDbgTrace.MsgLevel.INFO;
+    private TrcDbgTrace dbgTrace = null;
+
+    /**
+     * These are the task type TrcTaskMgr supports:
+     */
+    public enum TaskType
+    {
+        /**
+         * START_TASK is called one time before a competition mode is about to start.
+         */
+        START_TASK,
+
+        /**
+         * STOP_TASK is called one time before a competition mode is about to end.
+         */
+        STOP_TASK,
+
+        /**
+         * PREPERIODIC_TASK is called periodically at a rate about 50Hz before runPeriodic().
+         */
+        PREPERIODIC_TASK,
+
+        /**
+         * POSTPERIODIC_TASK is called periodically at a rate about 50Hz after runPeriodic().
+         */
+        POSTPERIODIC_TASK,
+
+        /**
+         * PRECONTINUOUS_TASK is called periodically at a rate as fast as the scheduler is able to loop and is run
+         * before runContinuous() typically 10 msec interval.
+         */
+        PRECONTINUOUS_TASK,
+
+        /**
+         * POSTCONTINUOUS_TASK is called periodically at a rate as fast as the schedule is able to loop and is run
+         * after runContinuous() typically 10 msec interval.
+         */
+        POSTCONTINUOUS_TASK;
+
+        /**
+         * The bit of this task type in the task type mask of a task.
+         */
+        final int mask = 1 << ordinal();
+
+    }   //enum TaskType
+
+    /**
+     * Any class that is registering as a cooperative multi-tasking task must implement this interface.
+     */
+    public interface Task
+    {
+        /**
+         * This method contains code that will initialize the task before a competition mode is about to start.
+         * Typically, if the task is a robot subsystem, you may put last minute mode specific initialization code
+         * here. Most of the time, you don't put any code here because all initialization is done in initRobot().
+         * But sometimes, you may want to delay a certain initialization until right before competition starts.
+         * For example, you may want to reset the gyro heading right before competition starts to prevent drifting.
+         *
+         * @param runMode specifies the competition mode that is about to start (e.g. Autonomous, TeleOp, Test).
+         */
+        void startTask(TrcRobot.RunMode runMode);
+
+        /**
+         * This method contains code that will clean up the task before a competition mode is about to end. Typically,
+         * if the task is a robot subsystem, you may put code to stop the robot here. Most of the time, you don't put
+         * any code here because the system will cut power to all the motors after a competition mode has ended.
+         *
+         * @param runMode specifies the competition mode that is about to end (e.g. Autonomous, TeleOp, Test).
+         */
+        void stopTask(TrcRobot.RunMode runMode);
+
+        /**
+         * This method contains code that will run before runPeriodic() is called. Typically, you will put code that
+         * deals with any input or sensor readings here so that the code in runPeriodic() will be able to make use of
+         * the input/sensor readings produced by the code here.
+         *
+         * @param runMode specifies the competition mode that is running. (e.g. Autonomous, TeleOp, Test).
+         */
+        void prePeriodicTask(TrcRobot.RunMode runMode);
+
+        /**
+         * This method contains code that will run after runPeriodic() is called. Typically, you will put code that
+         * deals with actions such as programming the motors here.
+         *
+         * @param runMode specifies the competition mode that is running. (e.g. Autonomous, TeleOp, Test).
+         */
+        void postPeriodicTask(TrcRobot.RunMode runMode);
+
+        /**
+         * This method contains code that will run before runContinuous() is called. Typically, you will put code that
+         * deals with any input or sensor readings that requires more frequent processing here such as integrating the
+         * gyro rotation rate to heading.
+         *
+         * @param runMode specifies the competition mode that is running. (e.g. Autonomous, TeleOp, Test).
+         */
+        void preContinuousTask(TrcRobot.RunMode runMode);
+
+        /**
+         * This method contains code that will run after runContinuous() is called. Typically, you will put code that
+         * deals with actions that requires more frequent processing.
+         *
+         * @param runMode specifies the competition mode that is running. (e.g. Autonomous, TeleOp, Test).
+         */
+        void postContinuousTask(TrcRobot.RunMode runMode);
+
+    }   //interface Task
+
+    /**
+     * This class implements TaskObject that will be created whenever a class is registered as a cooperative
+     * multi-tasking task. The created task objects will be entered into an array list of task objects to be
+     * scheduled by the scheduler.
+     */
+    private static class TaskObject
+    {
+        private int taskTypeMask = 0;
+        private String taskName;
+        private Task task;
+        private TrcTimingHistogram[] execTimes = null;
+        private int priority = DEFAULT_TASK_PRIORITY;
+        private final ArrayList<TaskObject> predecessors = new ArrayList<>();
+        private boolean sorted = false;
+        private final long[] intervals = new long[NUM_TASK_TYPES];
+        private final long[] nextRunTimes = new long[NUM_TASK_TYPES];
+        private boolean parallelSafe = false;
+
+        /**
+         * Constructor: Creates an instgance of the task object with the given name
+         * and the given task type.
+         *
+         * @param taskName specifies the instance name of the task.
+         * @param task specifies the object that implements the TrcTaskMgr.Task interface.
+         */
+        public TaskObject(final String taskName, Task task)
+        {
+            this.taskName = taskName;
+            this.task = task;
+        }   //TaskObject
+
+        /**
+         * This method reinitializes a released task object so that it can be reused for the given task.
+         *
+         * @param taskName specifies the instance name of the task.
+         * @param task specifies the object that implements the TrcTaskMgr.Task interface.
+         */
+        public void reset(final String taskName, Task task)
+        {
+            this.taskName = taskName;
+            this.task = task;
+            taskTypeMask = 0;
+            execTimes = null;
+            priority = DEFAULT_TASK_PRIORITY;
+            predecessors.clear();
+            sorted = false;
+            for (int i = 0; i < NUM_TASK_TYPES; i++)
+            {
+                intervals[i] = 0;
+                nextRunTimes[i] = 0;
+            }
+            parallelSafe = false;
+        }   //reset
+
+        /**
+         * This method checks if this task object carries nothing worth keeping, i.e. it has no registered task type,
+         * the default priority, no predecessor and is not parallel-safe.
+         *
+         * @return true if the task object is unused, false otherwise.
+         */
+        public boolean isUnused()
+        {
+            return taskTypeMask == 0 && priority == DEFAULT_TASK_PRIORITY && predecessors.isEmpty() && !parallelSafe;
+        }   //isUnused
+
+        /**
+         * This method adds the given task type to the task object.
+         *
+         * @param type specifies the task type.
+         * @return true if successful, false if the task with that task type is already registered in the task list.
+         */
+        public boolean addTaskType(TaskType type)
+        {
+            boolean added = (taskTypeMask & type.mask) == 0;
+
+            taskTypeMask |= type.mask;
+            return added;
+        }   //addTaskType
+
+        /**
+         * This method removes the given task type from the task object.
+         *
+         * @param type specifies the task type.
+         * @return true if successful, false if the task with that type is not found the task list.
+         */
+        public boolean removeTaskType(TaskType type)
+        {
+            boolean removed = (taskTypeMask & type.mask) != 0;
+
+            taskTypeMask &= ~type.mask;
+            return removed;
+        }   //removeTaskType
+
+        /**
+         * This method checks if the given task is associated with this task object.
+         *
+         * @param task specifies the task to be checked against.
+         * @return true if it is the same task, false otherwise.
+         */
+        public boolean isSame(Task task)
+        {
+            return task == this.task;
+        }   //isSame
+
+        /**
+         * This method checks if the given task type is registered with this task object.
+         *
+         * @param type specifies the task type to be checked against.
+         * @return true if this task is registered as the given type, false otherwise.
+         */
+        public boolean hasType(TaskType type)
+        {
+            return (taskTypeMask & type.mask) != 0;
+        }   //hasType
+
+        /**
+         * This method checks if this task object has no registered task type.
+         *
+         * @return true if this task has no task type, false otherwise.
+         */
+        public boolean hasNoType()
+        {
+            return taskTypeMask == 0;
+        }   //hasNoType
+
+        /**
+         * This method returns the instance name of the task.
+         *
+         * @return instance name of the class.
+         */
+        public String toString()
+        {
+            return taskName;
+        }   //toString
+
+        /**
+         * This method returns the class object that was associated with this task object.
+         *
+         * @return class object associated with the task.
+         */
+        public Task getTask()
+        {
+            return task;
+        }   //getTask
+
+        /**
+         * This method checks if the task is due to run for the given task type. A task without an interval is
+         * always due. A task with an interval is due when its next run time has arrived, and its next run time is
+         * then advanced on its time grid. Missed slots are coalesced so that the task never runs back-to-back.
+         *
+         * @param type specifies the task type ordinal.
+         * @param currTime specifies the current time in nanoseconds.
+         * @return true if the task is due, false otherwise.
+         */
+        public boolean isDue(int type, long currTime)
+        {
+            long interval = intervals[type];
+            boolean due = true;
+
+            if (interval > 0)
+            {
+                long lateness = currTime - nextRunTimes[type];
+
+                if (lateness < 0)
+                {
+                    due = false;
+                }
+                else
+                {
+                    nextRunTimes[type] += (lateness/interval + 1)*interval;
+                }
+            }
+
+            return due;
+        }   //isDue
+
+        /**
+         * This method checks if the given task object must run before this task object, directly or indirectly.
+         *
+         * @param taskObj specifies the task object to be checked.
+         * @return true if the given task object is a predecessor of this task object, false otherwise.
+         */
+        public boolean isPredecessor(TaskObject taskObj)
+        {
+            for (int i = 0; i < predecessors.size(); i++)
+            {
+                TaskObject predecessor = predecessors.get(i);
+                if (predecessor == taskObj || predecessor.isPredecessor(taskObj))
+                {
+                    return true;
+                }
+            }
+            return false;
+        }   //isPredecessor
+
+        /**
+         * This method checks if all the predecessors of this task object are already sorted.
+         *
+         * @return true if all predecessors are sorted, false otherwise.
+         */
+        public boolean predecessorsSorted()
+        {
+            for (int i = 0; i < predecessors.size(); i++)
+            {
+                if (!predecessors.get(i).sorted)
+                {
+                    return false;
+                }
+            }
+            return true;
+        }   //predecessorsSorted
+
+        /**
+         * This method returns the execution time histogram of the given task type. The histogram is created if it
+         * doesn't exist yet.
+         *
+         * @param type specifies the task type.
+         * @param overrunThreshold specifies the overrun threshold in nanoseconds if the histogram is created.
+         * @return execution time histogram.
+         */
+        public TrcTimingHistogram getExecTimes(TaskType type, long overrunThreshold)
+        {
+            if (execTimes == null)
+            {
+                execTimes = new TrcTimingHistogram[NUM_TASK_TYPES];
+            }
+
+            if (execTimes[type.ordinal()] == null)
+            {
+                execTimes[type.ordinal()] = new TrcTimingHistogram(taskName + "." + type, overrunThreshold);
+            }
+
+            return execTimes[type.ordinal()];
+        }   //getExecTimes
+
+        /**
+         * This method returns the execution time histogram of the given task type if there is one.
+         *
+         * @param type specifies the task type.
+         * @return execution time histogram, null if none.
+         */
+        public TrcTimingHistogram peekExecTimes(TaskType type)
+        {
+            return execTimes != null? execTimes[type.ordinal()]: null;
+        }   //peekExecTimes
+
+    }   //class TaskObject
+
+    /**
+     * Task priority for tasks that acquire or process sensor data (e.g. encoder speed, gyro integration).
+     */
+    public static final int SENSOR_TASK_PRIORITY = 200;
+    /**
+     * Task priority for tasks that compute robot odometry from the sensor data.
+     */
+    public static final int ODOMETRY_TASK_PRIORITY = 100;
+    /**
+     * Task priority for all other tasks.
+     */
+    public static final int DEFAULT_TASK_PRIORITY = 0;
+
+    private static final TaskType[] TASK_TYPES = TaskType.values();
+    private static final int NUM_TASK_TYPES = TASK_TYPES.length;
+    private static final int INITIAL_TABLE_CAPACITY = 32;
+    private static final int MAX_FREE_TASK_OBJECTS = 16;
+    private static TrcTaskMgr instance = null;
+    //
+    // The task list is the master copy of all registered tasks. It may be modified by any thread at any time and is
+    // guarded by its own monitor. A task object is removed from the list once it has no task type and no priority,
+    // dependency or parallel-safe setting, so the list does not hold on to dead tasks. Removed task objects may still
+    // be in the dispatch tables until the scheduler rebuilds them, so they are only recycled into a bounded free list
+    // after that. This way, tasks that frequently register and unregister themselves (e.g. timers) do not create
+    // garbage.
+    //
+    private final ArrayList<TaskObject> taskList = new ArrayList<>();
+    private final ArrayList<TaskObject> releasedTaskObjects = new ArrayList<>();
+    private final ArrayList<TaskObject> freeTaskObjects = new ArrayList<>();
+    //
+    // Each task type has its own preallocated dispatch table containing only the task objects registered with that
+    // type. The tables are owned by the scheduler thread and are refreshed from the task list only at the beginning
+    // of executeTaskType, so registration changes made in the middle of a pass never disturb the iteration and take
+    // effect at the next phase boundary.
+    //
+    private final TaskObject[][] taskTables = new TaskObject[NUM_TASK_TYPES][];
+    private final int[] taskCounts = new int[NUM_TASK_TYPES];
+    private volatile boolean taskTablesDirty = false;
+    //
+    // Execution order. Tasks are sorted topologically by their dependencies and, among the tasks that are ready,
+    // by descending priority then by registration order. The sorted order is only recomputed when the task list,
+    // the priorities or the dependencies have changed.
+    //
+    private TaskObject[] sortedTasks = new TaskObject[INITIAL_TABLE_CAPACITY];
+    private int numSortedTasks = 0;
+    private boolean taskOrderDirty = false;
+    //
+    // Multi-rate tasks. A task may be registered with its own interval for a task type, in which case it only runs
+    // in the passes of that task type when it is due. Tasks sharing the same interval form a rate group and their
+    // phases are staggered evenly across the interval so that they don't all land on the same loop.
+    //
+    private final int[] ratedTaskCounts = new int[NUM_TASK_TYPES];
+    private boolean taskRatesDirty = false;
+    //
+    // Parallel execution. When worker threads are enabled, the tasks marked parallel-safe that have no dependencies
+    // are moved from the serial dispatch tables to the parallel dispatch tables. At each pass, the parallel tasks
+    // are executed concurrently by the worker threads and the scheduler thread, and the scheduler thread waits for
+    // all of them to complete before executing the serial tasks in order. Work is handed out by a claim counter that
+    // packs the pass generation in its upper 32 bits and the next task index in its lower 32 bits so that a late
+    // worker can never claim a task of another pass.
+    //
+    //
+    // The task being executed, for the watchdog to name the culprit of a stalled loop. With parallel execution, it
+    // is the task most recently started by any thread.
+    //
+    private volatile TaskObject currentTask = null;
+    private volatile TaskType currentTaskType = null;
+    private final TaskObject[][] parallelTables = new TaskObject[NUM_TASK_TYPES][];
+    private final int[] parallelCounts = new int[NUM_TASK_TYPES];
+    private final Object workerLock = new Object();
+    private Thread[] workerThreads = null;
+    private int parallelGeneration = 0;
+    private TaskObject[] parallelTable = null;
+    private int parallelCount = 0;
+    private long parallelScheduleTime = 0;
+    private TaskType parallelType = null;
+    private TrcRobot.RunMode parallelMode = null;
+    private final AtomicLong parallelClaim = new AtomicLong(0);
+    private final AtomicInteger parallelPending = new AtomicInteger(0);
+    private final AtomicReference<RuntimeException> parallelException = new AtomicReference<>(null);
+
+    /**
+     * This class implements a worker thread that executes parallel-safe tasks.
+     */
+    private class TaskWorker implements Runnable
+    {
+        /**
+         * This method waits for a new pass and helps executing its parallel tasks until it is terminated.
+         */
+        @Override
+        public void run()
+        {
+            int generation = 0;
+
+            while (!Thread.currentThread().isInterrupted())
+            {
+                TaskObject[] table;
+                int count;
+                long scheduleTime;
+                TaskType type;
+                TrcRobot.RunMode mode;
+
+                synchronized (workerLock)
+                {
+                    try
+                    {
+                        while (parallelGeneration == generation)
+                        {
+                            workerLock.wait();
+                        }
+                    }
+                    catch (InterruptedException e)
+                    {
+                        break;
+                    }
+
+                    generation = parallelGeneration;
+                    table = parallelTable;
+                    count = parallelCount;
+                    scheduleTime = parallelScheduleTime;
+                    type = parallelType;
+                    mode = parallelMode;
+                }
+
+                runParallelTasks(generation, table, count, scheduleTime, type, mode);
+            }
+        }   //run
+
+    }   //class TaskWorker
+
+    //
+    // The loop sequence number is advanced by the scheduler at the start of each loop. Sensors use it to process a
+    // sample only once per loop no matter how many consumers read it. It is zero when no loop is running.
+    //
+    private long loopCount = 0;
+    private volatile long loopSequence = 0;
+    //
+    // Task profiling. When enabled, the execution time of each task and each task type pass is recorded into
+    // preallocated histograms. The histograms of a task are created at the phase boundary when the dispatch tables
+    // are rebuilt, so there is no allocation in the dispatch loop.
+    //
+    private boolean profilingEnabled = false;
+    private long taskOverrunThreshold = 0;
+    private final TrcTimingHistogram[] taskTypeExecTimes = new TrcTimingHistogram[NUM_TASK_TYPES];
+    private TrcDbgTrace profilingTracer = null;
+    private double profilingDumpInterval = 0.0;
+    private double nextProfilingDumpTime = 0.0;
+
+    /**
+     * Constructor: Creates an instance of the task manager. Typically, there is only one global instance of
+     * task manager. Any class that needs to call task manager can call its static method getInstance().
+     */
+    public TrcTaskMgr()
+    {
+        if (debugEnabled)
+        {
+            dbgTrace = new TrcDbgTrace(moduleName, tracingEnabled, traceLevel, msgLevel);
+        }
+
+        for (int i = 0; i < NUM_TASK_TYPES; i++)
+        {
+            taskTables[i] = new TaskObject[INITIAL_TABLE_CAPACITY];
+            taskTypeExecTimes[i] = new TrcTimingHistogram(TASK_TYPES[i].toString());
+        }
+
+        instance = this;
+    }   //TrcTaskMgr
+
+    /**
+     * This method returns the global instance of TrcTaskMgr.
+     *
+     * @return global instance of TrcTaskMgr.
+     */
+    public static TrcTaskMgr getInstance()
+    {
+        return instance;
+    }   //getInstance
+
+    /**
+     * This method registers a class object as a cooperative multi-tasking task with the given task type. It is safe
+     * to call this method from any thread including from within a running task. The change will take effect at the
+     * next phase boundary.
+     *
+     * @param taskName specifies the instance name of the task.
+     * @param task specifies the class object associated with the task.
+     * @param type specifies the task type.
+     */
+    public void registerTask(final String taskName, Task task, TaskType type)
+    {
+        final String funcName = "registerTask";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "task=%s,type=%s", taskName, type.toString());
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        synchronized (taskList)
+        {
+            //
+            // Check if the task object already exist. If not, create a new task object and add it to the task object
+            // list.
+            //
+            TaskObject taskObj = findTask(task);
+            if (taskObj == null)
+            {
+                taskObj = obtainTaskObject(taskName, task);
+            }
+
+            //
+            // Register the task type with the task object and let the scheduler know the dispatch tables need to be
+            // updated.
+            //
+            if (taskObj.addTaskType(type))
+            {
+                taskTablesDirty = true;
+                if (taskObj.intervals[type.ordinal()] > 0)
+                {
+                    taskRatesDirty = true;
+                }
+            }
+        }
+    }   //registerTask
+
+    /**
+     * This method registers a class object as a cooperative multi-tasking task with the given task type to be run
+     * at the given interval instead of in every pass of the task type. This is useful for tasks that do not need to
+     * run at loop rate such as battery monitoring or light blinking. The interval is rounded up to whole passes of
+     * the task type since a task can only run when its task type is executed. It is safe to call this method from
+     * any thread including from within a running task. The change will take effect at the next phase boundary.
+     *
+     * @param taskName specifies the instance name of the task.
+     * @param task specifies the class object associated with the task.
+     * @param type specifies the task type.
+     * @param interval specifies the task interval in seconds, 0.0 to run in every pass.
+     */
+    public void registerTask(final String taskName, Task task, TaskType type, double interval)
+    {
+        long intervalNanos = (long)(interval*1000000000.0);
+
+        if (intervalNanos < 0)
+        {
+            throw new IllegalArgumentException("interval cannot be negative.");
+        }
+
+        synchronized (taskList)
+        {
+            registerTask(taskName, task, type);
+
+            TaskObject taskObj = findTask(task);
+            if (taskObj.intervals[type.ordinal()] != intervalNanos)
+            {
+                taskObj.intervals[type.ordinal()] = intervalNanos;
+                taskRatesDirty = true;
+                taskTablesDirty = true;
+            }
+        }
+    }   //registerTask
+
+    /**
+     * This method unregisters a task type from a task object associated with the given task class. It is safe to
+     * call this method from any thread including from within a running task. The change will take effect at the
+     * next phase boundary.
+     *
+     * @param task specifies the class objhect associated with the task.
+     * @param type specifies the task type.
+     */
+    public void unregisterTask(Task task, TaskType type)
+    {
+        final String funcName = "unregisterTask";
+
+        synchronized (taskList)
+        {
+            TaskObject taskObj = findTask(task);
+
+            if (debugEnabled)
+            {
+                dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API,
+                                    "task=%s,type=%s", taskObj != null? taskObj.toString(): "unknown",
+                                    type.toString());
+            }
+
+            //
+            // If we found the task object associated with the given task, unregister the task type from it. The task
+            // object is released if the task has nothing else registered with the task manager.
+            //
+            if (taskObj != null && taskObj.removeTaskType(type))
+            {
+                taskTablesDirty = true;
+                if (taskObj.intervals[type.ordinal()] > 0)
+                {
+                    taskRatesDirty = true;
+                }
+                releaseTaskObjectIfUnused(taskObj);
+            }
+        }
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+    }   //unregisterTask
+
+    /**
+     * This method sets the priority of the given task. Among tasks of the same task type, a task with higher
+     * priority is executed before a task with lower priority unless a dependency says otherwise. Tasks with the same
+     * priority are executed in registration order. The task does not need to be registered yet. The change will
+     * take effect at the next phase boundary.
+     *
+     * @param taskName specifies the instance name of the task.
+     * @param task specifies the class object associated with the task.
+     * @param priority specifies the task priority.
+     */
+    public void setTaskPriority(final String taskName, Task task, int priority)
+    {
+        final String funcName = "setTaskPriority";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "task=%s,priority=%d", taskName, priority);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        synchronized (taskList)
+        {
+            TaskObject taskObj = findTask(task);
+            if (taskObj == null)
+            {
+                taskObj = obtainTaskObject(taskName, task);
+            }
+
+            taskObj.priority = priority;
+            taskOrderDirty = true;
+            taskTablesDirty = true;
+            releaseTaskObjectIfUnused(taskObj);
+        }
+    }   //setTaskPriority
+
+    /**
+     * This method declares that the given task must be executed after the given predecessor task in every task type
+     * both of them are registered with, regardless of their priorities. This allows a task consuming the data
+     * produced by another task to see the data of the same loop. Both tasks must have been registered.
+     *
+     * @param task specifies the task that must run after the predecessor.
+     * @param predecessor specifies the task that must run first.
+     * @throws IllegalArgumentException if either task is not registered or if the dependency creates a cycle.
+     */
+    public void addTaskDependency(Task task, Task predecessor)
+    {
+        final String funcName = "addTaskDependency";
+
+        synchronized (taskList)
+        {
+            TaskObject taskObj = findTask(task);
+            TaskObject predecessorObj = findTask(predecessor);
+
+            if (debugEnabled)
+            {
+                dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "task=%s,predecessor=%s",
+                                    taskObj != null? taskObj.toString(): "unknown",
+                                    predecessorObj != null? predecessorObj.toString(): "unknown");
+                dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+            }
+
+            if (taskObj == null || predecessorObj == null)
+            {
+                throw new IllegalArgumentException("Both tasks must be registered.");
+            }
+
+            if (taskObj == predecessorObj || predecessorObj.isPredecessor(taskObj))
+            {
+                throw new IllegalArgumentException(
+                        "Task " + taskObj + " cannot run after " + predecessorObj + ", it creates a cycle.");
+            }
+
+            if (!taskObj.predecessors.contains(predecessorObj))
+            {
+                taskObj.predecessors.add(predecessorObj);
+                taskOrderDirty = true;
+                taskTablesDirty = true;
+            }
+        }
+    }   //addTaskDependency
+
+    /**
+     * This method marks the given task as safe to be executed in parallel with other parallel-safe tasks, on a
+     * worker thread. A parallel-safe task must not share mutable state with any other task running in the same
+     * pass except through thread-safe means. Parallel-safe tasks only run in parallel if worker threads are enabled
+     * and if they do not run after another task (see addTaskDependency). In every pass, they are executed before
+     * the serial tasks regardless of their priorities. The task does not need to be registered yet. The change will
+     * take effect at the next phase boundary.
+     *
+     * @param taskName specifies the instance name of the task.
+     * @param task specifies the class object associated with the task.
+     * @param parallelSafe specifies true if the task is parallel-safe, false otherwise.
+     */
+    public void setTaskParallelSafe(final String taskName, Task task, boolean parallelSafe)
+    {
+        final String funcName = "setTaskParallelSafe";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "task=%s,parallelSafe=%s",
+                                taskName, Boolean.toString(parallelSafe));
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        synchronized (taskList)
+        {
+            TaskObject taskObj = findTask(task);
+            if (taskObj == null)
+            {
+                taskObj = obtainTaskObject(taskName, task);
+            }
+
+            taskObj.parallelSafe = parallelSafe;
+            taskTablesDirty = true;
+            releaseTaskObjectIfUnused(taskObj);
+        }
+    }   //setTaskParallelSafe
+
+    /**
+     * This method enables parallel execution of parallel-safe tasks by creating the given number of worker threads.
+     * The scheduler thread also executes parallel tasks, so a small number of workers (e.g. 2 or 3) is typically
+     * enough. It must be called from the scheduler thread (e.g. in initRobot).
+     *
+     * @param numWorkers specifies the number of worker threads, 0 to disable parallel execution.
+     */
+    public void setParallelWorkers(int numWorkers)
+    {
+        final String funcName = "setParallelWorkers";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "numWorkers=%d", numWorkers);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        if (numWorkers < 0)
+        {
+            throw new IllegalArgumentException("numWorkers cannot be negative.");
+        }
+
+        stopWorkers();
+        if (numWorkers > 0)
+        {
+            workerThreads = new Thread[numWorkers];
+            for (int i = 0; i < numWorkers; i++)
+            {
+                workerThreads[i] = new Thread(new TaskWorker(), moduleName + ".worker" + i);
+                workerThreads[i].setDaemon(true);
+                workerThreads[i].start();
+            }
+        }
+        taskTablesDirty = true;
+    }   //setParallelWorkers
+
+    /**
+     * This method is called by the scheduler at the start of each loop. It advances the loop sequence number.
+     */
+    public void startLoop()
+    {
+        loopCount++;
+        loopSequence = loopCount;
+    }   //startLoop
+
+    /**
+     * This method is called by the scheduler when it exits the loop. It clears the loop sequence number so that
+     * data read outside of the loop is not cached.
+     */
+    public void stopLoop()
+    {
+        loopSequence = 0;
+    }   //stopLoop
+
+    /**
+     * This method returns the sequence number of the current loop. Data produced in a loop can be cached with this
+     * number and reused until the number changes.
+     *
+     * @return loop sequence number, 0 if the scheduler is not running a loop.
+     */
+    public long getLoopSequence()
+    {
+        return loopSequence;
+    }   //getLoopSequence
+
+    /**
+     * This method releases the resources of the task manager such as the worker threads. It should be called when
+     * the scheduler is done with the task manager (i.e. at the end of the OpMode).
+     */
+    public void shutdown()
+    {
+        stopWorkers();
+    }   //shutdown
+
+    /**
+     * This method terminates all worker threads if any.
+     */
+    private void stopWorkers()
+    {
+        if (workerThreads != null)
+        {
+            for (int i = 0; i < workerThreads.length; i++)
+            {
+                workerThreads[i].interrupt();
+            }
+            workerThreads = null;
+            taskTablesDirty = true;
+        }
+    }   //stopWorkers
+
+    /**
+     * This method enables/disables task profiling. When enabled, the execution time of every task and every task
+     * type pass is recorded. When disabled, the scheduler only pays for a single check per task type pass. The
+     * recorded data are kept when profiling is disabled, call resetProfilingData to clear them.
+     *
+     * @param enabled specifies true to enable task profiling, false to disable.
+     */
+    public void setProfilingEnabled(boolean enabled)
+    {
+        final String funcName = "setProfilingEnabled";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "enabled=%s", Boolean.toString(enabled));
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        if (enabled && !profilingEnabled)
+        {
+            //
+            // Force the dispatch tables to be rebuilt so the histograms of the registered tasks get created.
+            //
+            taskTablesDirty = true;
+        }
+        profilingEnabled = enabled;
+    }   //setProfilingEnabled
+
+    /**
+     * This method checks if task profiling is enabled.
+     *
+     * @return true if task profiling is enabled, false otherwise.
+     */
+    public boolean isProfilingEnabled()
+    {
+        return profilingEnabled;
+    }   //isProfilingEnabled
+
+    /**
+     * This method sets the overrun thresholds for task profiling. A task execution or a task type pass that takes
+     * longer than its threshold is counted as an overrun.
+     *
+     * @param taskThreshold specifies the overrun threshold of each task execution in nanoseconds, 0 to disable.
+     * @param taskTypeThreshold specifies the overrun threshold of each task type pass in nanoseconds, 0 to disable.
+     */
+    public void setProfilingOverrunThresholds(long taskThreshold, long taskTypeThreshold)
+    {
+        synchronized (taskList)
+        {
+            taskOverrunThreshold = taskThreshold;
+
+            for (int type = 0; type < NUM_TASK_TYPES; type++)
+            {
+                taskTypeExecTimes[type].setOverrunThreshold(taskTypeThreshold);
+                for (int i = 0; i < taskList.size(); i++)
+                {
+                    TrcTimingHistogram execTimes = taskList.get(i).peekExecTimes(TASK_TYPES[type]);
+                    if (execTimes != null)
+                    {
+                        execTimes.setOverrunThreshold(taskThreshold);
+                    }
+                }
+            }
+        }
+    }   //setProfilingOverrunThresholds
+
+    /**
+     * This method sets up the periodic dump of the profiling data. The dump is done by the scheduler thread at the
+     * end of a task type pass when the dump interval has expired.
+     *
+     * @param tracer specifies the tracer to dump the profiling data to, null to disable periodic dump.
+     * @param interval specifies the dump interval in seconds.
+     */
+    public void setProfilingDump(TrcDbgTrace tracer, double interval)
+    {
+        profilingTracer = tracer;
+        profilingDumpInterval = interval;
+        nextProfilingDumpTime = TrcUtil.getCurrentTime() + interval;
+    }   //setProfilingDump
+
+    /**
+     * This method returns the execution time histogram of the given task for the given task type.
+     *
+     * @param task specifies the task.
+     * @param type specifies the task type.
+     * @return execution time histogram, null if the task has no profiling data for the task type.
+     */
+    public TrcTimingHistogram getTaskExecTimes(Task task, TaskType type)
+    {
+        synchronized (taskList)
+        {
+            TaskObject taskObj = findTask(task);
+            return taskObj != null? taskObj.peekExecTimes(type): null;
+        }
+    }   //getTaskExecTimes
+
+    /**
+     * This method returns the execution time histogram of the passes of the given task type.
+     *
+     * @param type specifies the task type.
+     * @return execution time histogram of the task type.
+     */
+    public TrcTimingHistogram getTaskTypeExecTimes(TaskType type)
+    {
+        return taskTypeExecTimes[type.ordinal()];
+    }   //getTaskTypeExecTimes
+
+    /**
+     * This method clears all recorded profiling data.
+     */
+    public void resetProfilingData()
+    {
+        synchronized (taskList)
+        {
+            for (int type = 0; type < NUM_TASK_TYPES; type++)
+            {
+                taskTypeExecTimes[type].reset();
+                for (int i = 0; i < taskList.size(); i++)
+                {
+                    TrcTimingHistogram execTimes = taskList.get(i).peekExecTimes(TASK_TYPES[type]);
+                    if (execTimes != null)
+                    {
+                        execTimes.reset();
+                    }
+                }
+            }
+        }
+    }   //resetProfilingData
+
+    /**
+     * This method prints the profiling data of all task types and all tasks that have profiling data.
+     *
+     * @param tracer specifies the tracer to print the profiling data to.
+     */
+    public void printProfilingData(TrcDbgTrace tracer)
+    {
+        final String funcName = "printProfilingData";
+
+        synchronized (taskList)
+        {
+            for (int type = 0; type < NUM_TASK_TYPES; type++)
+            {
+                if (taskTypeExecTimes[type].getCount() > 0)
+                {
+                    tracer.traceInfo(funcName, "%s", taskTypeExecTimes[type].toString());
+                    for (int i = 0; i < taskList.size(); i++)
+                    {
+                        TrcTimingHistogram execTimes = taskList.get(i).peekExecTimes(TASK_TYPES[type]);
+                        if (execTimes != null && execTimes.getCount() > 0)
+                        {
+                            tracer.traceInfo(funcName, "    %s", execTimes.toString());
+                        }
+                    }
+                }
+            }
+        }
+    }   //printProfilingData
+
+    /**
+     * This method enumerates the dispatch table of the given task type and calls all the tasks in it.
+     *
+     * @param type specifies the task type to be executed.
+     * @param mode specifies the robot run mode.
+     */
+    public void executeTaskType(TaskType type, TrcRobot.RunMode mode)
+    {
+        if (taskTablesDirty)
+        {
+            updateTaskTables();
+        }
+
+        int typeIndex = type.ordinal();
+        TaskObject[] taskTable = taskTables[typeIndex];
+        int taskCount = taskCounts[typeIndex];
+        long currTime = ratedTaskCounts[typeIndex] > 0? TrcUtil.getCurrentTimeNanos(): 0;
+
+        if (profilingEnabled)
+        {
+            executeTaskTypeProfiled(taskTable, taskCount, currTime, type, mode);
+        }
+        else
+        {
+            if (parallelCounts[typeIndex] > 0)
+            {
+                executeParallelTasks(currTime, type, mode);
+            }
+
+            //
+            // The switch is outside the task loop and each case has its own loop calling the phase method directly,
+            // so every call site only ever sees the tasks of one phase.
+            //
+            currentTaskType = type;
+            switch (type)
+            {
+                case START_TASK:
+                    for (int i = 0; i < taskCount; i++)
+                    {
+                        TaskObject taskObj = taskTable[i];
+                        if (taskObj.isDue(typeIndex, currTime))
+                        {
+                            traceTask(taskObj, type);
+                            taskObj.task.startTask(mode);
+                        }
+                    }
+                    break;
+
+                case STOP_TASK:
+                    for (int i = 0; i < taskCount; i++)
+                    {
+                        TaskObject taskObj = taskTable[i];
+                        if (taskObj.isDue(typeIndex, currTime))
+                        {
+                            traceTask(taskObj, type);
+                            taskObj.task.stopTask(mode);
+                        }
+                    }
+                    break;
+
+                case PREPERIODIC_TASK:
+                    for (int i = 0; i < taskCount; i++)
+                    {
+                        TaskObject taskObj = taskTable[i];
+                        if (taskObj.isDue(typeIndex, currTime))
+                        {
+                            traceTask(taskObj, type);
+                            taskObj.task.prePeriodicTask(mode);
+                        }
+                    }
+                    break;
+
+                case POSTPERIODIC_TASK:
+                    for (int i = 0; i < taskCount; i++)
+                    {
+                        TaskObject taskObj = taskTable[i];
+                        if (taskObj.isDue(typeIndex, currTime))
+                        {
+                            traceTask(taskObj, type);
+                            taskObj.task.postPeriodicTask(mode);
+                        }
+                    }
+                    break;
+
+                case PRECONTINUOUS_TASK:
+                    for (int i = 0; i < taskCount; i++)
+                    {
+                        TaskObject taskObj = taskTable[i];
+                        if (taskObj.isDue(typeIndex, currTime))
+                        {
+                            traceTask(taskObj, type);
+                            taskObj.task.preContinuousTask(mode);
+                        }
+                    }
+                    break;
+
+                case POSTCONTINUOUS_TASK:
+                    for (int i = 0; i < taskCount; i++)
+                    {
+                        TaskObject taskObj = taskTable[i];
+                        if (taskObj.isDue(typeIndex, currTime))
+                        {
+                            traceTask(taskObj, type);
+                            taskObj.task.postContinuousTask(mode);
+                        }
+                    }
+                    break;
+            }
+        }
+        currentTask = null;
+    }   //executeTaskType
+
+    /**
+     * This method returns the name and type of the task being executed. It can be called from any thread, typically
+     * by a watchdog to identify the task that stalls the scheduler loop.
+     *
+     * @return name and type of the task being executed, null if the task manager is not executing any task.
+     */
+    public String getCurrentTaskName()
+    {
+        TaskObject taskObj = currentTask;
+        TaskType type = currentTaskType;
+
+        return taskObj != null? taskObj.toString() + "." + type: null;
+    }   //getCurrentTaskName
+
+    /**
+     * This method calls all the tasks in the given dispatch table and records their execution times.
+     *
+     * @param taskTable specifies the dispatch table.
+     * @param taskCount specifies the number of tasks in the dispatch table.
+     * @param scheduleTime specifies the pass start time in nanoseconds for scheduling multi-rate tasks.
+     * @param type specifies the task type to be executed.
+     * @param mode specifies the robot run mode.
+     */
+    private void executeTaskTypeProfiled(
+            TaskObject[] taskTable, int taskCount, long scheduleTime, TaskType type, TrcRobot.RunMode mode)
+    {
+        int typeIndex = type.ordinal();
+        long passStartTime = TrcUtil.getCurrentTimeNanos();
+
+        if (parallelCounts[typeIndex] > 0)
+        {
+            executeParallelTasks(scheduleTime, type, mode);
+        }
+
+        for (int i = 0; i < taskCount; i++)
+        {
+            TaskObject taskObj = taskTable[i];
+            if (taskObj.isDue(typeIndex, scheduleTime))
+            {
+                TrcTimingHistogram execTimes = taskObj.peekExecTimes(type);
+                long startTime = TrcUtil.getCurrentTimeNanos();
+
+                executeTask(taskObj, type, mode);
+                if (execTimes != null)
+                {
+                    execTimes.record(TrcUtil.getCurrentTimeNanos() - startTime);
+                }
+            }
+        }
+        taskTypeExecTimes[type.ordinal()].record(TrcUtil.getCurrentTimeNanos() - passStartTime);
+
+        if (profilingTracer != null && profilingDumpInterval > 0.0)
+        {
+            double currTime = TrcUtil.getCurrentTime();
+            if (currTime >= nextProfilingDumpTime)
+            {
+                nextProfilingDumpTime = currTime + profilingDumpInterval;
+                printProfilingData(profilingTracer);
+            }
+        }
+    }   //executeTaskTypeProfiled
+
+    /**
+     * This method executes the parallel tasks of the given task type on the worker threads and the calling thread.
+     * It returns when all of them have completed. If any parallel task threw an exception, it is rethrown here.
+     *
+     * @param scheduleTime specifies the pass start time in nanoseconds for scheduling multi-rate tasks.
+     * @param type specifies the task type to be executed.
+     * @param mode specifies the robot run mode.
+     */
+    private void executeParallelTasks(long scheduleTime, TaskType type, TrcRobot.RunMode mode)
+    {
+        TaskObject[] table = parallelTables[type.ordinal()];
+        int count = parallelCounts[type.ordinal()];
+        int generation;
+
+        synchronized (workerLock)
+        {
+            generation = parallelGeneration + 1;
+            parallelTable = table;
+            parallelCount = count;
+            parallelScheduleTime = scheduleTime;
+            parallelType = type;
+            parallelMode = mode;
+            parallelPending.set(count);
+            parallelClaim.set((long)generation << 32);
+            parallelGeneration = generation;
+            workerLock.notifyAll();
+        }
+
+        runParallelTasks(generation, table, count, scheduleTime, type, mode);
+        //
+        // Barrier: wait for the tasks claimed by the workers to complete.
+        //
+        while (parallelPending.get() > 0)
+        {
+            Thread.yield();
+        }
+
+        RuntimeException e = parallelException.getAndSet(null);
+        if (e != null)
+        {
+            throw e;
+        }
+    }   //executeParallelTasks
+
+    /**
+     * This method claims and executes the parallel tasks of the given pass until there is none left. It is called
+     * by the worker threads and the scheduler thread.
+     *
+     * @param generation specifies the generation of the pass.
+     * @param table specifies the parallel dispatch table of the pass.
+     * @param count specifies the number of tasks in the table.
+     * @param scheduleTime specifies the pass start time in nanoseconds for scheduling multi-rate tasks.
+     * @param type specifies the task type to be executed.
+     * @param mode specifies the robot run mode.
+     */
+    private void runParallelTasks(
+            int generation, TaskObject[] table, int count, long scheduleTime, TaskType type, TrcRobot.RunMode mode)
+    {
+        int typeIndex = type.ordinal();
+
+        for (;;)
+        {
+            long claim = parallelClaim.get();
+            int index = (int)claim;
+
+            if ((int)(claim >>> 32) != generation || index >= count)
+            {
+                break;
+            }
+            else if (parallelClaim.compareAndSet(claim, claim + 1))
+            {
+                TaskObject taskObj = table[index];
+
+                try
+                {
+                    if (taskObj.isDue(typeIndex, scheduleTime))
+                    {
+                        TrcTimingHistogram execTimes = profilingEnabled? taskObj.peekExecTimes(type): null;
+                        long startTime = execTimes != null? TrcUtil.getCurrentTimeNanos(): 0;
+
+                        executeTask(taskObj, type, mode);
+                        if (execTimes != null)
+                        {
+                            execTimes.record(TrcUtil.getCurrentTimeNanos() - startTime);
+                        }
+                    }
+                }
+                catch (RuntimeException e)
+                {
+                    parallelException.compareAndSet(null, e);
+                }
+                finally
+                {
+                    parallelPending.decrementAndGet();
+                }
+            }
+        }
+    }   //runParallelTasks
+
+    /**
+     * This method records the task about to be executed for getCurrentTaskName() and traces it if debug is enabled.
+     *
+     * @param taskObj specifies the task object to be called.
+     * @param type specifies the task type to be executed.
+     */
+    private void traceTask(TaskObject taskObj, TaskType type)
+    {
+        final String funcName = "traceTask";
+
+        currentTask = taskObj;
+        if (debugEnabled)
+        {
+            dbgTrace.traceInfo(funcName, "Executing %s %s", type, taskObj.toString());
+        }
+    }   //traceTask
+
+    /**
+     * This method calls the given task for the given task type. It is used by the profiled and parallel paths, the
+     * plain serial path in executeTaskType calls the phase methods directly.
+     *
+     * @param taskObj specifies the task object to be called.
+     * @param type specifies the task type to be executed.
+     * @param mode specifies the robot run mode.
+     */
+    private void executeTask(TaskObject taskObj, TaskType type, TrcRobot.RunMode mode)
+    {
+        currentTaskType = type;
+        traceTask(taskObj, type);
+        switch (type)
+        {
+            case START_TASK:
+                taskObj.task.startTask(mode);
+                break;
+
+            case STOP_TASK:
+                taskObj.task.stopTask(mode);
+                break;
+
+            case PREPERIODIC_TASK:
+                taskObj.task.prePeriodicTask(mode);
+                break;
+
+            case POSTPERIODIC_TASK:
+                taskObj.task.postPeriodicTask(mode);
+                break;
+
+            case PRECONTINUOUS_TASK:
+                taskObj.task.preContinuousTask(mode);
+                break;
+
+            case POSTCONTINUOUS_TASK:
+                taskObj.task.postContinuousTask(mode);
+                break;
+        }
+    }   //executeTask
+
+    /**
+     * This method rebuilds the dispatch tables from the task list. It is called by the scheduler thread at a phase
+     * boundary whenever the task list has changed. The tables only grow when their capacity is exceeded.
+     */
+    private void updateTaskTables()
+    {
+        synchronized (taskList)
+        {
+            int numTasks = taskList.size();
+
+            taskTablesDirty = false;
+            if (taskOrderDirty)
+            {
+                sortTasks();
+            }
+
+            boolean parallelEnabled = workerThreads != null;
+
+            for (int type = 0; type < NUM_TASK_TYPES; type++)
+            {
+                TaskObject[] taskTable = taskTables[type];
+                TaskObject[] parallelTable = parallelTables[type];
+                int count = 0;
+                int parallelCount = 0;
+
+                if (taskTable.length < numTasks)
+                {
+                    taskTable = new TaskObject[Math.max(numTasks, 2*taskTable.length)];
+                    taskTables[type] = taskTable;
+                }
+
+                if (parallelEnabled && (parallelTable == null || parallelTable.length < numTasks))
+                {
+                    parallelTable = new TaskObject[Math.max(numTasks, INITIAL_TABLE_CAPACITY)];
+                    parallelTables[type] = parallelTable;
+                }
+
+                for (int i = 0; i < numTasks; i++)
+                {
+                    TaskObject taskObj = sortedTasks[i];
+                    if (taskObj.hasType(TASK_TYPES[type]))
+                    {
+                        if (parallelEnabled && taskObj.parallelSafe && taskObj.predecessors.isEmpty())
+                        {
+                            parallelTable[parallelCount++] = taskObj;
+                        }
+                        else
+                        {
+                            taskTable[count++] = taskObj;
+                        }
+
+                        if (profilingEnabled)
+                        {
+                            taskObj.getExecTimes(TASK_TYPES[type], taskOverrunThreshold);
+                        }
+                    }
+                }
+                //
+                // Clear the stale entries so we don't hold on to tasks that are no longer registered.
+                //
+                for (int i = count; i < taskCounts[type]; i++)
+                {
+                    taskTable[i] = null;
+                }
+                taskCounts[type] = count;
+
+                for (int i = parallelCount; i < parallelCounts[type]; i++)
+                {
+                    parallelTable[i] = null;
+                }
+                parallelCounts[type] = parallelCount;
+            }
+
+            if (taskRatesDirty)
+            {
+                staggerTaskRates();
+            }
+            //
+            // The released task objects are no longer referenced by any dispatch table, so they can be recycled.
+            //
+            for (int i = 0; i < releasedTaskObjects.size(); i++)
+            {
+                TaskObject taskObj = releasedTaskObjects.get(i);
+
+                if (freeTaskObjects.size() < MAX_FREE_TASK_OBJECTS)
+                {
+                    taskObj.reset(null, null);
+                    freeTaskObjects.add(taskObj);
+                }
+            }
+            releasedTaskObjects.clear();
+        }
+    }   //updateTaskTables
+
+    /**
+     * This method groups the multi-rate tasks of each task type by their intervals and staggers the next run times
+     * of the tasks in each group evenly across the interval. The caller must hold the task list monitor and the
+     * tasks must have been sorted.
+     */
+    private void staggerTaskRates()
+    {
+        long currTime = TrcUtil.getCurrentTimeNanos();
+
+        for (int type = 0; type < NUM_TASK_TYPES; type++)
+        {
+            TaskType taskType = TASK_TYPES[type];
+            int ratedCount = 0;
+
+            for (int i = 0; i < numSortedTasks; i++)
+            {
+                TaskObject taskObj = sortedTasks[i];
+                long interval = taskObj.intervals[type];
+
+                if (interval > 0 && taskObj.hasType(taskType))
+                {
+                    int groupSize = 0;
+                    int groupIndex = 0;
+
+                    ratedCount++;
+                    for (int j = 0; j < numSortedTasks; j++)
+                    {
+                        if (sortedTasks[j].intervals[type] == interval && sortedTasks[j].hasType(taskType))
+                        {
+                            if (j < i)
+                            {
+                                groupIndex++;
+                            }
+                            groupSize++;
+                        }
+                    }
+                    taskObj.nextRunTimes[type] = currTime + groupIndex*interval/groupSize;
+                }
+            }
+            ratedTaskCounts[type] = ratedCount;
+        }
+        taskRatesDirty = false;
+    }   //staggerTaskRates
+
+    /**
+     * This method sorts the task list into execution order. Each step picks, among the tasks whose predecessors have
+     * all been picked, the one with the highest priority, breaking ties by registration order. The caller must hold
+     * the task list monitor.
+     */
+    private void sortTasks()
+    {
+        int numTasks = taskList.size();
+
+        if (sortedTasks.length < numTasks)
+        {
+            sortedTasks = new TaskObject[Math.max(numTasks, 2*sortedTasks.length)];
+        }
+
+        for (int i = 0; i < numTasks; i++)
+        {
+            taskList.get(i).sorted = false;
+        }
+
+        for (int n = 0; n < numTasks; n++)
+        {
+            TaskObject nextTask = null;
+
+            for (int i = 0; i < numTasks; i++)
+            {
+                TaskObject taskObj = taskList.get(i);
+                if (!taskObj.sorted && taskObj.predecessorsSorted() &&
+                    (nextTask == null || taskObj.priority > nextTask.priority))
+                {
+                    nextTask = taskObj;
+                }
+            }
+            //
+            // addTaskDependency never allows a cycle, so there is always a task that is ready.
+            //
+            nextTask.sorted = true;
+            sortedTasks[n] = nextTask;
+        }
+
+        for (int i = numTasks; i < numSortedTasks; i++)
+        {
+            sortedTasks[i] = null;
+        }
+        numSortedTasks = numTasks;
+        taskOrderDirty = false;
+    }   //sortTasks
+
+    /**
+     * This method adds a task object for the given task to the task list, reusing a recycled task object if there is
+     * one. The caller must hold the task list monitor.
+     *
+     * @param taskName specifies the instance name of the task.
+     * @param task specifies the class object associated with the task.
+     * @return task object added to the task list.
+     */
+    private TaskObject obtainTaskObject(final String taskName, Task task)
+    {
+        TaskObject taskObj;
+        int numFree = freeTaskObjects.size();
+
+        if (numFree > 0)
+        {
+            taskObj = freeTaskObjects.remove(numFree - 1);
+            taskObj.reset(taskName, task);
+        }
+        else
+        {
+            taskObj = new TaskObject(taskName, task);
+        }
+        taskList.add(taskObj);
+        taskOrderDirty = true;
+
+        return taskObj;
+    }   //obtainTaskObject
+
+    /**
+     * This method removes the given task object from the task list if it carries nothing worth keeping and no other
+     * task must run after it. The task object is recycled once the scheduler has rebuilt its dispatch tables. The
+     * caller must hold the task list monitor.
+     *
+     * @param taskObj specifies the task object to be released.
+     */
+    private void releaseTaskObjectIfUnused(TaskObject taskObj)
+    {
+        if (taskObj.isUnused())
+        {
+            for (int i = 0; i < taskList.size(); i++)
+            {
+                if (taskList.get(i).predecessors.contains(taskObj))
+                {
+                    return;
+                }
+            }
+
+            taskList.remove(taskObj);
+            releasedTaskObjects.add(taskObj);
+            taskOrderDirty = true;
+            taskTablesDirty = true;
+        }
+    }   //releaseTaskObjectIfUnused
+
+    /**
+     * This method finds the given task in the task list and return it. The caller must hold the task list monitor.
+     *
+     * @param task specifies the task to look for.
+     * @return true if found, false otherwise.
+     */
+    private TaskObject findTask(Task task)
+    {
+        for (int i = 0; i < taskList.size(); i++)
+        {
+            TaskObject taskObj = taskList.get(i);
+            if (taskObj.isSame(task))
+            {
+                return taskObj;
+            }
+        }
+        return null;
+    }   //findTask
+
+}   //class TaskMgr
@@ -53,6 +53,7 @@ public class TrcThread<T> implements Runnable
         private volatile boolean taskEnabled;
         private volatile boolean oneShotEnabled;
         private T data;
+        private boolean terminateRequested;
 
         /**
          * Constructor: Create an instance of the object.
@@ -62,6 +63,7 @@ public class TrcThread<T> implements Runnable
             taskEnabled = false;
             oneShotEnabled = false;
             data = null;
+            terminateRequested = false;
         }   //TaskState
 
         /**
@@ -79,9 +81,21 @@ public class TrcThread<T> implements Runnable
          */
         public synchronized void terminateTask()
         {
+            terminateRequested = true;
             periodicThread.interrupt();
         }   //terminateTask
 
+        /**
+         * This method checks if the periodic task has been requested to terminate. The interrupt alone is not
+         * enough because TrcUtil.sleep swallows it.
+         *
+         * @return true if termination has been requested, false otherwise.
+         */
+        public synchronized boolean isTerminateRequested()
+        {
+            return terminateRequested;
+        }   //isTerminateRequested
+
         /**
          * This method checks if the periodic task is enabled.
          *
@@ -324,7 +338,7 @@ public class TrcThread<T> implements Runnable
             dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.CALLBK);
         }
 
-        while (!Thread.interrupted() && !taskState.isTaskTerminated())
+        while (!Thread.interrupted() && !taskState.isTerminateRequested())
         {
             long startTime = TrcUtil.getCurrentTimeMillis();
 
@@ -0,0 +1,306 @@
+/*
+ * Copyright (c) 2017 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package trclib;
+
+import java.util.Locale;
+
+/**
+ * This class implements a fixed size histogram for recording execution times in nanoseconds. All storage is
+ * preallocated at construction so recording a sample never creates garbage. Samples are kept in logarithmic buckets
+ * each subdivided into 8 linear sub-buckets, giving a resolution of about 12.5% across the whole range. The class
+ * provides minimum, average, maximum and percentile statistics as well as a count of samples that exceeded a given
+ * overrun threshold. It is not thread-safe. It is expected to be updated by a single thread while other threads may
+ * read slightly stale statistics.
+ */
+public class TrcTimingHistogram
+{
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40;     // about 18 minutes in nanoseconds.
+    private static final int NUM_BUCKETS = SUB_BUCKET_COUNT*(MAX_EXPONENT - SUB_BUCKET_BITS + 2);
+
+    private final String instanceName;
+    private final long[] buckets = new long[NUM_BUCKETS];
+    private long overrunThreshold;
+    private long count;
+    private long total;
+    private long minValue;
+    private long maxValue;
+    private long overrunCount;
+
+    /**
+     * Constructor: Create an instance of the object.
+     *
+     * @param instanceName specifies the instance name.
+     * @param overrunThreshold specifies the overrun threshold in nanoseconds, zero if not counting overruns.
+     */
+    public TrcTimingHistogram(final String instanceName, long overrunThreshold)
+    {
+        this.instanceName = instanceName;
+        this.overrunThreshold = overrunThreshold;
+        reset();
+    }   //TrcTimingHistogram
+
+    /**
+     * Constructor: Create an instance of the object.
+     *
+     * @param instanceName specifies the instance name.
+     */
+    public TrcTimingHistogram(final String instanceName)
+    {
+        this(instanceName, 0);
+    }   //TrcTimingHistogram
+
+    /**
+     * This method returns the instance name.
+     *
+     * @return instance name.
+     */
+    public String getName()
+    {
+        return instanceName;
+    }   //getName
+
+    /**
+     * This method returns the statistics summary of the histogram in the form of a string.
+     *
+     * @return statistics summary string.
+     */
+    @Override
+    public String toString()
+    {
+        return String.format(Locale.US, "%s: n=%d,min=%.3f,avg=%.3f,p99=%.3f,max=%.3f,overruns=%d (usec)",
+                             instanceName, count, getMin()/1000.0, getAverage()/1000.0,
+                             getPercentile(0.99)/1000.0, getMax()/1000.0, overrunCount);
+    }   //toString
+
+    /**
+     * This method clears all recorded samples.
+     */
+    public void reset()
+    {
+        for (int i = 0; i < buckets.length; i++)
+        {
+            buckets[i] = 0;
+        }
+        count = 0;
+        total = 0;
+        minValue = Long.MAX_VALUE;
+        maxValue = 0;
+        overrunCount = 0;
+    }   //reset
+
+    /**
+     * This method sets the overrun threshold. Any sample that exceeds this threshold is counted as an overrun.
+     *
+     * @param threshold specifies the overrun threshold in nanoseconds, zero if not counting overruns.
+     */
+    public void setOverrunThreshold(long threshold)
+    {
+        overrunThreshold = threshold;
+    }   //setOverrunThreshold
+
+    /**
+     * This method returns the overrun threshold.
+     *
+     * @return overrun threshold in nanoseconds.
+     */
+    public long getOverrunThreshold()
+    {
+        return overrunThreshold;
+    }   //getOverrunThreshold
+
+    /**
+     * This method records a sample into the histogram.
+     *
+     * @param value specifies the sample value in nanoseconds.
+     */
+    public void record(long value)
+    {
+        if (value < 0)
+        {
+            value = 0;
+        }
+
+        buckets[getBucketIndex(value)]++;
+        count++;
+        total += value;
+
+        if (value < minValue)
+        {
+            minValue = value;
+        }
+
+        if (value > maxValue)
+        {
+            maxValue = value;
+        }
+
+        if (overrunThreshold > 0 && value > overrunThreshold)
+        {
+            overrunCount++;
+        }
+    }   //record
+
+    /**
+     * This method returns the number of samples recorded.
+     *
+     * @return number of samples.
+     */
+    public long getCount()
+    {
+        return count;
+    }   //getCount
+
+    /**
+     * This method returns the number of samples that exceeded the overrun threshold.
+     *
+     * @return number of overruns.
+     */
+    public long getOverrunCount()
+    {
+        return overrunCount;
+    }   //getOverrunCount
+
+    /**
+     * This method returns the minimum sample value.
+     *
+     * @return minimum sample value in nanoseconds, zero if there is no sample.
+     */
+    public long getMin()
+    {
+        return count > 0? minValue: 0;
+    }   //getMin
+
+    /**
+     * This method returns the maximum sample value.
+     *
+     * @return maximum sample value in nanoseconds.
+     */
+    public long getMax()
+    {
+        return maxValue;
+    }   //getMax
+
+    /**
+     * This method returns the average sample value.
+     *
+     * @return average sample value in nanoseconds, zero if there is no sample.
+     */
+    public double getAverage()
+    {
+        return count > 0? (double)total/count: 0.0;
+    }   //getAverage
+
+    /**
+     * This method returns the given percentile of the recorded samples. The value returned is the upper bound of
+     * the bucket containing the percentile so it is never lower than the exact value.
+     *
+     * @param percentile specifies the percentile in the range of 0.0 to 1.0 (e.g. 0.99 for p99).
+     * @return percentile value in nanoseconds, zero if there is no sample.
+     */
+    public long getPercentile(double percentile)
+    {
+        long value = 0;
+
+        if (count > 0)
+        {
+            long targetCount = (long)Math.ceil(TrcUtil.clipRange(percentile, 0.0, 1.0)*count);
+            long accumulated = 0;
+
+            if (targetCount < 1)
+            {
+                targetCount = 1;
+            }
+
+            for (int i = 0; i < buckets.length; i++)
+            {
+                accumulated += buckets[i];
+                if (accumulated >= targetCount)
+                {
+                    value = Math.min(getBucketUpperBound(i), maxValue);
+                    break;
+                }
+            }
+        }
+
+        return value;
+    }   //getPercentile
+
+    /**
+     * This method determines the bucket index of the given value.
+     *
+     * @param value specifies the value (must be non-negative).
+     * @return bucket index.
+     */
+    private static int getBucketIndex(long value)
+    {
+        int index;
+
+        if (value < SUB_BUCKET_COUNT)
+        {
+            index = (int)value;
+        }
+        else
+        {
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+
+            if (exponent > MAX_EXPONENT)
+            {
+                index = NUM_BUCKETS - 1;
+            }
+            else
+            {
+                int shift = exponent - SUB_BUCKET_BITS;
+                index = SUB_BUCKET_COUNT*(shift + 1) + (int)((value >> shift) & (SUB_BUCKET_COUNT - 1));
+            }
+        }
+
+        return index;
+    }   //getBucketIndex
+
+    /**
+     * This method returns the largest value that falls into the given bucket.
+     *
+     * @param index specifies the bucket index.
+     * @return upper bound of the bucket.
+     */
+    private static long getBucketUpperBound(int index)
+    {
+        long upperBound;
+
+        if (index < SUB_BUCKET_COUNT)
+        {
+            upperBound = index;
+        }
+        else
+        {
+            int shift = index/SUB_BUCKET_COUNT - 1;
+            long subBucket = index%SUB_BUCKET_COUNT;
+            upperBound = ((SUB_BUCKET_COUNT + subBucket + 1) << shift) - 1;
+        }
+
+        return upperBound;
+    }   //getBucketUpperBound
+
+}   //class TrcTimingHistogram
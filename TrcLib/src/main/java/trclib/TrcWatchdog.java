@@ -0,0 +1,319 @@
+/*
+ * Copyright (c) 2017 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package trclib;
+
+import java.util.ArrayList;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This class implements a watchdog for the scheduler loop. The scheduler calls loopStarted at the start of each loop
+ * and loopDone at the end of it. A monitor thread checks that the loop is done within a deadline. If a loop stalls
+ * beyond the deadline (e.g. a task spinning in a busy wait), the watchdog logs the task that is being executed and
+ * optionally sets the power of all registered motors to zero so the robot doesn't keep running at its last power.
+ * It also keeps statistics of the loop latency so that the loop budget can be tuned.
+ */
+public class TrcWatchdog implements Runnable
+{
+    private static final String moduleName = "TrcWatchdog";
+    private static final boolean debugEnabled = false;
+    private static final boolean tracingEnabled = false;
+    private static final TrcDbgTrace.TraceLevel traceLevel = TrcDbgTrace.TraceLevel.API;
+    private static final TrcDbgTrace.MsgLevel msgLevel = TrcDbgTrace.MsgLevel.INFO;
+    private TrcDbgTrace dbgTrace = null;
+
+    private final String instanceName;
+    private final TrcTaskMgr taskMgr;
+    private final TrcDbgTrace tracer;
+    private final ArrayList<TrcMotorController> motors = new ArrayList<>();
+    private final TrcTimingHistogram loopLatencies;
+    private volatile long deadline;
+    private volatile boolean stopMotorsEnabled = false;
+    private volatile long loopStartTime = 0;
+    private volatile long stallCount = 0;
+    private Thread monitorThread = null;
+
+    /**
+     * Constructor: Create an instance of the object.
+     *
+     * @param instanceName specifies the instance name.
+     * @param deadline specifies the maximum duration of a loop in nanoseconds.
+     * @param taskMgr specifies the task manager to query for the stalled task, can be null if not provided.
+     * @param tracer specifies the tracer to log loop stalls, can be null if not provided.
+     */
+    public TrcWatchdog(final String instanceName, long deadline, TrcTaskMgr taskMgr, TrcDbgTrace tracer)
+    {
+        if (debugEnabled)
+        {
+            dbgTrace = new TrcDbgTrace(moduleName + "." + instanceName, tracingEnabled, traceLevel, msgLevel);
+        }
+
+        if (deadline <= 0)
+        {
+            throw new IllegalArgumentException("deadline must be positive.");
+        }
+
+        this.instanceName = instanceName;
+        this.deadline = deadline;
+        this.taskMgr = taskMgr;
+        this.tracer = tracer;
+        loopLatencies = new TrcTimingHistogram(instanceName + ".loopLatency", deadline);
+    }   //TrcWatchdog
+
+    /**
+     * This method returns the instance name.
+     *
+     * @return instance name.
+     */
+    public String toString()
+    {
+        return instanceName;
+    }   //toString
+
+    /**
+     * This method sets the maximum duration of a loop.
+     *
+     * @param deadline specifies the deadline in nanoseconds.
+     */
+    public void setDeadline(long deadline)
+    {
+        if (deadline <= 0)
+        {
+            throw new IllegalArgumentException("deadline must be positive.");
+        }
+
+        this.deadline = deadline;
+        loopLatencies.setOverrunThreshold(deadline);
+    }   //setDeadline
+
+    /**
+     * This method returns the maximum duration of a loop.
+     *
+     * @return deadline in nanoseconds.
+     */
+    public long getDeadline()
+    {
+        return deadline;
+    }   //getDeadline
+
+    /**
+     * This method adds a motor to be stopped when the loop stalls.
+     *
+     * @param motor specifies the motor.
+     */
+    public void addMotorController(TrcMotorController motor)
+    {
+        synchronized (motors)
+        {
+            if (!motors.contains(motor))
+            {
+                motors.add(motor);
+            }
+        }
+    }   //addMotorController
+
+    /**
+     * This method removes a motor from the list of motors to be stopped when the loop stalls.
+     *
+     * @param motor specifies the motor.
+     */
+    public void removeMotorController(TrcMotorController motor)
+    {
+        synchronized (motors)
+        {
+            motors.remove(motor);
+        }
+    }   //removeMotorController
+
+    /**
+     * This method enables/disables stopping all registered motors when the loop stalls.
+     *
+     * @param enabled specifies true to stop the motors on a stall, false otherwise.
+     */
+    public void setStopMotorsEnabled(boolean enabled)
+    {
+        stopMotorsEnabled = enabled;
+    }   //setStopMotorsEnabled
+
+    /**
+     * This method starts the monitor thread. The watchdog is armed by loopStarted.
+     */
+    public synchronized void start()
+    {
+        final String funcName = "start";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        if (monitorThread == null)
+        {
+            loopStartTime = 0;
+            stallCount = 0;
+            loopLatencies.reset();
+            monitorThread = new Thread(this, moduleName + "." + instanceName);
+            monitorThread.setDaemon(true);
+            monitorThread.start();
+        }
+    }   //start
+
+    /**
+     * This method terminates the monitor thread.
+     */
+    public synchronized void stop()
+    {
+        final String funcName = "stop";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        loopStartTime = 0;
+        if (monitorThread != null)
+        {
+            monitorThread.interrupt();
+            monitorThread = null;
+        }
+    }   //stop
+
+    /**
+     * This method is called by the scheduler at the start of each loop to arm the watchdog.
+     */
+    public void loopStarted()
+    {
+        loopStartTime = TrcUtil.getCurrentTimeNanos();
+    }   //loopStarted
+
+    /**
+     * This method is called by the scheduler at the end of each loop to disarm the watchdog. It records the loop
+     * latency.
+     */
+    public void loopDone()
+    {
+        long startTime = loopStartTime;
+
+        if (startTime != 0)
+        {
+            loopStartTime = 0;
+            loopLatencies.record(TrcUtil.getCurrentTimeNanos() - startTime);
+        }
+    }   //loopDone
+
+    /**
+     * This method returns the number of loops that have overrun the deadline.
+     *
+     * @return number of loop overruns.
+     */
+    public long getOverrunCount()
+    {
+        return loopLatencies.getOverrunCount();
+    }   //getOverrunCount
+
+    /**
+     * This method returns the number of stalls detected while the loop was still running. Unlike the overrun count,
+     * this includes a loop that never completes.
+     *
+     * @return number of stalls detected.
+     */
+    public long getStallCount()
+    {
+        return stallCount;
+    }   //getStallCount
+
+    /**
+     * This method returns the loop latency statistics. The worst case latency is the maximum of the histogram.
+     *
+     * @return loop latency histogram.
+     */
+    public TrcTimingHistogram getLoopLatencies()
+    {
+        return loopLatencies;
+    }   //getLoopLatencies
+
+    /**
+     * This method is called when a loop stall is detected. It logs the stalled task and stops the motors if enabled.
+     * It can be overridden to take a different action. It is called on the monitor thread.
+     *
+     * @param stallTime specifies how long the loop has been running in nanoseconds.
+     * @param taskName specifies the name of the task being executed, null if the stall is not in a task.
+     */
+    protected void loopStalled(long stallTime, String taskName)
+    {
+        final String funcName = "loopStalled";
+
+        if (tracer != null)
+        {
+            tracer.traceWarn(funcName, "%s: loop stalled for %.3f msec in %s (stalls=%d, overruns=%d, max=%.3f msec)",
+                             instanceName, stallTime/1000000.0, taskName != null? taskName: "robot code",
+                             stallCount, loopLatencies.getOverrunCount(), loopLatencies.getMax()/1000000.0);
+        }
+
+        if (stopMotorsEnabled)
+        {
+            synchronized (motors)
+            {
+                for (int i = 0; i < motors.size(); i++)
+                {
+                    motors.get(i).setPower(0.0);
+                }
+            }
+        }
+    }   //loopStalled
+
+    //
+    // Implements Runnable interface.
+    //
+
+    /**
+     * This method runs the monitor thread. It polls the loop start time at a quarter of the deadline and reports a
+     * stall once per loop.
+     */
+    @Override
+    public void run()
+    {
+        long reportedStartTime = 0;
+
+        while (!Thread.currentThread().isInterrupted())
+        {
+            long startTime = loopStartTime;
+            long currDeadline = deadline;
+
+            if (startTime != 0 && startTime != reportedStartTime)
+            {
+                long stallTime = TrcUtil.getCurrentTimeNanos() - startTime;
+
+                if (stallTime > currDeadline)
+                {
+                    reportedStartTime = startTime;
+                    stallCount++;
+                    loopStalled(stallTime, taskMgr != null? taskMgr.getCurrentTaskName(): null);
+                }
+            }
+
+            LockSupport.parkNanos(currDeadline/4);
+        }
+    }   //run
+
+}   //class TrcWatchdog